@@ -0,0 +1,70 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.test.metric.ClassInfo;
+import com.google.test.metric.ClassRepository;
+
+/**
+ * Parsing and translating the classes of a corpus into a new repository
+ * (cold), and looking them up again once they are in it (warm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ClassRepositoryBenchmark {
+
+  @Param({Corpus.ASM, Corpus.ARGS4J, Corpus.CLASSES_FOR_TEST})
+  public String corpusName;
+
+  private Corpus corpus;
+  private ClassRepository warmRepository;
+
+  @Setup
+  public void setUp() {
+    corpus = new Corpus(corpusName);
+    warmRepository = corpus.newRepository();
+    corpus.parse(warmRepository);
+  }
+
+  @Benchmark
+  public List<ClassInfo> getClassCold() {
+    return corpus.parse(corpus.newRepository());
+  }
+
+  @Benchmark
+  public List<ClassInfo> getClassWarm() {
+    return corpus.parse(warmRepository);
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.classpath.ClasspathRootFactory;
+import com.google.classpath.ClasspathRootGroup;
+import com.google.test.metric.ClassInfo;
+import com.google.test.metric.ClassNotFoundException;
+import com.google.test.metric.ClassRepository;
+
+/**
+ * The fixed inputs the benchmarks run over. Paths are relative to the project
+ * directory, which is where the bench target runs the benchmarks.
+ */
+public class Corpus {
+
+  public static final String ASM = "asm";
+  public static final String ARGS4J = "args4j";
+  public static final String CLASSES_FOR_TEST = "classes-for-test";
+
+  private final ClasspathRootGroup classpath;
+  private final List<String> classNames;
+
+  public Corpus(String name) {
+    classpath = ClasspathRootFactory.makeClasspathRootGroup(classpathOf(name));
+    classNames = classpath.getClassNamesToEnter(Collections.singletonList(""));
+  }
+
+  static String classpathOf(String name) {
+    if (name.equals(ASM)) {
+      return "lib/asm-3.0.jar";
+    } else if (name.equals(ARGS4J)) {
+      return "lib/args4j-2.0.8.jar";
+    } else if (name.equals(CLASSES_FOR_TEST)) {
+      return "classes-for-test/root1:classes-for-test/root2:"
+          + "classes-for-test/root3";
+    }
+    throw new IllegalArgumentException("Unknown corpus '" + name + "'.");
+  }
+
+  public ClasspathRootGroup getClasspath() {
+    return classpath;
+  }
+
+  public List<String> getClassNames() {
+    return classNames;
+  }
+
+  public ClassRepository newRepository() {
+    return new ClassRepository(classpath);
+  }
+
+  /**
+   * Parses every class of the corpus into the repository, skipping the ones
+   * which reference classes outside of it, like Testability does.
+   */
+  public List<ClassInfo> parse(ClassRepository repository) {
+    List<ClassInfo> classes = new ArrayList<ClassInfo>();
+    for (String className : classNames) {
+      try {
+        classes.add(repository.getClass(className));
+      } catch (ClassNotFoundException e) {
+        // Not part of the measured work either way.
+      }
+    }
+    return classes;
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import com.google.test.metric.ClassInfo;
+import com.google.test.metric.ClassRepository;
+import com.google.test.metric.asm.MethodVisitorBuilder;
+import com.google.test.metric.asm.NoopClassVisitor;
+import com.google.test.metric.asm.Visibility;
+
+/**
+ * Visits the classes of a corpus a second time, with a
+ * {@link RecordingBlockDecomposer} behind every method, and keeps the
+ * recordings of the methods which went through the decomposer.
+ */
+public class DecomposerRecorder extends NoopClassVisitor {
+
+  private final ClassRepository repository;
+  private final List<MethodVisitorBuilder> methods = new ArrayList<MethodVisitorBuilder>();
+  private final List<RecordingBlockDecomposer> pending = new ArrayList<RecordingBlockDecomposer>();
+  private final List<RecordingBlockDecomposer> recordings = new ArrayList<RecordingBlockDecomposer>();
+  private ClassInfo classInfo;
+
+  /**
+   * @param repository has to contain the classes which get recorded already.
+   */
+  public DecomposerRecorder(ClassRepository repository) {
+    this.repository = repository;
+  }
+
+  public static List<RecordingBlockDecomposer> record(Corpus corpus,
+      ClassRepository repository) {
+    DecomposerRecorder recorder = new DecomposerRecorder(repository);
+    for (ClassInfo classInfo : corpus.parse(repository)) {
+      String resource = classInfo.getName().replace('.', '/') + ".class";
+      InputStream classBytes = corpus.getClasspath().getResourceAsStream(resource);
+      try {
+        try {
+          new ClassReader(classBytes).accept(recorder, 0);
+        } finally {
+          classBytes.close();
+        }
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    return recorder.getRecordings();
+  }
+
+  public List<RecordingBlockDecomposer> getRecordings() {
+    return recordings;
+  }
+
+  @Override
+  public void visit(int version, int access, String name, String signature,
+      String superName, String[] interfaces) {
+    classInfo = repository.getClass(name);
+  }
+
+  @Override
+  public MethodVisitor visitMethod(int access, String name, String desc,
+      String signature, String[] exceptions) {
+    boolean isStatic = (access & Opcodes.ACC_STATIC) == Opcodes.ACC_STATIC;
+    RecordingBlockDecomposer decomposer = new RecordingBlockDecomposer();
+    MethodVisitorBuilder method = new MethodVisitorBuilder(repository,
+        classInfo, name, desc, signature, exceptions, isStatic,
+        Visibility.valueOf(access), decomposer);
+    methods.add(method);
+    pending.add(decomposer);
+    return method;
+  }
+
+  @Override
+  public void visitEnd() {
+    for (MethodVisitorBuilder method : methods) {
+      method.buildMethodInfo();
+    }
+    for (RecordingBlockDecomposer decomposer : pending) {
+      if (!decomposer.isEmpty()) {
+        recordings.add(decomposer);
+      }
+    }
+    methods.clear();
+    pending.clear();
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.objectweb.asm.Label;
+
+import com.google.test.metric.method.BlockDecomposer;
+import com.google.test.metric.method.op.stack.StackOperation;
+
+/**
+ * A BlockDecomposer which records the calls MethodVisitorBuilder makes on it,
+ * so that they can be replayed on fresh decomposers without parsing the
+ * class again.
+ */
+public class RecordingBlockDecomposer extends BlockDecomposer {
+
+  private interface Call {
+    void replay(BlockDecomposer decomposer);
+  }
+
+  private final List<Call> calls = new ArrayList<Call>();
+  /**
+   * jumpSubroutine adds its JSR operation through addOp, which must not be
+   * recorded a second time.
+   */
+  private int depth;
+
+  public boolean isEmpty() {
+    return calls.isEmpty();
+  }
+
+  public void replay(BlockDecomposer decomposer) {
+    for (Call call : calls) {
+      call.replay(decomposer);
+    }
+  }
+
+  private void record(Call call) {
+    if (depth == 0) {
+      calls.add(call);
+    }
+  }
+
+  @Override
+  public void addOp(final StackOperation operation) {
+    record(new Call() {
+      public void replay(BlockDecomposer decomposer) {
+        decomposer.addOp(operation);
+      }
+    });
+    super.addOp(operation);
+  }
+
+  @Override
+  public void label(final Label label) {
+    record(new Call() {
+      public void replay(BlockDecomposer decomposer) {
+        decomposer.label(label);
+      }
+    });
+    super.label(label);
+  }
+
+  @Override
+  public void unconditionalGoto(final Label label) {
+    record(new Call() {
+      public void replay(BlockDecomposer decomposer) {
+        decomposer.unconditionalGoto(label);
+      }
+    });
+    super.unconditionalGoto(label);
+  }
+
+  @Override
+  public void conditionalGoto(final Label label) {
+    record(new Call() {
+      public void replay(BlockDecomposer decomposer) {
+        decomposer.conditionalGoto(label);
+      }
+    });
+    super.conditionalGoto(label);
+  }
+
+  @Override
+  public void jumpSubroutine(final Label label, final int lineNumber) {
+    record(new Call() {
+      public void replay(BlockDecomposer decomposer) {
+        decomposer.jumpSubroutine(label, lineNumber);
+      }
+    });
+    depth++;
+    try {
+      super.jumpSubroutine(label, lineNumber);
+    } finally {
+      depth--;
+    }
+  }
+
+  @Override
+  public void tryCatchBlock(final Label start, final Label end,
+      final Label handler, final String eType) {
+    record(new Call() {
+      public void replay(BlockDecomposer decomposer) {
+        decomposer.tryCatchBlock(start, end, handler, eType);
+      }
+    });
+    super.tryCatchBlock(start, end, handler, eType);
+  }
+
+  @Override
+  public void tableSwitch(final Label dflt, final Label... labels) {
+    record(new Call() {
+      public void replay(BlockDecomposer decomposer) {
+        decomposer.tableSwitch(dflt, labels);
+      }
+    });
+    super.tableSwitch(dflt, labels);
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.test.metric.ClassCost;
+import com.google.test.metric.ClassInfo;
+import com.google.test.metric.ClassNotFoundException;
+import com.google.test.metric.ClassRepository;
+import com.google.test.metric.CostModel;
+import com.google.test.metric.MetricComputer;
+import com.google.test.metric.RegExpWhiteList;
+import com.google.test.metric.report.HtmlReport;
+import com.google.test.metric.report.Report;
+import com.google.test.metric.report.TextReport;
+
+/**
+ * Printing the summary reports for the class costs of a corpus. The reports
+ * only accumulate the costs as they are added, the footer is where they do
+ * their work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ReportBenchmark {
+
+  @Param({Corpus.ASM, Corpus.ARGS4J, Corpus.CLASSES_FOR_TEST})
+  public String corpusName;
+
+  private final List<ClassCost> classCosts = new ArrayList<ClassCost>();
+  private final PrintStream out = new PrintStream(new OutputStream() {
+    @Override
+    public void write(int b) {
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+    }
+  });
+
+  @Setup
+  public void setUp() {
+    Corpus corpus = new Corpus(corpusName);
+    ClassRepository repository = corpus.newRepository();
+    MetricComputer computer = new MetricComputer(repository, null,
+        new RegExpWhiteList(), new CostModel());
+    for (ClassInfo classInfo : corpus.parse(repository)) {
+      try {
+        classCosts.add(computer.compute(classInfo));
+      } catch (ClassNotFoundException e) {
+        // Testability skips these classes as well.
+      }
+    }
+  }
+
+  @Benchmark
+  public void textReport() {
+    print(new TextReport(out, 50, 100, 20));
+  }
+
+  @Benchmark
+  public void htmlReport() {
+    print(new HtmlReport(out, 50, 100, 20));
+  }
+
+  private void print(Report report) {
+    report.printHeader();
+    for (ClassCost classCost : classCosts) {
+      report.addClassCost(classCost);
+    }
+    report.printFooter();
+  }
+}
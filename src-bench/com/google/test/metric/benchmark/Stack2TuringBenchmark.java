@@ -0,0 +1,76 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.test.metric.method.Block;
+import com.google.test.metric.method.BlockDecomposer;
+import com.google.test.metric.method.Stack2Turing;
+
+/**
+ * Translating the decomposed blocks of every method of a corpus which has
+ * control flow into turing operations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class Stack2TuringBenchmark {
+
+  @Param({Corpus.ASM, Corpus.ARGS4J, Corpus.CLASSES_FOR_TEST})
+  public String corpusName;
+
+  private final List<Block> mainBlocks = new ArrayList<Block>();
+
+  @Setup
+  public void setUp() {
+    Corpus corpus = new Corpus(corpusName);
+    for (RecordingBlockDecomposer recording
+        : DecomposerRecorder.record(corpus, corpus.newRepository())) {
+      BlockDecomposer decomposer = new BlockDecomposer();
+      recording.replay(decomposer);
+      decomposer.done();
+      if (decomposer.getMainBlock() != null) {
+        mainBlocks.add(decomposer.getMainBlock());
+      }
+    }
+  }
+
+  @Benchmark
+  public void translate(Blackhole blackhole) {
+    for (Block block : mainBlocks) {
+      blackhole.consume(new Stack2Turing(block).translate());
+    }
+  }
+}
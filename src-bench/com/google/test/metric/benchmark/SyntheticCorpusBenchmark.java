@@ -0,0 +1,97 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.classpath.ClasspathRootFactory;
+import com.google.test.metric.ClassRepository;
+import com.google.test.metric.CostModel;
+import com.google.test.metric.MetricComputer;
+import com.google.test.metric.RegExpWhiteList;
+import com.google.test.metric.SyntheticCorpus;
+
+/**
+ * A whole analysis (parse and compute every class into a new repository) of a
+ * generated code base. These runs take long, so each iteration is a single
+ * analysis.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class SyntheticCorpusBenchmark {
+
+  @Param({"1000", "10000", "100000"})
+  public int classCount;
+
+  private SyntheticCorpus corpus;
+  private File directory;
+
+  @Setup
+  public void setUp() throws IOException {
+    corpus = new SyntheticCorpus().setClassCount(classCount).setBranchWidth(4)
+        .setCycleEvery(50).setInheritanceDepth(3);
+    directory = File.createTempFile("synthetic", "");
+    directory.delete();
+    corpus.writeTo(directory);
+  }
+
+  @TearDown
+  public void tearDown() {
+    delete(directory);
+  }
+
+  private void delete(File file) {
+    File[] files = file.listFiles();
+    if (files != null) {
+      for (File child : files) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+
+  @Benchmark
+  public void analyze(Blackhole blackhole) {
+    ClassRepository repository = new ClassRepository(
+        ClasspathRootFactory.makeClasspathRootGroup(directory.getPath()));
+    MetricComputer computer = new MetricComputer(repository, null,
+        new RegExpWhiteList("java."), new CostModel());
+    for (int i = 0; i < classCount; i++) {
+      blackhole.consume(computer.compute(repository.getClass(
+          corpus.getClassName(i))));
+    }
+  }
+}
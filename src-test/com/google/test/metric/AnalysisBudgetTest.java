@@ -0,0 +1,69 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import junit.framework.TestCase;
+
+public class AnalysisBudgetTest extends TestCase {
+
+  public void testUnlimitedIsNeverExhausted() throws Exception {
+    assertTrue(AnalysisBudget.UNLIMITED.isUnlimited());
+    AnalysisBudget.Meter meter = AnalysisBudget.UNLIMITED.start();
+    for (int i = 0; i < 1000; i++) {
+      meter.methodVisited(1000);
+    }
+    assertFalse(meter.isExhausted());
+    assertEquals(1000, meter.getMethodCount());
+    assertEquals(1000000, meter.getOperationCount());
+  }
+
+  public void testOperationLimit() throws Exception {
+    AnalysisBudget.Meter meter = new AnalysisBudget(10, 0, 0).start();
+    meter.methodVisited(9);
+    assertFalse(meter.isExhausted());
+    meter.methodVisited(1);
+    assertTrue(meter.isExhausted());
+  }
+
+  public void testMethodLimit() throws Exception {
+    AnalysisBudget.Meter meter = new AnalysisBudget(0, 2, 0).start();
+    meter.methodVisited(0);
+    assertFalse(meter.isExhausted());
+    meter.methodVisited(0);
+    assertTrue(meter.isExhausted());
+  }
+
+  public void testTimeLimit() throws Exception {
+    AnalysisBudget.Meter meter = new AnalysisBudget(0, 0, 1).start();
+    Thread.sleep(10);
+    assertTrue(meter.isExhausted());
+  }
+
+  public void testEachMeterStartsAfresh() throws Exception {
+    AnalysisBudget budget = new AnalysisBudget(0, 1, 0);
+    AnalysisBudget.Meter meter = budget.start();
+    meter.methodVisited(0);
+    assertTrue(meter.isExhausted());
+    assertFalse(budget.start().isExhausted());
+  }
+
+  public void testTruncation() throws Exception {
+    AnalysisBudget.Meter meter = new AnalysisBudget(0, 1, 0).start();
+    assertFalse(meter.isTruncated());
+    meter.truncate();
+    assertTrue(meter.isTruncated());
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.google.test.metric.AnalysisProfiler.Sample;
+
+public class AnalysisProfilerTest extends TestCase {
+
+  public void testKeepsSlowestClassesSlowestFirst() throws Exception {
+    AnalysisProfiler profiler = new AnalysisProfiler(2);
+    profiler.classAnalyzed("a.Fast", profiler.start());
+    AnalysisProfiler.Start slowest = profiler.start();
+    AnalysisProfiler.Start slow = profiler.start();
+    Thread.sleep(50);
+    profiler.classAnalyzed("a.Slow", slow);
+    Thread.sleep(50);
+    profiler.classAnalyzed("a.Slowest", slowest);
+    List<Sample> classes = profiler.getSlowestClasses();
+    assertEquals(2, classes.size());
+    assertEquals("a.Slowest", classes.get(0).getName());
+    assertEquals("a.Slow", classes.get(1).getName());
+  }
+
+  public void testClassSumsCountsOfMethodsDecodedWhileAnalyzed()
+      throws Exception {
+    AnalysisProfiler profiler = new AnalysisProfiler(5);
+    AnalysisProfiler.Start start = profiler.start();
+    profiler.methodDecoded("a.A", "m()V", profiler.start(), 3, 10, 7);
+    profiler.methodDecoded("a.A", "n()V", profiler.start(), 2, 5, 1);
+    profiler.methodDecoded("a.B", "o()V", profiler.start(), 1, 1, 1);
+    profiler.classAnalyzed("a.A", start);
+    profiler.classAnalyzed("a.B", profiler.start());
+    List<Sample> classes = profiler.getSlowestClasses();
+    Sample a = classes.get(0).getName().equals("a.A") ? classes.get(0)
+        : classes.get(1);
+    Sample b = a == classes.get(0) ? classes.get(1) : classes.get(0);
+    assertEquals(6, a.getBlockCount());
+    assertEquals(16, a.getPathCount());
+    assertEquals(9, a.getOperationCount());
+    assertEquals(0, b.getBlockCount());
+    assertEquals(0, b.getOperationCount());
+    assertEquals(3, profiler.getSlowestMethods().size());
+  }
+
+  public void testDecodingARealClass() throws Exception {
+    ClassRepository repository = new ClassRepository();
+    AnalysisProfiler profiler = new AnalysisProfiler(100);
+    repository.setProfiler(profiler);
+    repository.getClass(AnalysisProfiler.class);
+    boolean found = false;
+    for (Sample sample : profiler.getSlowestMethods()) {
+      if (sample.getName().equals(AnalysisProfiler.class.getName()
+          + ".keep(Ljava/util/PriorityQueue;"
+          + "Lcom/google/test/metric/AnalysisProfiler$Sample;)V")) {
+        found = true;
+        assertTrue(sample.getBlockCount() > 1);
+        assertTrue(sample.getPathCount() > 0);
+        assertTrue(sample.getOperationCount() > 0);
+      }
+    }
+    assertTrue(profiler.getSlowestMethods().toString(), found);
+  }
+
+  public void testPrint() throws Exception {
+    AnalysisProfiler profiler = new AnalysisProfiler(5);
+    profiler.methodDecoded("a.A", "m()V", profiler.start(), 3, 10, 7);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    profiler.print(new PrintStream(out));
+    String text = out.toString();
+    assertTrue(text, text.contains("Slowest classes to analyze:"));
+    assertTrue(text, text.contains("  a.A.m()V"));
+  }
+}
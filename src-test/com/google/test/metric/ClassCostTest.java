@@ -78,4 +78,35 @@ public class ClassCostTest extends TestCase {
     assertEquals(classCost0, classCosts.get(2));
   }
 
+
+  public void testHighestMethodCosts() throws Exception {
+    assertEquals(0, classCost0.getHighestMethodComplexityCost());
+    assertEquals(2, classCost2.getHighestMethodComplexityCost());
+    assertEquals(0, classCost2.getHighestMethodGlobalCost());
+  }
+
+  public void testLinkRecomputesTotals() throws Exception {
+    List<MethodCost> methods = new ArrayList<MethodCost>();
+    MethodCost method = new MethodCost("c.g.t.B.method()V", 0, 5);
+    methods.add(method);
+    ClassCost classCost = new ClassCost("c.g.t.B", methods);
+    classCost.link(new CostModel());
+    assertEquals(5, classCost.getTotalComplexityCost());
+    assertEquals(5, classCost.getHighestMethodComplexityCost());
+  }
+
+  public void testGetMethodCostByName() throws Exception {
+    List<MethodCost> methods = new ArrayList<MethodCost>();
+    methods.add(methodCost0);
+    methods.add(methodCost2);
+    ClassCost classCost = new ClassCost("c.g.t.A", methods);
+    assertSame(methodCost2, classCost.getMethodCost("method2()V"));
+    assertSame(methodCost0, classCost.getMethodCost("method0()V"));
+    try {
+      classCost.getMethodCost("method1()V");
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("method1()V"));
+    }
+  }
 }
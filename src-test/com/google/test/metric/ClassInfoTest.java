@@ -21,6 +21,8 @@ import java.net.InetAddress;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class ClassInfoTest extends ClassRepositoryTestCase {
 
@@ -238,4 +240,50 @@ public class ClassInfoTest extends ClassRepositoryTestCase {
     assertSame(classInfo, method.getClassInfo());
     assertNotSame(interfaceClassInfo, method.getClassInfo());
   }
+
+  public static class FastPathMethods {
+    private int a;
+    public void empty() {
+    }
+    public int getA() {
+      return a;
+    }
+    public int max(int b) {
+      return a > b ? a : b;
+    }
+  }
+
+  public void testFastPathStatistics() throws Exception {
+    RunStatistics stats = repo.getStatistics();
+    stats.setTimed(true);
+    repo.getClass(Object.class);
+    long methods = stats.getMethodCount();
+    long empty = stats.getEmptyMethodCount();
+    long straightLine = stats.getStraightLineMethodCount();
+
+    ClassInfo clazz = repo.getClass(FastPathMethods.class);
+    assertEquals(methods + 4, stats.getMethodCount());
+    assertEquals(empty + 1, stats.getEmptyMethodCount());
+    assertEquals(straightLine + 2, stats.getStraightLineMethodCount());
+    assertEquals(0, clazz.getMethod("empty()V").getOperations().size());
+    assertEquals("[return " + FastPathMethods.class.getName() + ".a{int}]",
+        clazz.getMethod("getA()I").getOperations().toString());
+  }
+
+  public void testParallelTranslation() throws Exception {
+    ClassRepository parallelRepo = new ClassRepository();
+    ExecutorService pool = Executors.newFixedThreadPool(2);
+    try {
+      parallelRepo.setTranslationExecutor(pool, 1);
+      ClassInfo parallel = parallelRepo.getClass(FastPathMethods.class);
+      ClassInfo serial = repo.getClass(FastPathMethods.class);
+      assertEquals(serial.getMethods().size(), parallel.getMethods().size());
+      for (MethodInfo method : serial.getMethods()) {
+        assertEquals(method.getOperations().toString(),
+            parallel.getMethod(method.getNameDesc()).getOperations().toString());
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
 }
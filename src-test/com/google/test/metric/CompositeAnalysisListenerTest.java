@@ -0,0 +1,58 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import junit.framework.TestCase;
+
+import com.google.test.metric.MetricsRegistry.Counter;
+
+public class CompositeAnalysisListenerTest extends TestCase {
+
+  private final MetricsRegistry first = new MetricsRegistry();
+  private final MetricsRegistry second = new MetricsRegistry();
+  private final MetricsListener firstListener = new MetricsListener(first);
+  private final MetricsListener secondListener = new MetricsListener(second);
+
+  private static long count(MetricsRegistry registry, String name) {
+    return ((Counter) registry.get(name)).get();
+  }
+
+  public void testCombine() throws Exception {
+    assertNull(CompositeAnalysisListener.combine(null, null));
+    assertSame(firstListener,
+        CompositeAnalysisListener.combine(firstListener, null));
+    assertSame(secondListener,
+        CompositeAnalysisListener.combine(null, secondListener));
+    assertTrue(CompositeAnalysisListener.combine(firstListener, secondListener)
+        instanceof CompositeAnalysisListener);
+  }
+
+  public void testPassesStepsAndTokensToAll() throws Exception {
+    AnalysisListener listener =
+        new CompositeAnalysisListener(firstListener, secondListener);
+    listener.classLookedUp("A", false);
+    listener.classParseFinished(listener.classParseStarted("A"), 100);
+    listener.methodTranslationFinished(
+        listener.methodTranslationStarted("A", "a()V"), 1, 1, 4);
+    listener.warning("WARNING");
+    for (MetricsRegistry registry : new MetricsRegistry[] {first, second}) {
+      assertEquals(1, count(registry, "testability_class_cache_misses_total"));
+      assertEquals(100, count(registry, "testability_class_bytes_read_total"));
+      assertEquals(4, count(registry, "testability_operations_translated_total"));
+      assertEquals(1, count(registry, "testability_warnings_total"));
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import com.google.test.metric.report.BinaryReport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class DiffReportsTest extends TestCase {
+
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+  private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+  private File binary(int cost) throws Exception {
+    List<MethodCost> methods = new ArrayList<MethodCost>();
+    methods.add(new MethodCost("c.g.t.A.a()V", 1, cost));
+    ClassCost classCost = new ClassCost("c.g.t.A", methods);
+    classCost.link(new CostModel(1, 1));
+    File file = File.createTempFile("report", ".bin");
+    file.deleteOnExit();
+    FileOutputStream stream = new FileOutputStream(file);
+    BinaryReport report = new BinaryReport(stream);
+    report.printHeader();
+    report.addClassCost(classCost);
+    report.printFooter();
+    stream.close();
+    return file;
+  }
+
+  public void testDiff() throws Exception {
+    DiffReports.main(new PrintStream(out), new PrintStream(err),
+        binary(2).getPath(), binary(5).getPath());
+    assertEquals("", err.toString());
+    assertTrue(out.toString(), out.toString().startsWith("~ c.g.t.A 2 -> 5 (+3)"));
+  }
+
+  public void testNeedsTwoReports() throws Exception {
+    DiffReports.main(new PrintStream(out), new PrintStream(err),
+        binary(2).getPath());
+    assertTrue(err.toString().startsWith("Expected two reports"));
+  }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+public class FieldReferenceTest extends ClassRepositoryTestCase {
+
+  public static class Owner {
+    public static int value;
+  }
+
+  private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+  private TestabilityContext context;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    context = new TestabilityContext(repo, new PrintStream(err),
+        new RegExpWhiteList(), new CostModel());
+  }
+
+  public void testResolvesToFieldOfOwner() throws Exception {
+    FieldReference reference = new FieldReference(
+        Owner.class.getName().replace('.', '/'), "value", Type.INT, true);
+    assertEquals(Owner.class.getName() + ".value{int}", reference.toString());
+    FieldInfo field = reference.resolve(context);
+    assertSame(repo.getClass(Owner.class).getField("value"), field);
+    assertSame(field, reference.resolve(context));
+    assertEquals("", err.toString());
+  }
+
+  public void testMissingField() throws Exception {
+    FieldReference reference = new FieldReference(Owner.class.getName(),
+        "missing", Type.INT, true);
+    FieldInfo field = reference.resolve(context);
+    assertEquals("FAKE:missing", field.getName());
+    assertTrue(field.isGlobal());
+    assertTrue(err.toString().contains("field not found: missing"));
+  }
+
+  public void testMissingOwner() throws Exception {
+    FieldReference reference = new FieldReference("c.g.t.DoesNotExist", "a",
+        Type.INT, false);
+    assertSame(reference, reference.resolve(context));
+    assertTrue(err.toString().contains("class not found: c.g.t.DoesNotExist"));
+  }
+
+  public static class Reader {
+    public int read() {
+      return Owner.value;
+    }
+  }
+
+  public void testMethodOperationsResolveOnCompute() throws Exception {
+    MethodInfo method = repo.getClass(Reader.class).getMethod("read()I");
+    method.computeMetric(context);
+    LocalField returned = (LocalField) context.getReturnValue();
+    assertSame(repo.getClass(Owner.class).getField("value"),
+        returned.getField());
+  }
+
+}
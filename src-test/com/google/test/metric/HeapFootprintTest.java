@@ -0,0 +1,120 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.google.test.metric.HeapFootprint.Category;
+import com.google.test.metric.asm.Visibility;
+import com.google.test.metric.method.op.turing.LocalAssignment;
+import com.google.test.metric.method.op.turing.Operation;
+import com.google.test.metric.method.op.turing.ReturnOperation;
+
+public class HeapFootprintTest extends TestCase {
+
+  private final HeapFootprint footprint = new HeapFootprint();
+
+  @SuppressWarnings("unused")
+  private static class ThreeFields {
+    private long a;
+    private int b;
+    private Object c;
+  }
+
+  public void testShallowSizeIsAligned() throws Exception {
+    assertEquals(16, footprint.shallowSize(Object.class));
+    // 12 header + 8 + 4 + 4 = 28, aligned to 32.
+    assertEquals(32, footprint.shallowSize(ThreeFields.class));
+  }
+
+  public void testEachObjectIsCountedOnce() throws Exception {
+    Object shared = new Object();
+    List<Object> list = new ArrayList<Object>();
+    list.add(shared);
+    list.add(shared);
+    footprint.add(list);
+    footprint.add(shared);
+    assertEquals(2, footprint.getObjectCount(Category.OTHER));
+    assertEquals(2, footprint.getTotalObjectCount());
+  }
+
+  public void testModelIsSplitIntoCategories() throws Exception {
+    ClassInfo classInfo = newClass("c.g.t.A");
+    footprint.add(classInfo);
+    assertEquals(1, footprint.getClassCount());
+    assertEquals(1, footprint.getMethodCount());
+    assertTrue(footprint.getBytes(Category.CLASSES) > 0);
+    assertTrue(footprint.getBytes(Category.OPERATIONS) > 0);
+    assertTrue(footprint.getBytes(Category.VARIABLES) > 0);
+    assertEquals(0, footprint.getBytes(Category.COSTS));
+    assertEquals(0, footprint.getBytes(Category.REPORTS));
+    assertEquals(footprint.getTotalBytes(),
+        footprint.getBytesPerClass(Category.CLASSES)
+        + footprint.getBytesPerClass(Category.OPERATIONS)
+        + footprint.getBytesPerClass(Category.VARIABLES)
+        + footprint.getBytesPerClass(Category.OTHER));
+  }
+
+  public void testListOfModelObjectsIsChargedToTheirCategory() throws Exception {
+    List<MethodCost> costs = new ArrayList<MethodCost>();
+    costs.add(new MethodCost("a()V", 1, 1));
+    footprint.add(costs);
+    // The list, the cost, its name and its two lists of costs.
+    assertEquals(5, footprint.getObjectCount(Category.COSTS));
+    assertEquals(0, footprint.getObjectCount(Category.OTHER));
+  }
+
+  public void testFootprintGrowsWithTheNumberOfClasses() throws Exception {
+    footprint.add(newClass("c.g.t.A"));
+    long one = footprint.getTotalBytes();
+    footprint.add(newClass("c.g.t.B"));
+    assertEquals(2, footprint.getClassCount());
+    assertTrue(footprint.getTotalBytes() > one);
+  }
+
+  public void testPrint() throws Exception {
+    footprint.add(newClass("c.g.t.A"));
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    footprint.print(new PrintStream(buffer));
+    String text = buffer.toString();
+    assertTrue(text, text.contains("of 1 classes and 1 methods"));
+    for (Category category : Category.values()) {
+      assertTrue(text, text.contains(category.getDescription()));
+    }
+    assertTrue(text, text.contains("total"));
+  }
+
+  @SuppressWarnings("unchecked")
+  private ClassInfo newClass(String name) {
+    ClassInfo classInfo = new ClassInfo(name, false, null,
+        Collections.EMPTY_LIST);
+    Variable a = new LocalVariableInfo("a", Type.INT);
+    List<ParameterInfo> parameters = new ArrayList<ParameterInfo>();
+    parameters.add(new ParameterInfo("p", Type.INT));
+    List<Operation> operations = new ArrayList<Operation>();
+    operations.add(new LocalAssignment(1, a, parameters.get(0)));
+    operations.add(new ReturnOperation(2, a));
+    classInfo.addMethod(new MethodInfo(classInfo, "m", 1, "(I)I", null,
+        parameters, Collections.EMPTY_LIST, Visibility.PUBLIC, 1, operations));
+    return classInfo;
+  }
+}
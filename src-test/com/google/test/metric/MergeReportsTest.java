@@ -0,0 +1,82 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import com.google.test.metric.report.PartialReport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class MergeReportsTest extends TestCase {
+
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+  private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+  private File partial(String className, int cost) throws Exception {
+    return partial(className, cost, false);
+  }
+
+  private File partial(String className, int cost, boolean truncated)
+      throws Exception {
+    List<MethodCost> methods = new ArrayList<MethodCost>();
+    methods.add(new MethodCost(className + ".a()V", 1, cost));
+    ClassCost classCost = new ClassCost(className, methods);
+    classCost.link(new CostModel());
+    classCost.setTruncated(truncated);
+    File file = File.createTempFile("partial", ".txt");
+    file.deleteOnExit();
+    PrintStream stream = new PrintStream(new FileOutputStream(file));
+    PartialReport report = new PartialReport(stream, 50, 100, 20);
+    report.addClassCost(classCost);
+    report.printFooter();
+    stream.close();
+    return file;
+  }
+
+  public void testMergesPartials() throws Exception {
+    MergeReports.main(new PrintStream(out), new PrintStream(err),
+        partial("c.g.t.A", 10).getPath(), partial("c.g.t.B", 200).getPath());
+    assertEquals("", err.toString());
+    assertTrue(out.toString(), out.toString().contains("Analyzed classes:     2"));
+    assertTrue(out.toString(), out.toString().contains("c.g.t.B 200"));
+  }
+
+  public void testMergesTruncatedClasses() throws Exception {
+    MergeReports.main(new PrintStream(out), new PrintStream(err),
+        partial("c.g.t.A", 10).getPath(),
+        partial("c.g.t.B", 200, true).getPath());
+    assertEquals("", err.toString());
+    assertTrue(out.toString(), out.toString().contains(
+        "Truncated classes:     1"));
+    assertTrue(out.toString(), out.toString().contains(
+        "c.g.t.B 200 (truncated)"));
+    assertFalse(out.toString(), out.toString().contains(
+        "c.g.t.A 10 (truncated)"));
+  }
+
+  public void testMissingPartial() throws Exception {
+    MergeReports.main(new PrintStream(out), new PrintStream(err),
+        "does/not/exist.partial");
+    assertTrue(err.toString().startsWith("Can not read partial report"));
+  }
+
+}
@@ -249,6 +249,25 @@ public class MetricComputerTest extends ClassRepositoryTestCase {
     assertEquals(1L, cost.getMethodCost("methodB()V").getTotalComplexityCost());
   }
 
+  public void testBudgetTruncatesClassCost() throws Exception {
+    ByteArrayOutputStream err = new ByteArrayOutputStream();
+    computer = new MetricComputer(repo, new PrintStream(err), whitelist,
+        new CostModel());
+    computer.setBudget(new AnalysisBudget(0, 1, 0));
+    ClassCost cost = computer.compute(WholeClassCost.class);
+    assertTrue(cost.isTruncated());
+    assertEquals(0L, cost.getMethodCost("methodA()V").getTotalComplexityCost());
+    assertTrue(err.toString(), err.toString().contains("WARNING: cost of class "
+        + WholeClassCost.class.getName() + " is truncated"));
+  }
+
+  public void testClassCostWithinBudgetIsNotTruncated() throws Exception {
+    computer.setBudget(new AnalysisBudget(1000, 1000, 0));
+    ClassCost cost = computer.compute(WholeClassCost.class);
+    assertFalse(cost.isTruncated());
+    assertEquals(1L, cost.getMethodCost("methodA()V").getTotalComplexityCost());
+  }
+
   static class Array {
     String[] strings;
 
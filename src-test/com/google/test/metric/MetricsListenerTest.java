@@ -0,0 +1,101 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import junit.framework.TestCase;
+
+import com.google.test.metric.MetricsRegistry.Counter;
+import com.google.test.metric.MetricsRegistry.Gauge;
+import com.google.test.metric.MetricsRegistry.Histogram;
+
+public class MetricsListenerTest extends TestCase {
+
+  private final MetricsRegistry registry = new MetricsRegistry();
+  private final MetricsListener listener = new MetricsListener(registry);
+
+  private long count(String name) {
+    return ((Counter) registry.get(name)).get();
+  }
+
+  public void testCountsSteps() throws Exception {
+    listener.classLookedUp("A", false);
+    listener.resourceLookupFinished(listener.resourceLookupStarted("A.class"), true);
+    listener.resourceLookupFinished(listener.resourceLookupStarted("B.class"), false);
+    listener.classParseFinished(listener.classParseStarted("A"), 1200);
+    listener.methodTranslationFinished(
+        listener.methodTranslationStarted("A", "a()V"), 2, 3, 7);
+    listener.classCostFinished(listener.classCostStarted("A"), 10);
+    listener.invocationFollowed("A", "a()V");
+    listener.methodEvaluated(7);
+    listener.methodEvaluated(7);
+    listener.warning("WARNING: class not found: B");
+
+    assertEquals(1, count("testability_class_cache_misses_total"));
+    assertEquals(1, count("testability_resources_not_found_total"));
+    assertEquals(1, count("testability_classes_parsed_total"));
+    assertEquals(1200, count("testability_class_bytes_read_total"));
+    assertEquals(1, count("testability_methods_translated_total"));
+    assertEquals(7, count("testability_operations_translated_total"));
+    assertEquals(1, count("testability_classes_analyzed_total"));
+    assertEquals(2, count("testability_methods_evaluated_total"));
+    assertEquals(14, count("testability_operations_evaluated_total"));
+    assertEquals(1, count("testability_invocations_followed_total"));
+    assertEquals(1, count("testability_warnings_total"));
+    assertEquals(2, ((Histogram) registry.get(
+        "testability_resource_lookup_seconds")).getCount());
+    assertEquals(1, ((Histogram) registry.get(
+        "testability_class_parse_seconds")).getCount());
+  }
+
+  public void testCacheHitRatio() throws Exception {
+    assertEquals(0.0, listener.getCacheHitRatio());
+    listener.classLookedUp("A", false);
+    listener.classLookedUp("A", true);
+    listener.classLookedUp("A", true);
+    listener.classLookedUp("A", true);
+    assertEquals(0.75, listener.getCacheHitRatio());
+    assertEquals(0.75, ((Gauge) registry.get(
+        "testability_class_cache_hit_ratio")).get());
+  }
+
+  public void testListenersShareARegistry() throws Exception {
+    MetricsListener other = new MetricsListener(registry);
+    listener.classLookedUp("A", true);
+    other.classLookedUp("B", false);
+    assertEquals(0.5, other.getCacheHitRatio());
+  }
+
+  public void testCountsARepositoryRun() throws Exception {
+    ClassRepository repository = new ClassRepository();
+    repository.setListener(listener);
+    repository.getClass(MetricsListenerTest.class);
+    repository.getClass(MetricsListenerTest.class);
+    assertTrue(count("testability_classes_parsed_total") >= 1);
+    assertTrue(count("testability_class_bytes_read_total") > 0);
+    assertTrue(count("testability_class_cache_hits_total") >= 1);
+  }
+
+  public void testCountsOperationsEvaluatedByTheContext() throws Exception {
+    ClassRepository repository = new ClassRepository();
+    repository.setListener(listener);
+    TestabilityContext context = new TestabilityContext(repository, null,
+        new RegExpWhiteList(), new CostModel());
+    context.methodVisited(5);
+    context.methodVisited(3);
+    assertEquals(2, count("testability_methods_evaluated_total"));
+    assertEquals(8, count("testability_operations_evaluated_total"));
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.PrintStream;
+
+import junit.framework.TestCase;
+
+import com.google.test.metric.MetricsRegistry.Counter;
+import com.google.test.metric.MetricsRegistry.Gauge;
+import com.google.test.metric.MetricsRegistry.Histogram;
+
+public class MetricsRegistryTest extends TestCase {
+
+  private final MetricsRegistry registry = new MetricsRegistry();
+
+  public void testCounterSumsAllThreads() throws Exception {
+    final Counter counter = registry.counter("c_total", "help");
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          for (int j = 0; j < 1000; j++) {
+            counter.increment();
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    counter.add(5);
+    assertEquals(8005, counter.get());
+  }
+
+  public void testMetricsAreCreatedOnce() throws Exception {
+    assertSame(registry.counter("c_total", "help"),
+        registry.counter("c_total", "other help"));
+    assertSame(registry.latency("l_seconds", "help"),
+        registry.latency("l_seconds", "help"));
+    assertEquals(2, registry.getMetrics().size());
+    assertNull(registry.get("unknown"));
+  }
+
+  public void testGaugeNamesMustBeUnique() throws Exception {
+    registry.counter("g", "help");
+    try {
+      registry.register(new Gauge("g", "help") {
+        @Override
+        public double get() {
+          return 0;
+        }
+      });
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  public void testHistogram() throws Exception {
+    Histogram histogram = registry.latency("l_seconds", "help");
+    histogram.observeNanos(5000);
+    histogram.observeNanos(2000000);
+    histogram.observeNanos(60000000000L);
+    assertEquals(3, histogram.getCount());
+    assertEquals(60.002005, histogram.getSumSeconds(), 1e-9);
+    assertEquals(1, histogram.getCountAtMost(0.00001));
+    assertEquals(1, histogram.getCountAtMost(0.001));
+    assertEquals(2, histogram.getCountAtMost(0.0025));
+    assertEquals(2, histogram.getCountAtMost(10));
+  }
+
+  public void testWritePrometheus() throws Exception {
+    registry.counter("c_total", "A counter.").add(3);
+    registry.register(new Gauge("g", "A gauge.") {
+      @Override
+      public double get() {
+        return 0.5;
+      }
+    });
+    registry.latency("l_seconds", "A latency.").observeNanos(3000000);
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    registry.writePrometheus(new PrintStream(buffer));
+    String text = buffer.toString();
+    assertTrue(text, text.startsWith("# HELP c_total A counter.\n"
+        + "# TYPE c_total counter\n"
+        + "c_total 3\n"
+        + "# HELP g A gauge.\n"
+        + "# TYPE g gauge\n"
+        + "g 0.5\n"
+        + "# HELP l_seconds A latency.\n"
+        + "# TYPE l_seconds histogram\n"
+        + "l_seconds_bucket{le=\"1.0E-5\"} 0\n"));
+    assertTrue(text, text.contains("l_seconds_bucket{le=\"0.0025\"} 0\n"
+        + "l_seconds_bucket{le=\"0.005\"} 1\n"));
+    assertTrue(text, text.endsWith("l_seconds_bucket{le=\"+Inf\"} 1\n"
+        + "l_seconds_sum 0.003\n"
+        + "l_seconds_count 1\n"));
+  }
+
+  public void testWritePrometheusToFile() throws Exception {
+    registry.counter("c_total", "A counter.").increment();
+    File file = File.createTempFile("metrics", ".prom");
+    try {
+      registry.writePrometheus(file);
+      BufferedReader reader = new BufferedReader(new FileReader(file));
+      try {
+        assertEquals("# HELP c_total A counter.", reader.readLine());
+        assertEquals("# TYPE c_total counter", reader.readLine());
+        assertEquals("c_total 1", reader.readLine());
+        assertNull(reader.readLine());
+      } finally {
+        reader.close();
+      }
+      assertFalse(new File(file.getPath() + ".tmp").exists());
+    } finally {
+      file.delete();
+    }
+  }
+}
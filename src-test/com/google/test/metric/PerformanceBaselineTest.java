@@ -0,0 +1,135 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+public class PerformanceBaselineTest extends TestCase {
+
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+  private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+  private final PerformanceBaseline baseline = new PerformanceBaseline(
+      new PrintStream(out), new PrintStream(err));
+
+  public void testSignificantSlowdownIsARegression() throws Exception {
+    assertTrue(PerformanceBaseline.isRegression(
+        new double[] {100, 101, 99, 100, 100},
+        new double[] {120, 119, 121, 120, 120}, 5));
+  }
+
+  public void testSlowdownBelowThresholdIsNoRegression() throws Exception {
+    assertFalse(PerformanceBaseline.isRegression(
+        new double[] {100, 100, 100}, new double[] {104, 104, 104}, 5));
+  }
+
+  public void testSpeedupIsNoRegression() throws Exception {
+    assertFalse(PerformanceBaseline.isRegression(
+        new double[] {100, 101, 99}, new double[] {50, 51, 49}, 5));
+  }
+
+  public void testNoisySlowdownIsNotSignificant() throws Exception {
+    assertFalse(PerformanceBaseline.isRegression(
+        new double[] {60, 140, 100}, new double[] {50, 180, 100}, 5));
+  }
+
+  public void testCriticalT() throws Exception {
+    assertEquals(6.314, PerformanceBaseline.criticalT(0.5), 0);
+    assertEquals(2.015, PerformanceBaseline.criticalT(5.9), 0);
+    assertEquals(1.645, PerformanceBaseline.criticalT(100), 0);
+  }
+
+  public void testWriteAndRead() throws Exception {
+    Map<String, double[]> samples = new LinkedHashMap<String, double[]>();
+    samples.put("asm\ttime-ms", new double[] {1.5, 2.25});
+    samples.put("asm\tpeak-heap-mb", new double[] {10});
+    ByteArrayOutputStream file = new ByteArrayOutputStream();
+    PerformanceBaseline.write(new PrintStream(file), samples);
+    assertTrue(file.toString().startsWith(PerformanceBaseline.HEADER));
+
+    Map<String, double[]> read = PerformanceBaseline.read(
+        new StringReader(file.toString()));
+    assertEquals(samples.keySet(), read.keySet());
+    assertEquals(2.25, read.get("asm\ttime-ms")[1], 0);
+    assertEquals(10, read.get("asm\tpeak-heap-mb")[0], 0);
+  }
+
+  public void testReadRejectsOtherFiles() throws Exception {
+    try {
+      PerformanceBaseline.read(new StringReader("asm\ttime-ms\t1\n"));
+      fail();
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+  public void testCompareReportsRegressions() throws Exception {
+    Map<String, double[]> before = new LinkedHashMap<String, double[]>();
+    before.put("asm\ttime-ms", new double[] {100, 101, 99});
+    before.put("asm\tpeak-heap-mb", new double[] {10, 10, 10});
+    before.put("args4j\ttime-ms", new double[] {5, 5, 5});
+    Map<String, double[]> after = new LinkedHashMap<String, double[]>();
+    after.put("asm\ttime-ms", new double[] {150, 151, 149});
+    after.put("asm\tpeak-heap-mb", new double[] {10, 10, 10});
+    assertFalse(baseline.compare(before, after));
+    String text = out.toString();
+    assertTrue(text, text.matches("(?s).*asm +time-ms .*\\+50.0%  REGRESSION.*"));
+    assertTrue(text, text.matches("(?s).*asm +peak-heap-mb .*\\+0.0%\n.*"));
+    assertFalse(text, text.contains("args4j"));
+  }
+
+  public void testNeedsWriteOrCompare() throws Exception {
+    assertFalse(PerformanceBaseline.main(new PrintStream(out),
+        new PrintStream(err), "asm"));
+    assertTrue(err.toString(), err.toString().contains(
+        "Expected either -write or -compare"));
+  }
+
+  public void testUnknownScenario() throws Exception {
+    assertFalse(PerformanceBaseline.main(new PrintStream(out),
+        new PrintStream(err), "-write", "baseline.txt", "synthetic-x"));
+    assertTrue(err.toString(), err.toString().contains(
+        "Unknown scenario 'synthetic-x'"));
+  }
+
+  public void testWriteThenCompareSyntheticScenario() throws Exception {
+    File file = File.createTempFile("baseline", ".txt");
+    try {
+      assertTrue(err.toString(), PerformanceBaseline.main(new PrintStream(out),
+          new PrintStream(err), "-write", file.getPath(), "-runs", "2",
+          "-warmups", "0", "synthetic-20"));
+      Map<String, double[]> written = PerformanceBaseline.read(
+          new FileReader(file));
+      assertEquals(2, written.get("synthetic-20\ttime-ms").length);
+      assertTrue(written.get("synthetic-20\tpeak-heap-mb")[0] > 0);
+
+      assertTrue(err.toString(), PerformanceBaseline.main(new PrintStream(out),
+          new PrintStream(err), "-compare", file.getPath(), "-runs", "2",
+          "-warmups", "0", "-threshold", "1000", "synthetic-20"));
+      assertTrue(out.toString(), out.toString().contains("synthetic-20"));
+    } finally {
+      file.delete();
+    }
+  }
+}
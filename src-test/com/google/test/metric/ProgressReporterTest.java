@@ -0,0 +1,92 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.PrintStream;
+
+import junit.framework.TestCase;
+
+public class ProgressReporterTest extends TestCase {
+
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+  public void testFormatLine() throws Exception {
+    ProgressReporter progress = new ProgressReporter(100, new PrintStream(out), null);
+    progress.classStarted("com.example.A");
+    progress.classFinished();
+    progress.classStarted("com.example.B");
+    progress.classFinished();
+    progress.classStarted("com.example.C");
+    assertEquals("Progress: 2/100 classes (2.0%), 0.5 classes/s, heap 3 MB, "
+        + "elapsed 4s, ETA 3m16s, at com.example.C",
+        progress.formatLine(4000000000L, 3 * 1024 * 1024));
+  }
+
+  public void testFormatLineBeforeTheFirstClass() throws Exception {
+    ProgressReporter progress = new ProgressReporter(10, new PrintStream(out), null);
+    assertEquals("Progress: 0/10 classes (0.0%), 0.0 classes/s, heap 0 MB, "
+        + "elapsed 0s, ETA ?", progress.formatLine(0, 0));
+  }
+
+  public void testFormatLineWhenDone() throws Exception {
+    ProgressReporter progress = new ProgressReporter(1, new PrintStream(out), null);
+    progress.classStarted("com.example.A");
+    progress.classFinished();
+    assertEquals("Progress: 1/1 classes (100.0%), 1.0 classes/s, heap 0 MB, "
+        + "elapsed 1s, ETA 0s", progress.formatLine(1000000000L, 0));
+  }
+
+  public void testFormatDuration() throws Exception {
+    assertEquals("59s", ProgressReporter.formatDuration(59));
+    assertEquals("1m00s", ProgressReporter.formatDuration(60));
+    assertEquals("1h02m03s", ProgressReporter.formatDuration(3723));
+  }
+
+  public void testReporterThreadPrintsPeriodically() throws Exception {
+    ProgressReporter progress = new ProgressReporter(5, new PrintStream(out), null);
+    progress.start(10);
+    Thread.sleep(200);
+    progress.stop();
+    String text = out.toString();
+    assertTrue(text, text.split("Progress: ").length > 2);
+    int lines = text.split("\n").length;
+    Thread.sleep(50);
+    assertEquals("stopped", lines, out.toString().split("\n").length);
+  }
+
+  public void testStatusFile() throws Exception {
+    File status = File.createTempFile("progress", ".txt");
+    try {
+      ProgressReporter progress = new ProgressReporter(2, new PrintStream(out), status);
+      progress.classFinished();
+      progress.report();
+      BufferedReader reader = new BufferedReader(new FileReader(status));
+      try {
+        assertTrue(reader.readLine().startsWith("Progress: 1/2 classes"));
+        assertNull(reader.readLine());
+      } finally {
+        reader.close();
+      }
+      assertFalse(new File(status.getPath() + ".tmp").exists());
+    } finally {
+      status.delete();
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import junit.framework.TestCase;
+
+import com.google.test.metric.RunStatistics.Phase;
+
+public class RunStatisticsTest extends TestCase {
+
+  private final RunStatistics statistics = new RunStatistics();
+
+  public void testPhasesAreIgnoredWhenNotTimed() throws Exception {
+    assertNull(statistics.enter(Phase.PARSE));
+    statistics.invocationVisited();
+    statistics.operationsTranslated(5);
+    statistics.exit(null);
+    assertEquals(0, statistics.getWallTime(Phase.PARSE));
+    assertEquals(0, statistics.getInvocationCount());
+    assertEquals(0, statistics.getOperationCount());
+  }
+
+  public void testNestedPhaseIsNotChargedToOuterPhase() throws Exception {
+    statistics.setTimed(true);
+    Phase outer = statistics.enter(Phase.COMPUTE);
+    assertNull(outer);
+    Phase inner = statistics.enter(Phase.PARSE);
+    assertEquals(Phase.COMPUTE, inner);
+    Thread.sleep(20);
+    statistics.exit(inner);
+    statistics.exit(outer);
+    assertTrue(statistics.getWallTime(Phase.PARSE) >= 20000000L);
+    assertTrue(statistics.getWallTime(Phase.COMPUTE) < 20000000L);
+    assertEquals(0, statistics.getWallTime(Phase.REPORT));
+  }
+
+  public void testCountsWhenTimed() throws Exception {
+    statistics.setTimed(true);
+    statistics.classParsed();
+    statistics.invocationVisited();
+    statistics.invocationVisited();
+    statistics.operationsTranslated(5);
+    assertEquals(1, statistics.getClassCount());
+    assertEquals(2, statistics.getInvocationCount());
+    assertEquals(5, statistics.getOperationCount());
+  }
+
+  public void testNoCountsWhenNotTimed() throws Exception {
+    statistics.classParsed();
+    statistics.methodTranslated();
+    statistics.emptyMethodSkipped();
+    statistics.straightLineMethodTranslated();
+    statistics.operationsTranslated(5);
+    statistics.invocationVisited();
+    assertEquals(0, statistics.getClassCount());
+    assertEquals(0, statistics.getMethodCount());
+    assertEquals(0, statistics.getEmptyMethodCount());
+    assertEquals(0, statistics.getStraightLineMethodCount());
+    assertEquals(0, statistics.getOperationCount());
+    assertEquals(0, statistics.getInvocationCount());
+  }
+
+  public void testPrintTable() throws Exception {
+    statistics.setTimed(true);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    statistics.print(new PrintStream(out));
+    String table = out.toString();
+    assertTrue(table, table.contains("Decoded methods:"));
+    assertTrue(table, table.contains("Wall ms"));
+    for (Phase phase : Phase.values()) {
+      assertTrue(table, table.contains(phase.getDescription()));
+    }
+  }
+
+  public void testPrintJson() throws Exception {
+    statistics.setTimed(true);
+    statistics.classParsed();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    statistics.printJson(new PrintStream(out));
+    String json = out.toString().trim();
+    assertTrue(json, json.startsWith("{\"classes\":1,\"methods\":0,"));
+    assertTrue(json, json.contains("\"phases\":{\"scan\":{\"wallNanos\":0,"));
+    assertTrue(json, json.endsWith("}}}"));
+  }
+
+  public void testPrintJsonWithoutPhasesWhenNotTimed() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    statistics.printJson(new PrintStream(out));
+    assertEquals("{\"classes\":0,\"methods\":0,\"emptyMethods\":0,"
+        + "\"straightLineMethods\":0}", out.toString().trim());
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+
+public class SummaryPackTest extends ClassRepositoryTestCase {
+
+  public static class Library {
+    public static int cost2() {
+      int i = 0;
+      return i > 0 ? i > 1 ? 1 : 2 : 2;
+    }
+
+    public int overridable() {
+      int i = 0;
+      return i > 0 ? 1 : 2;
+    }
+  }
+
+  public static class Singleton {
+    private static final Singleton INSTANCE = new Singleton();
+    private int count;
+
+    public static Singleton getInstance() {
+      return INSTANCE;
+    }
+
+    public void increment() {
+      count++;
+    }
+  }
+
+  public static class Caller {
+    public int callTwice() {
+      return Library.cost2() + Library.cost2();
+    }
+
+    public void useSingleton() {
+      Singleton.getInstance().increment();
+    }
+  }
+
+  private final RegExpWhiteList whitelist = new RegExpWhiteList();
+
+  private SummaryPack summarize(Class<?> clazz) throws Exception {
+    MetricComputer computer = new MetricComputer(repo, null, whitelist,
+        new CostModel());
+    SummaryPack pack = new SummaryPack();
+    for (MethodInfo method : repo.getClass(clazz).getMethods()) {
+      computer.summarize(method, pack);
+    }
+    return pack;
+  }
+
+  private String write(SummaryPack pack) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    pack.write(new PrintStream(out));
+    return out.toString();
+  }
+
+  public void testSummarizeClass() throws Exception {
+    SummaryPack pack = summarize(Library.class);
+    String cost2 = Library.class.getName() + ".cost2()I";
+    assertTrue(pack.contains(cost2));
+    assertFalse(pack.canOverride(cost2));
+    assertTrue(pack.canOverride(Library.class.getName() + ".overridable()I"));
+    MethodCost cost = pack.getMethodCost(cost2);
+    cost.link(new CostModel());
+    assertEquals(2L, cost.getTotalComplexityCost());
+    assertNull(pack.getMethodCost("a.B.doesNotExist()V"));
+  }
+
+  public void testWriteReadRoundTrip() throws Exception {
+    SummaryPack pack = summarize(Library.class);
+    String text = write(pack);
+    assertTrue(text.startsWith(SummaryPack.HEADER));
+
+    SummaryPack read = new SummaryPack();
+    read.read(new StringReader(text));
+    assertEquals(pack.size(), read.size());
+    assertEquals(text, write(read));
+  }
+
+  public void testRejectsUnknownHeader() throws Exception {
+    try {
+      new SummaryPack().read(new StringReader("a.B.c()V\t1\t1\t0\tfalse\tfalse\n"));
+      fail();
+    } catch (IOException expected) {
+    }
+  }
+
+  public void testRejectsMalformedLine() throws Exception {
+    try {
+      new SummaryPack().read(new StringReader(SummaryPack.HEADER
+          + "\na.B.c()V\tone\t1\t0\tfalse\tfalse\n"));
+      fail();
+    } catch (IOException expected) {
+    }
+  }
+
+  public void testSummarizedCallIsNotAnalyzedAgain() throws Exception {
+    SummaryPack pack = new SummaryPack();
+    pack.read(new StringReader(SummaryPack.HEADER + "\n"
+        + Library.class.getName() + ".cost2()I\t10\t7\t3\tfalse\tfalse\n"));
+    MetricComputer computer = new MetricComputer(repo, null, whitelist,
+        new CostModel(), pack);
+
+    MethodCost cost = computer.computeCallCost(
+        repo.getClass(Caller.class).getMethod("callTwice()I"));
+
+    assertEquals(1, cost.getOperationCosts().size());
+    assertEquals(7L, cost.getTotalComplexityCost());
+    assertEquals(3L, cost.getTotalGlobalCost());
+  }
+
+  public void testSummaryKeepsGlobalReturnValue() throws Exception {
+    MethodInfo useSingleton =
+        repo.getClass(Caller.class).getMethod("useSingleton()V");
+    MethodCost analyzed = new MetricComputer(repo, null, whitelist,
+        new CostModel()).computeCallCost(useSingleton);
+    SummaryPack pack = new SummaryPack();
+    new MetricComputer(repo, null, whitelist, new CostModel()).summarize(
+        repo.getClass(Singleton.class).getMethod("getInstance()"
+            + "Lcom/google/test/metric/SummaryPackTest$Singleton;"), pack);
+    assertTrue(write(pack), write(pack).endsWith("\tfalse\ttrue\n"));
+
+    MethodCost summarized = new MetricComputer(repo, null, whitelist,
+        new CostModel(), pack).computeCallCost(useSingleton);
+
+    assertTrue(analyzed.getTotalGlobalCost() > 0);
+    assertEquals(analyzed.getTotalGlobalCost(),
+        summarized.getTotalGlobalCost());
+  }
+}
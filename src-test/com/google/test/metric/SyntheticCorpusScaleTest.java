@@ -0,0 +1,92 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import java.io.File;
+
+import junit.framework.TestCase;
+
+import com.google.classpath.ClasspathRootFactory;
+
+/**
+ * Analyzes generated code bases and checks that time and retained heap stay
+ * within a budget per class. The budgets depend on the machine, so this is
+ * not part of {@code ant test}; it runs with {@code ant scale-test}.
+ */
+public class SyntheticCorpusScaleTest extends TestCase {
+
+  private static final long MILLIS_PER_CLASS = 20;
+  private static final long BYTES_PER_CLASS = 16 * 1024;
+  private static final long BASE_BYTES = 32 * 1024 * 1024;
+
+  private File directory;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    directory = File.createTempFile("synthetic", "");
+    directory.delete();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    SyntheticCorpusTest.delete(directory);
+    super.tearDown();
+  }
+
+  public void testOneThousandClasses() throws Exception {
+    assertWithinBudget(1000);
+  }
+
+  public void testTenThousandClasses() throws Exception {
+    assertWithinBudget(10000);
+  }
+
+  public void testHundredThousandClasses() throws Exception {
+    assertWithinBudget(100000);
+  }
+
+  private void assertWithinBudget(int classCount) throws Exception {
+    SyntheticCorpus corpus = new SyntheticCorpus().setClassCount(classCount)
+        .setBranchWidth(4).setCycleEvery(50).setInheritanceDepth(3);
+    corpus.writeTo(directory);
+    long heapBefore = usedHeap();
+    long start = System.nanoTime();
+    ClassRepository repository = new ClassRepository(
+        ClasspathRootFactory.makeClasspathRootGroup(directory.getPath()));
+    MetricComputer computer = new MetricComputer(repository, null,
+        new RegExpWhiteList("java."), new CostModel());
+    for (int i = 0; i < classCount; i++) {
+      computer.compute(repository.getClass(corpus.getClassName(i)));
+    }
+    long millis = (System.nanoTime() - start) / 1000000;
+    long retained = usedHeap() - heapBefore;
+    String result = classCount + " classes: " + millis + "ms, "
+        + retained / 1024 + "KB retained";
+    assertTrue(result, millis < classCount * MILLIS_PER_CLASS);
+    assertTrue(result, retained < BASE_BYTES + classCount * BYTES_PER_CLASS);
+    // Keep the repository reachable until the heap has been measured.
+    assertNotNull(repository.getClass(corpus.getClassName(0)));
+  }
+
+  private long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
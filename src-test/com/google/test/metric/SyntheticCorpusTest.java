@@ -0,0 +1,155 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import com.google.classpath.ClasspathRootFactory;
+
+public class SyntheticCorpusTest extends TestCase {
+
+  private File directory;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    directory = File.createTempFile("synthetic", "");
+    directory.delete();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    delete(directory);
+    super.tearDown();
+  }
+
+  static void delete(File file) {
+    File[] files = file.listFiles();
+    if (files != null) {
+      for (File child : files) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+
+  private ClassRepository write(SyntheticCorpus corpus) throws Exception {
+    corpus.writeTo(directory);
+    return new ClassRepository(ClasspathRootFactory.makeClasspathRootGroup(
+        directory.getPath()));
+  }
+
+  private MetricComputer computer(ClassRepository repository) {
+    return new MetricComputer(repository, null, new RegExpWhiteList("java."),
+        new CostModel());
+  }
+
+  public void testSameSeedGeneratesSameClasses() throws Exception {
+    SyntheticCorpus corpus = new SyntheticCorpus().setBranchWidth(3);
+    SyntheticCorpus other = new SyntheticCorpus().setBranchWidth(3);
+    assertTrue(Arrays.equals(corpus.generate(17), other.generate(17)));
+    assertFalse(Arrays.equals(corpus.generate(17),
+        other.setSeed(1).generate(17)));
+  }
+
+  public void testClassesAreInPackages() throws Exception {
+    SyntheticCorpus corpus = new SyntheticCorpus();
+    assertEquals("synthetic.p0.C0", corpus.getClassName(0));
+    assertEquals("synthetic.p2.C250", corpus.getClassName(250));
+  }
+
+  public void testMethodsCallIntoTheNextLayer() throws Exception {
+    SyntheticCorpus corpus = new SyntheticCorpus().setClassCount(20)
+        .setDepth(2).setFanOut(1).setMethodCount(2).setStaticStatePercent(0);
+    ClassRepository repository = write(corpus);
+    MetricComputer computer = computer(repository);
+    ClassInfo first = repository.getClass(corpus.getClassName(0));
+    assertNotNull(first.getMethod("m0(I)I"));
+    assertNotNull(first.getMethod("m1(I)I"));
+    // The last layer calls nothing, so only the first layer costs anything.
+    assertEquals(0, computer.compute(first).getTotalComplexityCost());
+    assertEquals(0, computer.compute(repository.getClass(
+        corpus.getClassName(19))).getTotalComplexityCost());
+  }
+
+  public void testBranchesAddComplexity() throws Exception {
+    SyntheticCorpus corpus = new SyntheticCorpus().setClassCount(10)
+        .setDepth(1).setBranchWidth(4).setStaticStatePercent(0);
+    ClassRepository repository = write(corpus);
+    ClassCost cost = computer(repository).compute(
+        repository.getClass(corpus.getClassName(3)));
+    assertEquals(4, cost.getMethodCost("m0(I)I").getCyclomaticCost());
+  }
+
+  public void testStaticStateAddsGlobalCost() throws Exception {
+    SyntheticCorpus corpus = new SyntheticCorpus().setClassCount(10)
+        .setDepth(1).setStaticStatePercent(100);
+    ClassRepository repository = write(corpus);
+    assertTrue(corpus.hasStaticState(5));
+    ClassCost cost = computer(repository).compute(
+        repository.getClass(corpus.getClassName(5)));
+    assertTrue(cost.toString(), cost.getTotalGlobalCost() > 0);
+  }
+
+  public void testInheritanceChains() throws Exception {
+    SyntheticCorpus corpus = new SyntheticCorpus().setClassCount(10)
+        .setInheritanceDepth(3);
+    ClassRepository repository = write(corpus);
+    ClassInfo classInfo = repository.getClass(corpus.getClassName(5));
+    assertEquals(corpus.getClassName(4), classInfo.getSuperClass().getName());
+    assertEquals(corpus.getClassName(3),
+        classInfo.getSuperClass().getSuperClass().getName());
+    assertEquals("java.lang.Object", classInfo.getSuperClass().getSuperClass()
+        .getSuperClass().getName());
+  }
+
+  public void testCyclesAreAnalyzed() throws Exception {
+    SyntheticCorpus corpus = new SyntheticCorpus().setClassCount(100)
+        .setDepth(4).setCycleEvery(2);
+    ClassRepository repository = write(corpus);
+    MetricComputer computer = computer(repository);
+    for (int i = 0; i < corpus.getClassCount(); i++) {
+      computer.compute(repository.getClass(corpus.getClassName(i)));
+    }
+  }
+
+  public void testFewerClassesThanLayers() throws Exception {
+    SyntheticCorpus corpus = new SyntheticCorpus().setClassCount(3)
+        .setDepth(8).setCycleEvery(1);
+    ClassRepository repository = write(corpus);
+    ByteArrayOutputStream err = new ByteArrayOutputStream();
+    MetricComputer computer = new MetricComputer(repository,
+        new PrintStream(err), new RegExpWhiteList("java."), new CostModel());
+    for (int i = 0; i < corpus.getClassCount(); i++) {
+      computer.compute(repository.getClass(corpus.getClassName(i)));
+    }
+    assertEquals("", err.toString());
+  }
+
+  public void testMainWritesClassFiles() throws Exception {
+    ByteArrayOutputStream err = new ByteArrayOutputStream();
+    SyntheticCorpus.main(new PrintStream(err), "-classes", "5",
+        directory.getPath());
+    assertEquals("", err.toString());
+    assertTrue(new File(directory, "synthetic/p0/C4.class").isFile());
+    assertFalse(new File(directory, "synthetic/p0/C5.class").exists());
+  }
+}
@@ -21,14 +21,22 @@ import static com.google.classpath.DirectoryClasspathRootTest.CLASS_NO_EXTERNAL_
 import static com.google.classpath.JarClasspathRootTest.ASM_JAR;
 import static com.google.classpath.JarClasspathRootTest.JUNIT_JAR;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Pattern;
 
 import org.kohsuke.args4j.CmdLineException;
 
+import com.google.classpath.ClasspathRootFactory;
+
 public class TestabilityTest extends AutoFieldClearTestCase {
   private WatchedOutputStream out;
   private WatchedOutputStream err;
@@ -183,6 +191,176 @@ public class TestabilityTest extends AutoFieldClearTestCase {
     assertEquals(4, classes.size());
   }
 
+  public void testShardsPartitionClasses() throws Exception {
+    String[] classNames = {"a.A", "a.B", "b.C", "b.D$E", "c.F", "c.G"};
+    for (String className : classNames) {
+      int shards = 0;
+      for (int i = 0; i < 3; i++) {
+        if (Testability.isInShard(className, i, 3)) {
+          shards++;
+        }
+      }
+      assertEquals(className, 1, shards);
+      assertTrue(Testability.isInShard(className, 0, 1));
+    }
+  }
+
+  public void testParseBadShard() throws Exception {
+    testability.parseArgs("-shard", "3/3", "com.google.TestClass");
+    try {
+      testability.execute();
+      fail();
+    } catch (CmdLineException expected) {
+    }
+  }
+
+  public void testStatisticsAsJson() throws Exception {
+    String stats = runWithErr("-stats", "-statsFormat", "json");
+    assertTrue(stats, stats.trim().matches("\\{\"classes\":[1-9]\\d*,.*\\}\\}\\}"));
+    assertTrue(stats, stats.contains("\"phases\":{\"scan\":{\"wallNanos\":"));
+    assertTrue(stats, stats.contains("\"compute\":{\"wallNanos\":"));
+  }
+
+  public void testProfile() throws Exception {
+    String profile = runWithErr("-profile", "3");
+    assertTrue(profile, Pattern.compile("(?m)^Slowest classes to analyze:$\n.*name$\n"
+        + " +[\\d.]+ +\\d+ +\\d+ +\\d+ +\\d+  "
+        + "com\\.google\\.classpath\\.ColonDelimitedStringParser$").matcher(profile).find());
+    String methods = profile.substring(profile.indexOf("Slowest methods to decode:"));
+    // The title, the column headers and the three slowest methods.
+    assertEquals(profile, 5, methods.split("\n").length);
+  }
+
+  public void testFootprint() throws Exception {
+    String footprint = runWithErr("-footprint");
+    assertTrue(footprint, footprint.startsWith("Estimated heap footprint of 2 classes and "));
+    assertTrue(footprint, Pattern.compile("(?m)^ +operations +[1-9]\\d* +\\d+ +[1-9]\\d*$")
+        .matcher(footprint).find());
+    assertTrue(footprint, Pattern.compile("(?m)^ +total +[1-9]\\d* +\\d+ +[1-9]\\d*$")
+        .matcher(footprint).find());
+  }
+
+  public void testProgress() throws Exception {
+    String progress = runWithErr("-progress", "60");
+    assertTrue(progress, progress.matches(
+        "(?s)Progress: 1/1 classes \\(100.0%\\), .*, ETA 0s\n"));
+  }
+
+  public void testMetrics() throws Exception {
+    String metrics = runWithErr("-metrics", "-");
+    assertTrue(metrics, metrics.contains(
+        "# TYPE testability_classes_parsed_total counter"));
+    assertTrue(metrics, metrics.contains("\ntestability_classes_analyzed_total 1\n"));
+    assertTrue(metrics, Pattern.compile(
+        "(?m)^testability_operations_evaluated_total [1-9]\\d*$").matcher(metrics).find());
+    assertTrue(metrics, metrics.contains("\ntestability_class_cost_seconds_count 1\n"));
+  }
+
+  public void testClassBudget() throws Exception {
+    ByteArrayOutputStream warnings = new ByteArrayOutputStream();
+    ByteArrayOutputStream report = new ByteArrayOutputStream();
+    File corpus = File.createTempFile("synthetic", "");
+    corpus.delete();
+    try {
+      new SyntheticCorpus().setClassCount(20).writeTo(corpus);
+      testability = new Testability(new PrintStream(report), new PrintStream(warnings));
+      testability.parseArgs("-cp", corpus.getPath(), "-maxClassMethods", "1",
+          "-print", "detail", SyntheticCorpus.ROOT_PACKAGE);
+      testability.execute();
+    } finally {
+      SyntheticCorpusTest.delete(corpus);
+    }
+    assertTrue(warnings.toString(), warnings.toString().contains("is truncated"));
+    assertTrue(report.toString(), report.toString().contains("[ truncated ]"));
+  }
+
+  public void testClassBudgetIsNotAppliedToSummaryPacks() throws Exception {
+    File corpus = File.createTempFile("synthetic", "");
+    corpus.delete();
+    File unlimited = File.createTempFile("unlimited", ".pack");
+    File budgeted = File.createTempFile("budgeted", ".pack");
+    ByteArrayOutputStream warnings = new ByteArrayOutputStream();
+    try {
+      new SyntheticCorpus().setClassCount(20).writeTo(corpus);
+      Testability.main(new PrintStream(out), new PrintStream(warnings), "-cp",
+          corpus.getPath(), "-writeSummaryPack", unlimited.getPath(),
+          SyntheticCorpus.ROOT_PACKAGE);
+      Testability.main(new PrintStream(out), new PrintStream(warnings), "-cp",
+          corpus.getPath(), "-writeSummaryPack", budgeted.getPath(),
+          "-maxClassMethods", "1", SyntheticCorpus.ROOT_PACKAGE);
+      assertTrue(warnings.toString(), warnings.toString().contains(
+          "are not applied when writing a summary pack"));
+      assertTrue(read(unlimited).split("\n").length > 20);
+      assertEquals(read(unlimited), read(budgeted));
+    } finally {
+      SyntheticCorpusTest.delete(corpus);
+      unlimited.delete();
+      budgeted.delete();
+    }
+  }
+
+  /**
+   * Analyzes {@link DirectoryClasspathRootTest#CLASS_NO_EXTERNAL_DEPS} with
+   * the options and returns what was printed to err.
+   */
+  private String runWithErr(String... options) throws Exception {
+    ByteArrayOutputStream errBytes = new ByteArrayOutputStream();
+    testability = new Testability(new PrintStream(out), new PrintStream(errBytes));
+    List<String> args = new ArrayList<String>(Arrays.asList(options));
+    args.add("-cp");
+    args.add(CLASS_NO_EXTERNAL_DEPS);
+    args.add("com.google");
+    testability.parseArgs(args.toArray(new String[args.size()]));
+    testability.execute();
+    return errBytes.toString();
+  }
+
+  private static String read(File file) throws IOException {
+    StringBuilder text = new StringBuilder();
+    BufferedReader reader = new BufferedReader(new FileReader(file));
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        text.append(line).append('\n');
+      }
+    } finally {
+      reader.close();
+    }
+    return text.toString();
+  }
+
+  public void testJfrListener() throws Exception {
+    testability.classpath =
+        ClasspathRootFactory.makeClasspathRootGroup(CLASS_NO_EXTERNAL_DEPS);
+    assertNull(testability.newRepository().getListener());
+    testability.jfr = true;
+    try {
+      // By name, since the jfr package is left out on VMs without JFR.
+      assertEquals("com.google.test.metric.jfr.JfrAnalysisListener",
+          testability.newRepository().getListener().getClass().getName());
+    } catch (CmdLineException e) {
+      assertFalse("-jfr failed on a VM with JFR: " + e, isJfrAvailable());
+    }
+  }
+
+  private static boolean isJfrAvailable() {
+    try {
+      Class.forName("jdk.jfr.Event");
+      return true;
+    } catch (java.lang.ClassNotFoundException e) {
+      return false;
+    }
+  }
+
+  public void testParseBadStatsFormat() throws Exception {
+    testability.parseArgs("-stats", "-statsFormat", "xml", "com.google.TestClass");
+    try {
+      testability.execute();
+      fail();
+    } catch (CmdLineException expected) {
+    }
+  }
+
   public void testOneEntryWhitelist() throws Exception {
     testability.cp = JUNIT_JAR;
     testability.entryList.add("junit.runner");
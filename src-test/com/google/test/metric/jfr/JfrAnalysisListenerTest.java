@@ -0,0 +1,83 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.jfr;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import junit.framework.TestCase;
+
+import com.google.test.metric.ClassRepository;
+import com.google.test.metric.CostModel;
+import com.google.test.metric.MetricComputer;
+import com.google.test.metric.RegExpWhiteList;
+import com.google.test.metric.example.Primeness;
+
+public class JfrAnalysisListenerTest extends TestCase {
+
+  private static final String PREFIX = "com.google.test.metric.";
+
+  public void testEmitsAnalysisEvents() throws Exception {
+    ClassRepository repository = new ClassRepository();
+    repository.setListener(new JfrAnalysisListener());
+    MetricComputer computer = new MetricComputer(repository, null,
+        new RegExpWhiteList("java."), new CostModel());
+    File file = File.createTempFile("testability", ".jfr");
+    Recording recording = new Recording();
+    try {
+      for (String event : new String[] {"ClassLookup", "ResourceLookup",
+          "ClassParse", "MethodTranslation", "ClassCost"}) {
+        recording.enable(PREFIX + event).withoutThreshold();
+      }
+      recording.start();
+      computer.compute(repository.getClass(Primeness.class));
+      repository.getClass(Primeness.class);
+      recording.stop();
+      recording.dump(file.toPath());
+      List<RecordedEvent> events = RecordingFile.readAllEvents(file.toPath());
+      Set<String> seen = new HashSet<String>();
+      boolean hit = false;
+      for (RecordedEvent event : events) {
+        String name = event.getEventType().getName();
+        seen.add(name);
+        if (name.equals(PREFIX + "ClassParse")
+            && event.getString("className").equals(Primeness.class.getName())) {
+          assertTrue(event.getInt("byteCount") > 0);
+        }
+        if (name.equals(PREFIX + "ClassLookup") && event.getBoolean("hit")) {
+          hit = true;
+        }
+        if (name.equals(PREFIX + "MethodTranslation")) {
+          assertTrue(event.getInt("operationCount") >= 0);
+        }
+      }
+      assertTrue(seen.toString(), seen.contains(PREFIX + "ClassLookup"));
+      assertTrue(seen.toString(), seen.contains(PREFIX + "ResourceLookup"));
+      assertTrue(seen.toString(), seen.contains(PREFIX + "ClassParse"));
+      assertTrue(seen.toString(), seen.contains(PREFIX + "MethodTranslation"));
+      assertTrue(seen.toString(), seen.contains(PREFIX + "ClassCost"));
+      assertTrue(hit);
+    } finally {
+      recording.close();
+      file.delete();
+    }
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.method;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.google.test.metric.FieldInfo;
+import com.google.test.metric.Type;
+import com.google.test.metric.Variable;
+import com.google.test.metric.collection.KeyedMultiStack.StackUnderflowException;
+import com.google.test.metric.method.op.stack.GetField;
+import com.google.test.metric.method.op.stack.Load;
+import com.google.test.metric.method.op.stack.PutField;
+import com.google.test.metric.method.op.stack.Return;
+import com.google.test.metric.method.op.stack.StackOperation;
+import com.google.test.metric.method.op.stack.Store;
+import com.google.test.metric.method.op.turing.Operation;
+
+public class StraightLineTranslatorTest extends TestCase {
+
+  private final Variable methodThis = new Variable("this", Type.OBJECT, false, false);
+  private final FieldInfo field = new FieldInfo(null, "a", Type.INT, false, false, false);
+  private final List<StackOperation> ops = new ArrayList<StackOperation>();
+
+  public void testGetter() throws Exception {
+    ops.add(new Load(0, methodThis));
+    ops.add(new GetField(0, field));
+    ops.add(new Return(0, Type.INT));
+
+    List<Operation> operations = new StraightLineTranslator(ops).translate();
+    assertEquals(1, operations.size());
+    assertEquals("return null.a{int}", operations.get(0).toString());
+  }
+
+  public void testOperandOrder() throws Exception {
+    ops.add(new Load(0, methodThis));
+    ops.add(new Load(0, new Constant(1, Type.INT)));
+    ops.add(new PutField(0, field));
+    ops.add(new Return(0, Type.VOID));
+
+    List<Operation> operations = new StraightLineTranslator(ops).translate();
+    assertEquals(1, operations.size());
+    assertEquals("null.a{int} <- 1{int}", operations.get(0).toString());
+  }
+
+  public void testDoubleSlotValue() throws Exception {
+    Variable local = new Variable("l", Type.LONG, false, false);
+    ops.add(new Load(0, new Constant(1, Type.LONG)));
+    ops.add(new Store(0, local));
+    ops.add(new Return(0, Type.VOID));
+
+    List<Operation> operations = new StraightLineTranslator(ops).translate();
+    assertEquals(1, operations.size());
+    assertEquals("l{long} <- 1{long}", operations.get(0).toString());
+  }
+
+  public void testIgnoresUnreachableOperations() throws Exception {
+    ops.add(new Return(0, Type.VOID));
+    ops.add(new Load(0, new Constant(1, Type.INT)));
+    ops.add(new Return(0, Type.INT));
+
+    assertEquals(0, new StraightLineTranslator(ops).translate().size());
+  }
+
+  public void testUnderflow() throws Exception {
+    ops.add(new Return(0, Type.INT));
+    try {
+      new StraightLineTranslator(ops).translate();
+      fail();
+    } catch (StackUnderflowException expected) {
+    }
+  }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.method.op.turing;
+
+import static java.util.Collections.EMPTY_LIST;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.google.test.metric.ClassInfo;
+import com.google.test.metric.CostModel;
+import com.google.test.metric.FieldInfo;
+import com.google.test.metric.MethodInfo;
+import com.google.test.metric.RegExpWhiteList;
+import com.google.test.metric.TestabilityContext;
+import com.google.test.metric.Type;
+import com.google.test.metric.Variable;
+import com.google.test.metric.method.Constant;
+
+public class OperationTableTest extends TestCase {
+
+  Variable a = new Variable("a", Type.INT, false, false);
+  Variable b = new Variable("b", Type.INT, false, false);
+  Variable array = new Variable("array", Type.INT.toArray(), false, false);
+  Variable one = new Constant(1, Type.INT);
+  FieldInfo staticField = new FieldInfo(null, "s", Type.INT, false, true, false);
+  List<Operation> operations = new ArrayList<Operation>();
+
+  public void testEmpty() throws Exception {
+    OperationTable table = OperationTable.encode(operations);
+    assertEquals(0, table.size());
+    assertEquals(0, table.toOperations().size());
+    assertSame(table, OperationTable.encode(null));
+  }
+
+  public void testRoundTrip() throws Exception {
+    List<Variable> params = new ArrayList<Variable>();
+    params.add(a);
+    params.add(one);
+    operations.add(new LocalAssignment(1, a, b));
+    operations.add(new FieldAssignment(2, null, staticField, a));
+    operations.add(new ArrayAssignment(3, array, one, b));
+    operations.add(new MethodInvokation(4, "c.g.t.A", "m", "(II)V", b,
+        params, null));
+    operations.add(new ReturnOperation(5, a));
+
+    OperationTable table = OperationTable.encode(operations);
+    assertEquals(5, table.size());
+    assertEquals(OperationTable.METHOD_INVOKATION, table.getOpcode(3));
+    assertEquals(4, table.getLineNumber(3));
+    assertEquals(operations.toString(), table.toOperations().toString());
+    MethodInvokation invokation = (MethodInvokation) table.getOperation(3);
+    assertEquals("c.g.t.A", invokation.getOwner());
+    assertEquals("m(II)V", invokation.getNameDesc());
+    assertSame(b, invokation.getMethodThis());
+    assertEquals(params, invokation.getParameters());
+    assertNull(invokation.getReturnValue());
+  }
+
+  public void testVariablesAreShared() throws Exception {
+    operations.add(new LocalAssignment(1, a, b));
+    operations.add(new LocalAssignment(2, b, a));
+    operations.add(new ReturnOperation(3, a));
+
+    OperationTable table = OperationTable.encode(operations);
+    assertEquals(2, table.getVariableCount());
+    assertSame(a, ((ReturnOperation) table.getOperation(2)).getValue());
+  }
+
+  @SuppressWarnings("unchecked")
+  public void testComputeMetric() throws Exception {
+    ClassInfo classInfo = new ClassInfo("c.g.t.A", false, null, EMPTY_LIST);
+    MethodInfo method = new MethodInfo(classInfo, "method", 0, "()V", null,
+        null, null, null, 1, null);
+    TestabilityContext context = new TestabilityContext(null, null,
+        new RegExpWhiteList(), new CostModel());
+    operations.add(new FieldAssignment(2, null, staticField, a));
+    operations.add(new ReturnOperation(3, b));
+
+    OperationTable.encode(operations).computeMetric(context, method);
+    assertTrue(context.isGlobal(staticField));
+    assertSame(b, context.getReturnValue());
+    assertEquals(1, context.getLinkedMethodCost(method).getTotalGlobalCost());
+  }
+
+}
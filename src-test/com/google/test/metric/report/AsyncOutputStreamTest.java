@@ -0,0 +1,125 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+
+import junit.framework.TestCase;
+
+public class AsyncOutputStreamTest extends TestCase {
+
+  private byte[] content(int size) {
+    byte[] bytes = new byte[size];
+    for (int i = 0; i < size; i++) {
+      bytes[i] = (byte) (i * 31);
+    }
+    return bytes;
+  }
+
+  public void testWritesEverythingInOrder() throws Exception {
+    ByteArrayOutputStream target = new ByteArrayOutputStream();
+    AsyncOutputStream out = new AsyncOutputStream(target, false);
+    byte[] bytes = content(1000000);
+    out.write(bytes, 0, 300000);
+    for (int i = 300000; i < 300100; i++) {
+      out.write(bytes[i]);
+    }
+    out.flush();
+    out.write(bytes, 300100, bytes.length - 300100);
+    out.close();
+    assertTrue(java.util.Arrays.equals(bytes, target.toByteArray()));
+  }
+
+  public void testGzip() throws Exception {
+    ByteArrayOutputStream target = new ByteArrayOutputStream();
+    AsyncOutputStream out = new AsyncOutputStream(target, true);
+    byte[] bytes = content(200000);
+    out.write(bytes);
+    out.close();
+
+    GZIPInputStream in = new GZIPInputStream(
+        new ByteArrayInputStream(target.toByteArray()));
+    ByteArrayOutputStream read = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    int length;
+    while ((length = in.read(buffer)) != -1) {
+      read.write(buffer, 0, length);
+    }
+    assertTrue(java.util.Arrays.equals(bytes, read.toByteArray()));
+  }
+
+  public void testWriterErrorIsThrown() throws Exception {
+    OutputStream failing = new OutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        throw new IOException("disk full");
+      }
+    };
+    AsyncOutputStream out = new AsyncOutputStream(failing, false);
+    try {
+      out.write(content(500000));
+      out.close();
+      fail();
+    } catch (IOException expected) {
+      assertEquals("disk full", expected.getMessage());
+    }
+  }
+
+  public void testWriterRuntimeExceptionIsThrown() throws Exception {
+    final RuntimeException bug = new IllegalStateException("bug");
+    OutputStream failing = new OutputStream() {
+      @Override
+      public void write(int b) {
+        throw bug;
+      }
+    };
+    AsyncOutputStream out = new AsyncOutputStream(failing, false);
+    try {
+      out.write(content(1500000));
+      out.close();
+      fail();
+    } catch (IOException expected) {
+      assertSame(bug, expected.getCause());
+    }
+  }
+
+  public void testWriterErrorIsThrownWhenFinishing() throws Exception {
+    final Error bug = new OutOfMemoryError("bug");
+    OutputStream failing = new OutputStream() {
+      @Override
+      public void write(int b) {
+      }
+
+      @Override
+      public void flush() {
+        throw bug;
+      }
+    };
+    AsyncOutputStream out = new AsyncOutputStream(failing, false);
+    out.write(content(1000));
+    try {
+      out.close();
+      fail();
+    } catch (IOException expected) {
+      assertSame(bug, expected.getCause());
+    }
+  }
+
+}
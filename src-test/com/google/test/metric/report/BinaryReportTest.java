@@ -0,0 +1,162 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+import static com.google.test.metric.report.JsonLinesReportTest.classCost;
+
+import com.google.test.metric.ClassCost;
+import com.google.test.metric.CostModel;
+import com.google.test.metric.MethodCost;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class BinaryReportTest extends TestCase {
+
+  public void testRecords() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryReport report = new BinaryReport(out);
+    report.printHeader();
+    report.addClassCost(classCost("c.g.t.A"));
+    report.printFooter();
+
+    DataInputStream in = new DataInputStream(
+        new ByteArrayInputStream(out.toByteArray()));
+    assertEquals(BinaryReport.MAGIC, in.readInt());
+    assertEquals(BinaryReport.VERSION, in.readInt());
+    assertEquals(BinaryReport.CLASS, in.readByte());
+    assertEquals("c.g.t.A", in.readUTF());
+    assertEquals(classCost("c.g.t.A").getOverallCost(), in.readLong());
+    assertEquals(3L, in.readLong());
+    assertEquals(0L, in.readLong());
+    assertFalse(in.readBoolean());
+    assertEquals(BinaryReport.METHOD, in.readByte());
+    assertEquals("c.g.t.A.a()V", in.readUTF());
+    assertEquals(7, in.readInt());
+    in.skipBytes(5 * 8);
+    assertEquals(0, in.readInt());
+    assertEquals(BinaryReport.METHOD, in.readByte());
+    assertEquals("c.g.t.A.b(II)I", in.readUTF());
+    in.skipBytes(4 + 5 * 8 + 4);
+    assertEquals(BinaryReport.END, in.readByte());
+    assertEquals(-1, in.read());
+  }
+
+  public void testReadBackWithCalls() throws Exception {
+    MethodCost called = new MethodCost("c.g.t.B.called()V", 3, 4);
+    MethodCost caller = new MethodCost("c.g.t.A.caller()V", 5, 1);
+    caller.addMethodCost(6, called);
+    List<MethodCost> methods = new ArrayList<MethodCost>();
+    methods.add(caller);
+    ClassCost classCost = new ClassCost("c.g.t.A", methods);
+    classCost.link(new CostModel(1, 1));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryReport report = new BinaryReport(out);
+    report.printHeader();
+    report.addClassCost(classCost);
+    report.printFooter();
+
+    BinaryReportReader reader = new BinaryReportReader(
+        new ByteArrayInputStream(out.toByteArray()));
+    assertTrue(reader.next());
+    assertTrue(reader.isClass());
+    assertEquals("c.g.t.A", reader.getName());
+    assertEquals(5L, reader.getComplexityCost());
+    assertFalse(reader.isTruncated());
+    assertTrue(reader.next());
+    assertTrue(reader.isMethod());
+    assertEquals("c.g.t.A.caller()V", reader.getName());
+    assertEquals(5, reader.getLineNumber());
+    assertEquals(1L, reader.getCyclomaticCost());
+    assertEquals(5L, reader.getComplexityCost());
+    assertEquals(1, reader.getCallMethodNames().length);
+    assertEquals("c.g.t.B.called()V", reader.getCallMethodNames()[0]);
+    assertEquals(6, reader.getCallLineNumbers()[0]);
+    assertEquals(4L, reader.getCallComplexityCosts()[0]);
+    assertEquals(0L, reader.getCallGlobalCosts()[0]);
+    assertFalse(reader.next());
+  }
+
+  public void testTruncatedClass() throws Exception {
+    ClassCost classCost = classCost("c.g.t.A");
+    classCost.setTruncated(true);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryReport report = new BinaryReport(out);
+    report.printHeader();
+    report.addClassCost(classCost);
+    report.printFooter();
+
+    BinaryReportReader reader = new BinaryReportReader(
+        new ByteArrayInputStream(out.toByteArray()));
+    assertTrue(reader.next());
+    assertTrue(reader.isTruncated());
+    assertTrue(reader.next());
+    assertFalse(reader.isTruncated());
+  }
+
+  public void testSharedNamesAreBounded() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryReport report = new BinaryReport(out);
+    report.printHeader();
+    int classCount = BinaryReportReader.MAX_SHARED_NAMES + 10;
+    for (int i = 0; i < classCount; i++) {
+      MethodCost caller = new MethodCost("c.g.t.A" + i + ".caller()V", 1, 1);
+      caller.addMethodCost(2, new MethodCost("c.g.t.B.called()V", 3, 1));
+      caller.addMethodCost(3, new MethodCost("c.g.t.B.called" + i + "()V", 4, 1));
+      List<MethodCost> methods = new ArrayList<MethodCost>();
+      methods.add(caller);
+      ClassCost classCost = new ClassCost("c.g.t.A" + i, methods);
+      classCost.link(new CostModel(1, 1));
+      report.addClassCost(classCost);
+    }
+    report.printFooter();
+
+    BinaryReportReader reader = new BinaryReportReader(
+        new ByteArrayInputStream(out.toByteArray()));
+    String first = null;
+    int methodCount = 0;
+    while (reader.next()) {
+      if (reader.isMethod()) {
+        String[] calls = reader.getCallMethodNames();
+        assertEquals("c.g.t.B.called" + methodCount + "()V", calls[1]);
+        if (methodCount == 0) {
+          first = calls[0];
+        } else if (methodCount < BinaryReportReader.MAX_SHARED_NAMES / 2) {
+          assertSame(first, calls[0]);
+        }
+        methodCount++;
+        assertTrue(reader.getSharedNameCount()
+            <= BinaryReportReader.MAX_SHARED_NAMES);
+      }
+    }
+    assertEquals(classCount, methodCount);
+  }
+
+  public void testRejectsOtherStreams() throws Exception {
+    try {
+      new BinaryReportReader(new ByteArrayInputStream(new byte[] {1, 2, 3, 4}));
+      fail();
+    } catch (IOException expected) {
+    }
+  }
+
+}
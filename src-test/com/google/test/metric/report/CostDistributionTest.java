@@ -0,0 +1,113 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+import junit.framework.TestCase;
+
+public class CostDistributionTest extends TestCase {
+
+  public void testSmallCostsAreExact() throws Exception {
+    CostDistribution distribution = new CostDistribution();
+    for (int cost = 1; cost <= 100; cost++) {
+      distribution.add(cost);
+    }
+    assertEquals(100, distribution.getCount());
+    assertEquals(1, distribution.getMin());
+    assertEquals(100, distribution.getMax());
+    assertEquals(50, distribution.getQuantile(0.5));
+    assertEquals(90, distribution.getQuantile(0.9));
+    assertEquals(99, distribution.getQuantile(0.99));
+    assertEquals(100, distribution.getQuantile(1));
+  }
+
+  public void testLargeCostsWithinBucketPrecision() throws Exception {
+    CostDistribution distribution = new CostDistribution();
+    for (long cost = 1000; cost <= 100000; cost += 1000) {
+      distribution.add(cost);
+    }
+    long p90 = distribution.getQuantile(0.9);
+    assertTrue("" + p90, Math.abs(p90 - 90000) <= 90000 / CostDistribution.SUB_BUCKET_COUNT);
+    assertEquals(100000, distribution.getQuantile(1));
+  }
+
+  public void testBucketBounds() throws Exception {
+    for (long value : new long[] {0, 1, 127, 128, 129, 255, 256, 1000, 12345678,
+        Long.MAX_VALUE}) {
+      int bucket = CostDistribution.bucket(value);
+      assertTrue(CostDistribution.lowerBound(bucket) <= value);
+      assertTrue(value <= CostDistribution.upperBound(bucket));
+    }
+    assertEquals(CostDistribution.LINEAR_LIMIT, CostDistribution.bucket(128));
+    assertEquals(CostDistribution.LINEAR_LIMIT, CostDistribution.bucket(129));
+  }
+
+  public void testMerge() throws Exception {
+    CostDistribution a = new CostDistribution();
+    CostDistribution b = new CostDistribution();
+    CostDistribution all = new CostDistribution();
+    for (int cost = 0; cost < 1000; cost += 7) {
+      (cost % 2 == 0 ? a : b).add(cost);
+      all.add(cost);
+    }
+    a.merge(b);
+    assertEquals(all.getCount(), a.getCount());
+    assertEquals(all.getMin(), a.getMin());
+    assertEquals(all.getMax(), a.getMax());
+    assertEquals(all.getQuantile(0.5), a.getQuantile(0.5));
+    assertEquals(all.getQuantile(0.99), a.getQuantile(0.99));
+  }
+
+  public void testEncodeRoundTrip() throws Exception {
+    CostDistribution distribution = new CostDistribution();
+    distribution.add(3);
+    distribution.add(3);
+    distribution.add(5000);
+    CostDistribution read = new CostDistribution();
+    read.mergeEncoded(distribution.encode());
+    assertEquals(distribution.encode(), read.encode());
+    assertEquals(3, read.getCount());
+    assertEquals(3, read.getMin());
+    assertEquals(5000, read.getMax());
+
+    CostDistribution empty = new CostDistribution();
+    read.mergeEncoded(empty.encode());
+    assertEquals(distribution.encode(), read.encode());
+  }
+
+  public void testBucketsGrowWithLargestCost() throws Exception {
+    CostDistribution distribution = new CostDistribution();
+    distribution.add(100);
+    assertEquals(CostDistribution.LINEAR_LIMIT, distribution.getBucketCount());
+    distribution.add(1000000);
+    assertTrue(distribution.getBucketCount() > CostDistribution.LINEAR_LIMIT);
+    assertEquals(1, distribution.getCount(CostDistribution.bucket(1000000)));
+    assertEquals(0, distribution.getCount(distribution.getBucketCount() + 1));
+
+    CostDistribution small = new CostDistribution();
+    small.add(1);
+    small.merge(distribution);
+    assertEquals(3, small.getCount());
+    assertEquals(1000000, small.getQuantile(1));
+  }
+
+  public void testEmpty() throws Exception {
+    CostDistribution distribution = new CostDistribution();
+    assertEquals(0, distribution.getQuantile(0.5));
+    assertEquals(0, distribution.getMin());
+    assertEquals(0, distribution.getMax());
+  }
+
+}
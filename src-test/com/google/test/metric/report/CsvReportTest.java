@@ -0,0 +1,74 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+import static com.google.test.metric.report.JsonLinesReportTest.classCost;
+
+import com.google.test.metric.ClassCost;
+import com.google.test.metric.MethodCost;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+public class CsvReportTest extends TestCase {
+
+  public void testRecordPerClassAndMethod() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CsvReport report = new CsvReport(out);
+    report.printHeader();
+    report.addClassCost(classCost("c.g.t.A"));
+    report.printFooter();
+    String[] lines = out.toString("UTF-8").split("\n");
+    assertEquals(4, lines.length);
+    assertEquals(CsvReport.HEADER, lines[0]);
+    assertEquals("class,c.g.t.A,,," + classCost("c.g.t.A").getOverallCost()
+        + ",,,3,0,false", lines[1]);
+    assertEquals("method,c.g.t.A,c.g.t.A.b(II)I,9,1,1,0,1,0,", lines[3]);
+  }
+
+  public void testQuotesFieldsWithLineBreaks() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CsvReport report = new CsvReport(out);
+    report.addClassCost(new ClassCost("a\rb", new ArrayList<MethodCost>()));
+    report.addClassCost(new ClassCost("c\nd", new ArrayList<MethodCost>()));
+    report.printFooter();
+    assertEquals("class,\"a\rb\",,,0,,,0,0,false\n"
+        + "class,\"c\nd\",,,0,,,0,0,false\n", out.toString("UTF-8"));
+  }
+
+  public void testTruncatedClass() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CsvReport report = new CsvReport(out);
+    ClassCost classCost = classCost("c.g.t.A");
+    classCost.setTruncated(true);
+    report.addClassCost(classCost);
+    report.printFooter();
+    String[] lines = out.toString("UTF-8").split("\n");
+    assertTrue(lines[0], lines[0].endsWith(",3,0,true"));
+    assertEquals("method,c.g.t.A,c.g.t.A.a()V,7,2,2,0,2,0,", lines[1]);
+  }
+
+  public void testQuotesFieldsWithCommas() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CsvReport report = new CsvReport(out);
+    report.addClassCost(new ClassCost("a,\"b\"", new ArrayList<MethodCost>()));
+    report.printFooter();
+    assertEquals("class,\"a,\"\"b\"\"\",,,0,,,0,0,false\n", out.toString("UTF-8"));
+  }
+
+}
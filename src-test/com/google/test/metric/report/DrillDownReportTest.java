@@ -109,6 +109,19 @@ public class DrillDownReportTest extends AutoFieldClearTestCase {
     assertStringEquals("c.g.t.A.method2()V [2, 0 / 3, 0]\n", out.toString());
   }
 
+  public void testTruncatedClass() throws Exception {
+    DrillDownReport printer =
+      new DrillDownReport(new PrintStream(out), null, 0, 0);
+    List<MethodCost> methods = new ArrayList<MethodCost>();
+    methods.add(methodCost1);
+    ClassCost classCost = new ClassCost("c.g.t.A", methods);
+    classCost.link(context);
+    classCost.setTruncated(true);
+    printer.print(classCost);
+    assertTrue(out.toString(), out.toString().contains(
+        "Testability cost for c.g.t.A [ cost = 1 ] [ 1 TCC, 0 TGC ] [ truncated ]"));
+  }
+
   public void testSecondLevelRecursive() throws Exception {
     DrillDownReport printer =
       new DrillDownReport(new PrintStream(out), null, MAX_VALUE, 0);
@@ -172,6 +185,42 @@ public class DrillDownReportTest extends AutoFieldClearTestCase {
         out.toString());
   }
 
+  public void testStreamingPrintsClassesAsTheyAreAdded() throws Exception {
+    DrillDownReport printer =
+      new DrillDownReport(new PrintStream(out), null, MAX_VALUE, 0, true);
+    List<MethodCost> methodCosts1 = new ArrayList<MethodCost>();
+    methodCosts1.add(methodCost1);
+    List<MethodCost> methodCosts2 = new ArrayList<MethodCost>();
+    methodCosts2.add(methodCost2);
+    ClassCost classCost1 = new ClassCost("FAKE_classInfo1", methodCosts1);
+    ClassCost classCost2 = new ClassCost("FAKE_classInfo2", methodCosts2);
+    classCost1.link(context);
+    classCost2.link(context);
+    printer.addClassCost(classCost1);
+    assertStringEquals("\nTestability cost for FAKE_classInfo1 [ cost = 1 ] [ 1 TCC, 0 TGC ]\n" +
+        "  c.g.t.A.method1()V [1, 0 / 1, 0]\n", out.toString());
+    printer.addClassCost(classCost2);
+    printer.printFooter();
+    assertStringEquals("\nTestability cost for FAKE_classInfo1 [ cost = 1 ] [ 1 TCC, 0 TGC ]\n" +
+        "  c.g.t.A.method1()V [1, 0 / 1, 0]\n" +
+        "\nTestability cost for FAKE_classInfo2 [ cost = 2 ] [ 2 TCC, 0 TGC ]\n" +
+        "  c.g.t.A.method2()V [2, 0 / 2, 0]\n",
+        out.toString());
+  }
+
+  public void testSameMethodCalledTwiceIsPrintedOnce() throws Exception {
+    DrillDownReport printer =
+      new DrillDownReport(new PrintStream(out), null, MAX_VALUE, 0);
+    methodCost3.addMethodCost(1, methodCost1);
+    methodCost3.addMethodCost(2, methodCost2);
+    methodCost2.addMethodCost(5, methodCost1);
+    methodCost3.link(context);
+    printer.print("", methodCost3, MAX_VALUE);
+    assertStringEquals("c.g.t.A.method3()V [3, 0 / 7, 0]\n" +
+        "  line 1: c.g.t.A.method1()V [1, 0 / 1, 0]\n" +
+        "  line 2: c.g.t.A.method2()V [2, 0 / 3, 0]\n", out.toString());
+  }
+
 	private void assertStringEquals(String expected, String actual) {
 		assertEquals(expected.replace("\n", NEW_LINE), actual);
 	}
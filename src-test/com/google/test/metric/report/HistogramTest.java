@@ -47,6 +47,21 @@ public class HistogramTest extends TestCase {
         Arrays.toString(actual)), Arrays.equals(expected, actual));
   }
 
+  public void testValueCount() throws Exception {
+    Histogram histogram = new Histogram(0, 10, 2);
+    histogram.value(5, 3);
+    histogram.value(12, 2);
+    histogram.value(15);
+    assertArrayEquals(array(3, 3), histogram.getBins());
+    assertEquals(3, histogram.getMaxBin());
+  }
+
+  public void testMaxValueOnBinBoundaryGoesToLastBin() throws Exception {
+    Histogram histogram = new Histogram(0, 15, 1);
+    histogram.value(15);
+    assertArrayEquals(array(1), histogram.getBins());
+  }
+
   public void testBinLabels() throws Exception {
     Histogram histogram = new Histogram(0, 10, 2);
     assertArrayEquals(array("5", "15"), histogram.getBinLabels(2));
@@ -18,6 +18,8 @@ package com.google.test.metric.report;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 
+import com.google.test.metric.ClassCost;
+
 import junit.framework.TestCase;
 
 public class HtmlReportTest extends TestCase {
@@ -40,5 +42,51 @@ public class HtmlReportTest extends TestCase {
     assertTrue(out.toString().length() > 0);
   }
 
+  public void testTruncatedClassesInSummary() throws Exception {
+    report.addClassCost(new ClassCost("c.g.t.A", 15));
+    report.printSummary();
+    assertFalse(out.toString().contains("Truncated classes"));
+    ClassCost truncated = new ClassCost("c.g.t.B", 3);
+    truncated.setTruncated(true);
+    report.addClassCost(truncated);
+    out.reset();
+    report.printSummary();
+    assertTrue(out.toString(), out.toString().contains(
+        " Truncated classes :     1  50.0%"));
+  }
+
+  public void testChartsAreInlineSvg() throws Exception {
+    report.addClassCost(new ClassCost("c.g.t.A", 15));
+    report.printSummary();
+    assertTrue(out.toString().contains("<svg "));
+    assertFalse(out.toString().contains(GoogleChartAPI.BASE_URL));
+  }
+
+  public void testRemoteCharts() throws Exception {
+    report.setRemoteCharts(true);
+    report.addClassCost(new ClassCost("c.g.t.A", 15));
+    report.printSummary();
+    assertFalse(out.toString().contains("<svg "));
+    assertTrue(out.toString().contains(GoogleChartAPI.BASE_URL));
+  }
+
+  public void testClassTableData() throws Exception {
+    report.setClassTable(true);
+    report.addClassCost(new ClassCost("c.g.t.A", 15));
+    report.addClassCost(new ClassCost("c.g.t.B</script>", 3));
+    report.printFooter();
+    String html = out.toString();
+    assertTrue(html, html.contains("<script type=\"application/json\" "
+        + "id=\"classData\">[[\"c.g.t.A\",15,0,0],\n"
+        + "[\"c.g.t.B\\u003c/script\\u003e\",3,0,0]]</script>"));
+    assertTrue(html, html.contains("id=\"classTable\""));
+  }
+
+  public void testNoClassTableByDefault() throws Exception {
+    report.addClassCost(new ClassCost("c.g.t.A", 15));
+    report.printFooter();
+    assertFalse(out.toString().contains("classData"));
+  }
+
 
 }
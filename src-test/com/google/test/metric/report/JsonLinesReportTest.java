@@ -0,0 +1,83 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+import com.google.test.metric.ClassCost;
+import com.google.test.metric.CostModel;
+import com.google.test.metric.MethodCost;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class JsonLinesReportTest extends TestCase {
+
+  static ClassCost classCost(String className) {
+    List<MethodCost> methods = new ArrayList<MethodCost>();
+    methods.add(new MethodCost(className + ".a()V", 7, 2));
+    methods.add(new MethodCost(className + ".b(II)I", 9, 1));
+    ClassCost classCost = new ClassCost(className, methods);
+    classCost.link(new CostModel(1, 1));
+    return classCost;
+  }
+
+  public void testRecordPerClassAndMethod() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    JsonLinesReport report = new JsonLinesReport(out);
+    report.printHeader();
+    report.addClassCost(classCost("c.g.t.A"));
+    report.printFooter();
+    String[] lines = out.toString("UTF-8").split("\n");
+    assertEquals(3, lines.length);
+    assertEquals("{\"type\":\"class\",\"class\":\"c.g.t.A\",\"cost\":"
+        + classCost("c.g.t.A").getOverallCost()
+        + ",\"complexity\":3,\"global\":0}", lines[0]);
+    assertEquals("{\"type\":\"method\",\"class\":\"c.g.t.A\","
+        + "\"method\":\"c.g.t.A.a()V\",\"line\":7,\"cost\":2,\"cyclomatic\":2,"
+        + "\"globalState\":0,\"complexity\":2,\"global\":0}", lines[1]);
+  }
+
+  public void testTruncatedClass() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    JsonLinesReport report = new JsonLinesReport(out);
+    ClassCost classCost = classCost("c.g.t.A");
+    classCost.setTruncated(true);
+    report.addClassCost(classCost);
+    report.printFooter();
+    assertTrue(out.toString("UTF-8").split("\n")[0].endsWith(
+        ",\"global\":0,\"truncated\":true}"));
+  }
+
+  public void testEscapesStrings() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    JsonLinesReport report = new JsonLinesReport(out);
+    report.addClassCost(new ClassCost("a\"b\\c", new ArrayList<MethodCost>()));
+    report.printFooter();
+    assertTrue(out.toString("UTF-8").contains("\"class\":\"a\\\"b\\\\c\""));
+  }
+
+  public void testBuffersUntilFooter() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    JsonLinesReport report = new JsonLinesReport(out);
+    report.addClassCost(classCost("c.g.t.A"));
+    assertEquals(0, out.size());
+    report.printFooter();
+    assertTrue(out.size() > 0);
+  }
+
+}
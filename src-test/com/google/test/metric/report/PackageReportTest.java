@@ -0,0 +1,42 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+import com.google.test.metric.ClassCost;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import junit.framework.TestCase;
+
+public class PackageReportTest extends TestCase {
+
+  public void testPrintsToDepth() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    PackageReport report = new PackageReport(new PrintStream(out), 1);
+    report.addClassCost(new ClassCost("com.a.X", 10));
+    report.addClassCost(new ClassCost("com.b.Y", 20));
+    report.addClassCost(new ClassCost("org.Z", 3));
+    report.printFooter();
+    String[] lines = out.toString().split(System.getProperty("line.separator"));
+    assertEquals(4, lines.length);
+    assertTrue(lines[0], lines[0].startsWith("Package "));
+    assertTrue(lines[1], lines[1].matches("\\(all\\) +3 +33 +20 .*"));
+    assertTrue(lines[2], lines[2].matches("  com +2 +30 +20 .*"));
+    assertTrue(lines[3], lines[3].matches("  org +1 +3 +3 .*"));
+  }
+
+}
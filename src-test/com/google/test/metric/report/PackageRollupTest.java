@@ -0,0 +1,75 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+import java.util.Iterator;
+
+import junit.framework.TestCase;
+
+public class PackageRollupTest extends TestCase {
+
+  private final PackageRollup rollup = new PackageRollup();
+
+  public void testRollsUpToEveryParentPackage() throws Exception {
+    rollup.add("com.a.X", 10);
+    rollup.add("com.a.Y$Inner", 30);
+    rollup.add("com.b.Z", 5);
+    rollup.add("Default", 1);
+
+    assertEquals(4, rollup.getClassCount());
+    assertEquals(46, rollup.getTotalCost());
+    assertEquals(30, rollup.getMaxCost());
+
+    PackageRollup com = rollup.getPackage("com");
+    assertEquals("com", com.getName());
+    assertEquals(3, com.getClassCount());
+    assertEquals(45, com.getTotalCost());
+
+    PackageRollup comA = rollup.getPackage("com.a");
+    assertEquals("com.a", comA.getName());
+    assertEquals(2, comA.getClassCount());
+    assertEquals(40, comA.getTotalCost());
+    assertEquals(30, comA.getMaxCost());
+    assertEquals(30, comA.getDistribution().getQuantile(1));
+    assertTrue(comA.getSubPackages().isEmpty());
+
+    assertNull(rollup.getPackage("com.c"));
+    assertSame(rollup, rollup.getPackage(""));
+  }
+
+  public void testSubPackagesAreSorted() throws Exception {
+    rollup.add("com.b.Z", 5);
+    rollup.add("com.a.X", 10);
+    Iterator<PackageRollup> subPackages =
+        rollup.getPackage("com").getSubPackages().iterator();
+    assertEquals("com.a", subPackages.next().getName());
+    assertEquals("com.b", subPackages.next().getName());
+    assertFalse(subPackages.hasNext());
+  }
+
+  public void testMerge() throws Exception {
+    PackageRollup other = new PackageRollup();
+    rollup.add("com.a.X", 10);
+    other.add("com.a.Y", 20);
+    other.add("org.b.Z", 3);
+    rollup.merge(other);
+    assertEquals(3, rollup.getClassCount());
+    assertEquals(30, rollup.getPackage("com.a").getTotalCost());
+    assertEquals("org.b", rollup.getPackage("org.b").getName());
+    assertEquals(1, rollup.getPackage("org.b").getClassCount());
+  }
+
+}
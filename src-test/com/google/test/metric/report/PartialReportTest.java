@@ -0,0 +1,114 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+import com.google.test.metric.ClassCost;
+import com.google.test.metric.CostModel;
+import com.google.test.metric.MethodCost;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class PartialReportTest extends TestCase {
+
+  private ClassCost classCost(String name, int cost) {
+    List<MethodCost> methods = new ArrayList<MethodCost>();
+    methods.add(new MethodCost(name + ".a()V", 1, cost));
+    methods.add(new MethodCost(name + ".b()V", 2, cost / 2));
+    ClassCost classCost = new ClassCost(name, methods);
+    classCost.link(new CostModel(1, 1));
+    return classCost;
+  }
+
+  private String partial(List<ClassCost> costs) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    PartialReport report = new PartialReport(new PrintStream(out), 50, 100, 3);
+    report.printHeader();
+    for (ClassCost cost : costs) {
+      report.addClassCost(cost);
+    }
+    report.printFooter();
+    return out.toString();
+  }
+
+  public void testMergedShardsPrintSameReportAsSingleRun() throws Exception {
+    List<List<ClassCost>> shards = new ArrayList<List<ClassCost>>();
+    for (int i = 0; i < 3; i++) {
+      shards.add(new ArrayList<ClassCost>());
+    }
+    ByteArrayOutputStream single = new ByteArrayOutputStream();
+    TextReport singleReport = new TextReport(new PrintStream(single), 50, 100, 3);
+    for (int i = 0; i < 40; i++) {
+      ClassCost cost = classCost("c.g.t.C" + i, (i * 37) % 300);
+      // C8 is the most expensive class, so a worst offender is truncated.
+      cost.setTruncated(i % 7 == 0 || i == 8);
+      singleReport.addClassCost(cost);
+      shards.get(i % 3).add(cost);
+    }
+    singleReport.printFooter();
+
+    ByteArrayOutputStream merged = new ByteArrayOutputStream();
+    TextReport mergedReport = new TextReport(new PrintStream(merged), 50, 100, 3);
+    for (List<ClassCost> shard : shards) {
+      mergedReport.readPartial(new StringReader(partial(shard)));
+    }
+    mergedReport.printFooter();
+
+    assertEquals(single.toString(), merged.toString());
+    assertTrue(merged.toString(), merged.toString().contains(
+        "Truncated classes:     7"));
+    assertTrue(merged.toString(), merged.toString().contains("c.g.t.C8 296 (truncated)"));
+  }
+
+  public void testRejectsUnknownHeader() throws Exception {
+    TextReport report = new TextReport(new PrintStream(new ByteArrayOutputStream()),
+        50, 100, 3);
+    try {
+      report.readPartial(new StringReader("classes\t1\t1\t0\t0\t1\t0\n"));
+      fail();
+    } catch (IOException expected) {
+    }
+  }
+
+  public void testRejectsMalformedTruncatedFlag() throws Exception {
+    TextReport report = new TextReport(new PrintStream(new ByteArrayOutputStream()),
+        50, 100, 3);
+    try {
+      report.readPartial(new StringReader(SummaryReport.PARTIAL_HEADER
+          + "\noffender\t10\tyes\tc.g.t.A\n"));
+      fail();
+    } catch (IOException expected) {
+    }
+  }
+
+  public void testRejectsMalformedLine() throws Exception {
+    TextReport report = new TextReport(new PrintStream(new ByteArrayOutputStream()),
+        50, 100, 3);
+    try {
+      report.readPartial(new StringReader(SummaryReport.PARTIAL_HEADER
+          + "\nclassCosts\t0 5 x:1\n"));
+      fail();
+    } catch (IOException expected) {
+    }
+  }
+
+}
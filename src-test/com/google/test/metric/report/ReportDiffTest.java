@@ -0,0 +1,146 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+import com.google.test.metric.ClassCost;
+import com.google.test.metric.CostModel;
+import com.google.test.metric.MethodCost;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class ReportDiffTest extends TestCase {
+
+  private final List<ClassCost> before = new ArrayList<ClassCost>();
+  private final List<ClassCost> after = new ArrayList<ClassCost>();
+
+  private ClassCost classCost(String className, MethodCost... methods) {
+    List<MethodCost> list = new ArrayList<MethodCost>();
+    for (MethodCost method : methods) {
+      list.add(method);
+    }
+    ClassCost classCost = new ClassCost(className, list);
+    classCost.link(new CostModel(1, 1));
+    return classCost;
+  }
+
+  private MethodCost method(String name, int cyclomatic, Object... calls) {
+    MethodCost cost = new MethodCost(name, 1, cyclomatic);
+    for (int i = 0; i < calls.length; i += 2) {
+      cost.addMethodCost((Integer) calls[i], (MethodCost) calls[i + 1]);
+    }
+    return cost;
+  }
+
+  private BinaryReportReader binary(List<ClassCost> costs) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryReport report = new BinaryReport(out);
+    report.printHeader();
+    for (ClassCost cost : costs) {
+      report.addClassCost(cost);
+    }
+    report.printFooter();
+    return new BinaryReportReader(new ByteArrayInputStream(out.toByteArray()));
+  }
+
+  private String diff(long threshold) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new ReportDiff(new PrintStream(out), threshold).diff(binary(before),
+        binary(after));
+    return out.toString().replace(System.getProperty("line.separator"), "\n");
+  }
+
+  public void testUnchanged() throws Exception {
+    before.add(classCost("c.A", method("c.A.a()V", 3)));
+    after.add(classCost("c.A", method("c.A.a()V", 3)));
+    assertEquals("0 changed, 0 added, 0 removed classes\n", diff(1));
+  }
+
+  public void testChangedMethodIsExplainedByCalls() throws Exception {
+    before.add(classCost("c.A", method("c.A.a()V", 1,
+        10, method("c.B.cheap()V", 1),
+        11, method("c.B.gone()V", 2))));
+    after.add(classCost("c.A", method("c.A.a()V", 1,
+        10, method("c.B.cheap()V", 5),
+        12, method("c.B.added()V", 3))));
+    assertEquals(
+        "~ c.A 4 -> 9 (+5)\n" +
+        "  ~ c.A.a()V 4 -> 9 (+5)\n" +
+        "      ~ line 10: c.B.cheap()V [1, 0] -> [5, 0]\n" +
+        "      + line 12: c.B.added()V [3, 0]\n" +
+        "      - line 11: c.B.gone()V [2, 0]\n" +
+        "1 changed, 0 added, 0 removed classes\n", diff(1));
+  }
+
+  public void testSameCallTwiceOnALine() throws Exception {
+    before.add(classCost("c.A", method("c.A.a()V", 1,
+        12, method("d.E.f()V", 5),
+        12, method("d.E.f()V", 5))));
+    after.add(classCost("c.A", method("c.A.a()V", 1,
+        12, method("d.E.f()V", 10),
+        12, method("d.E.f()V", 10),
+        12, method("d.E.f()V", 1))));
+    assertEquals(
+        "~ c.A 11 -> 22 (+11)\n" +
+        "  ~ c.A.a()V 11 -> 22 (+11)\n" +
+        "      ~ line 12: d.E.f()V [5, 0] -> [10, 0]\n" +
+        "      ~ line 12: d.E.f()V [5, 0] -> [10, 0]\n" +
+        "      + line 12: d.E.f()V [1, 0]\n" +
+        "1 changed, 0 added, 0 removed classes\n", diff(1));
+  }
+
+  public void testAddedAndRemoved() throws Exception {
+    before.add(classCost("c.A", method("c.A.a()V", 1), method("c.A.old()V", 2)));
+    before.add(classCost("c.Gone", method("c.Gone.a()V", 4)));
+    after.add(classCost("c.A", method("c.A.a()V", 1), method("c.A.new()V", 3)));
+    after.add(classCost("c.New", method("c.New.a()V", 7)));
+    String diff = diff(1);
+    assertTrue(diff, diff.contains("  + c.A.new()V 3\n"));
+    assertTrue(diff, diff.contains("  - c.A.old()V 2\n"));
+    assertTrue(diff, diff.contains("+ c.New 7\n"));
+    assertTrue(diff, diff.contains("- c.Gone 4\n"));
+    assertTrue(diff, diff.endsWith("1 changed, 1 added, 1 removed classes\n"));
+  }
+
+  public void testTruncatedClassesAreMarked() throws Exception {
+    ClassCost cut = classCost("c.A", method("c.A.a()V", 3));
+    cut.setTruncated(true);
+    before.add(classCost("c.A", method("c.A.a()V", 10)));
+    after.add(cut);
+    ClassCost gone = classCost("c.Gone", method("c.Gone.a()V", 4));
+    gone.setTruncated(true);
+    before.add(gone);
+    String diff = diff(1);
+    assertTrue(diff, diff.startsWith("~ c.A 10 -> 3 (-7) (truncated after)\n"));
+    assertTrue(diff, diff.contains("- c.Gone 4 (truncated before)\n"));
+  }
+
+  public void testThreshold() throws Exception {
+    before.add(classCost("c.A", method("c.A.a()V", 10)));
+    before.add(classCost("c.B", method("c.B.a()V", 10)));
+    after.add(classCost("c.A", method("c.A.a()V", 12)));
+    after.add(classCost("c.B", method("c.B.a()V", 20)));
+    String diff = diff(5);
+    assertFalse(diff, diff.contains("c.A"));
+    assertTrue(diff, diff.contains("~ c.B 10 -> 20 (+10)\n"));
+  }
+
+}
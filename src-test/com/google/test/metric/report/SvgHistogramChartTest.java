@@ -0,0 +1,41 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+import junit.framework.TestCase;
+
+public class SvgHistogramChartTest extends TestCase {
+
+  public void testStackedBars() throws Exception {
+    SvgHistogramChart chart = new SvgHistogramChart();
+    chart.setSize(300, 100);
+    chart.setBarWidth(10, 0, 0);
+    chart.setItemLabel("5", "", "25");
+    chart.setValues(new int[] {61, 0, 0}, new int[] {0, 30, 0},
+        new int[] {0, 10, 20});
+    chart.setYMark(0, 7);
+    chart.setChartLabel("Excellent", "Good", "Needs Work");
+    String html = chart.getHtml();
+    int bars = html.split("<rect ").length - 1;
+    assertEquals(4 + 3, bars); // 4 bar segments and 3 legend boxes
+    // A full scale bar spans the whole plot.
+    assertTrue(html, html.contains("<rect x='30' y='4.0' width='10' height='80.0'"));
+    assertTrue(html, html.contains(">25</text>"));
+    assertTrue(html, html.contains(">7</text>"));
+    assertTrue(html, html.contains(">Needs Work</text>"));
+  }
+
+}
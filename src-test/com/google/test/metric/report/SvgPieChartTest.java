@@ -0,0 +1,64 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+import static com.google.test.metric.report.GoogleChartAPI.GREEN;
+import static com.google.test.metric.report.GoogleChartAPI.RED;
+import static com.google.test.metric.report.GoogleChartAPI.YELLOW;
+
+import junit.framework.TestCase;
+
+public class SvgPieChartTest extends TestCase {
+
+  private int count(String text, String part) {
+    int count = 0;
+    for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+      count++;
+    }
+    return count;
+  }
+
+  public void testSlicePerValue() throws Exception {
+    SvgPieChart chart = new SvgPieChart();
+    chart.setSize(400, 100);
+    chart.setItemLabel("Excellent", "Good", "Needs Work");
+    chart.setColors(GREEN, YELLOW, RED);
+    chart.setValues(1, 2, 3);
+    String html = chart.getHtml();
+    assertTrue(html, html.startsWith("<svg "));
+    assertTrue(html, html.endsWith("</svg>"));
+    assertEquals(3, count(html, "<path "));
+    assertTrue(html, html.contains("fill='#" + RED + "'"));
+    assertTrue(html, html.contains(">Needs Work</text>"));
+    assertFalse(html, html.contains(GoogleChartAPI.BASE_URL));
+  }
+
+  public void testSingleValueIsFullCircle() throws Exception {
+    SvgPieChart chart = new SvgPieChart();
+    chart.setValues(0, 5, 0);
+    String html = chart.getHtml();
+    assertEquals(0, count(html, "<path "));
+    assertEquals(1, count(html, "<circle "));
+  }
+
+  public void testEscapesLabels() throws Exception {
+    SvgPieChart chart = new SvgPieChart();
+    chart.setItemLabel("a<b");
+    chart.setValues(1);
+    assertTrue(chart.getHtml().contains(">a&lt;b</text>"));
+  }
+
+}
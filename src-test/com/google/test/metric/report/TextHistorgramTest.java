@@ -30,6 +30,20 @@ public class TextHistorgramTest extends TestCase {
     assertEquals("    25 |######:     3", rows[3]);
   }
 
+  public void testDrawDistribution() throws Exception {
+    TextHistogram histogram = new TextHistogram(6, 3, new CharMarker('#'));
+    histogram.setMin(0);
+    CostDistribution distribution = new CostDistribution();
+    for (int value : new int[] {10, 20, 20, 30, 30, 30}) {
+      distribution.add(value);
+    }
+    String[] rows = histogram.graph(distribution);
+    assertEquals("       0      3", rows[0]);
+    assertEquals("     5 |##    :     1", rows[1]);
+    assertEquals("    15 |####  :     2", rows[2]);
+    assertEquals("    25 |######:     3", rows[3]);
+  }
+
   public void testMax() throws Exception {
     assertEquals(5, new TextHistogram(-1,-1, null).max(1,2,5,4,5,3,0));
   }
@@ -68,6 +68,33 @@ public class TextReportTest extends TestCase {
         "             Breakdown: [.........=================@@@@@@@@@@@@@@@@@@@@@@@@@]");
   }
 
+  public void testPrintSummaryWithTruncatedClasses() throws Exception {
+    report.addClassCost(classCost("c.g.t.A", 1));
+    ClassCost truncated = classCost("c.g.t.B", 70);
+    truncated.setTruncated(true);
+    report.addClassCost(truncated);
+    report.printSummary();
+    assertOutput(
+        "      Analyzed classes:     2",
+        " Excellent classes (.):     1  50.0%",
+        "      Good classes (=):     1  50.0%",
+        "Needs work classes (@):     0   0.0%",
+        "     Truncated classes:     1  50.0%",
+        "             Breakdown: [.........................==========================]");
+  }
+
+  public void testWorstOffendersShowTruncation() throws Exception {
+    ClassCost truncated = classCost("c.g.t.B", 101);
+    truncated.setTruncated(true);
+    report.addClassCost(truncated);
+    report.printWorstOffenders(1);
+    assertOutput(
+        "",
+        "Highest Cost",
+        "============",
+        "c.g.t.B 101 (truncated)");
+  }
+
   public void testPrintDistribution() throws Exception {
     report.addClassCost(classCost("c.g.t.A", 1));
     report.addClassCost(classCost("c.g.t.B", 10));
@@ -84,4 +111,30 @@ public class TextReportTest extends TestCase {
         );
   }
 
+  public void testPrintQuantiles() throws Exception {
+    for (int i = 1; i <= 10; i++) {
+      report.addClassCost(classCost("c.g.t.C" + i, i * 10));
+    }
+    report.printQuantiles();
+    assertOutput(
+        "   Class cost p50/p90/p99:    50    90   100",
+        "  Method cost p50/p90/p99:    50    90   100");
+  }
+
+  public void testKeepsOnlyWorstOffenders() throws Exception {
+    report = new TextReport(new PrintStream(out), 50, 100, 2);
+    report.addClassCost(classCost("c.g.t.A", 30));
+    report.addClassCost(classCost("c.g.t.B", 101));
+    report.addClassCost(classCost("c.g.t.C", 1));
+    report.addClassCost(classCost("c.g.t.D", 70));
+    report.printWorstOffenders(2);
+    assertOutput(
+        "",
+        "Highest Cost",
+        "============",
+        "c.g.t.B 101",
+        "c.g.t.D 70");
+    assertEquals(2, report.getWorstOffenders().size());
+  }
+
 }
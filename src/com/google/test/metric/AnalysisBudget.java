@@ -0,0 +1,95 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+/**
+ * Limits how much work computing the cost of one class may take, so that a
+ * pathological class can not stall a whole run. Set with
+ * {@link MetricComputer#setBudget(AnalysisBudget)}; a limit of 0 means no
+ * limit.
+ * <p>
+ * Each class gets a fresh {@link Meter} which counts the methods visited and
+ * the operations they evaluate. Once a limit is reached, further calls are not
+ * followed: the methods of the class are still costed on their own, but the
+ * costs of callees which were not visited yet are left out and the
+ * {@link ClassCost} is marked as truncated.
+ */
+public class AnalysisBudget {
+
+  public static final AnalysisBudget UNLIMITED = new AnalysisBudget(0, 0, 0);
+
+  private final long maxOperations;
+  private final long maxMethods;
+  private final long maxNanos;
+
+  public AnalysisBudget(long maxOperations, long maxMethods, long maxMillis) {
+    this.maxOperations = maxOperations;
+    this.maxMethods = maxMethods;
+    this.maxNanos = maxMillis * 1000000;
+  }
+
+  public boolean isUnlimited() {
+    return maxOperations <= 0 && maxMethods <= 0 && maxNanos <= 0;
+  }
+
+  public Meter start() {
+    return new Meter();
+  }
+
+  /**
+   * The work done on one class. Not thread safe; a class is costed on one
+   * thread.
+   */
+  public class Meter {
+    private final long startNanos = maxNanos > 0 ? System.nanoTime() : 0;
+    private long operationCount;
+    private long methodCount;
+    private boolean exhausted;
+    private boolean truncated;
+
+    public void methodVisited(int operations) {
+      methodCount++;
+      operationCount += operations;
+    }
+
+    /** True once any limit has been reached; stays true. */
+    public boolean isExhausted() {
+      if (!exhausted) {
+        exhausted = (maxOperations > 0 && operationCount >= maxOperations)
+            || (maxMethods > 0 && methodCount >= maxMethods)
+            || (maxNanos > 0 && System.nanoTime() - startNanos >= maxNanos);
+      }
+      return exhausted;
+    }
+
+    /** Records that a call was not followed because of the budget. */
+    public void truncate() {
+      truncated = true;
+    }
+
+    public boolean isTruncated() {
+      return truncated;
+    }
+
+    public long getOperationCount() {
+      return operationCount;
+    }
+
+    public long getMethodCount() {
+      return methodCount;
+    }
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+/**
+ * Receives the steps of an analysis as they happen, ex. to emit them as Java
+ * Flight Recorder events (see {@code com.google.test.metric.jfr}) or to count
+ * them in a {@link MetricsRegistry}. Set on the {@link ClassRepository}; there
+ * is no listener by default, and {@link CompositeAnalysisListener} combines
+ * several.
+ * <p>
+ * Each {@code ...Started} method returns a token which is passed back to the
+ * matching {@code ...Finished} method, so an implementation can time the step.
+ * Methods may be translated on several threads, so implementations have to be
+ * thread safe.
+ */
+public interface AnalysisListener {
+
+  /**
+   * A class was looked up in the repository.
+   *
+   * @param hit true if it had been parsed before.
+   */
+  void classLookedUp(String className, boolean hit);
+
+  Object resourceLookupStarted(String resourceName);
+
+  void resourceLookupFinished(Object token, boolean found);
+
+  Object classParseStarted(String className);
+
+  /**
+   * @param byteCount size of the class file.
+   */
+  void classParseFinished(Object token, int byteCount);
+
+  Object methodTranslationStarted(String className, String methodName);
+
+  void methodTranslationFinished(Object token, int blockCount, long pathCount,
+      int operationCount);
+
+  Object classCostStarted(String className);
+
+  void classCostFinished(Object token, long overallCost);
+
+  /**
+   * A method call is followed while computing a cost, see
+   * {@link TestabilityContext#getCalledMethod}.
+   */
+  void invocationFollowed(String className, String methodName);
+
+  /**
+   * The operations of a method are about to be evaluated while computing a
+   * cost, see {@link TestabilityContext#methodVisited}. Unlike
+   * {@link #methodTranslationFinished} this is called each time a method is
+   * reached, not once per method.
+   */
+  void methodEvaluated(int operationCount);
+
+  /**
+   * A warning was printed, ex. because a class or method was not found.
+   */
+  void warning(String message);
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Finds the classes and methods which are most expensive to analyze, so that
+ * pathological ones (generated parsers, giant switch tables) can be
+ * whitelisted or looked into. Enabled with {@code -profile N}.
+ * <p>
+ * A class is measured from looking it up in the repository until its cost is
+ * computed, including any other classes parsed on the way. A method is
+ * measured while it is decoded, see
+ * {@link com.google.test.metric.asm.MethodVisitorBuilder#buildMethodInfo()}.
+ * The block, path and operation counts of a class are the sums over the
+ * methods decoded while it was analyzed, so like its time they include the
+ * classes parsed on the way; a class which was parsed before, as a dependency
+ * of another, counts nothing. Only these running sums are kept between
+ * classes. Methods may be decoded on several threads, so all methods are
+ * synchronized.
+ */
+public class AnalysisProfiler {
+
+  public static class Sample implements Comparable<Sample> {
+    private final String name;
+    private final long nanos;
+    private final long allocatedBytes;
+    private final long blockCount;
+    private final long pathCount;
+    private final long operationCount;
+
+    public Sample(String name, long nanos, long allocatedBytes,
+        long blockCount, long pathCount, long operationCount) {
+      this.name = name;
+      this.nanos = nanos;
+      this.allocatedBytes = allocatedBytes;
+      this.blockCount = blockCount;
+      this.pathCount = pathCount;
+      this.operationCount = operationCount;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public long getNanos() {
+      return nanos;
+    }
+
+    public long getAllocatedBytes() {
+      return allocatedBytes;
+    }
+
+    public long getBlockCount() {
+      return blockCount;
+    }
+
+    public long getPathCount() {
+      return pathCount;
+    }
+
+    public long getOperationCount() {
+      return operationCount;
+    }
+
+    public int compareTo(Sample other) {
+      return nanos < other.nanos ? -1 : (nanos == other.nanos ? 0 : 1);
+    }
+
+    @Override
+    public String toString() {
+      return name + " " + nanos + "ns";
+    }
+  }
+
+  /**
+   * Readings taken when a measurement starts, see {@link #start()}.
+   */
+  public static class Start {
+    private final long allocatedBytes = RunStatistics.currentThreadAllocatedBytes();
+    private final long nanos = System.nanoTime();
+  }
+
+  private final int count;
+  private final PriorityQueue<Sample> slowestClasses = new PriorityQueue<Sample>();
+  private final PriorityQueue<Sample> slowestMethods = new PriorityQueue<Sample>();
+  /** Block, path and operation counts decoded since the last class. */
+  private final long[] decoded = new long[3];
+
+  /**
+   * @param count how many of the slowest classes and methods to keep.
+   */
+  public AnalysisProfiler(int count) {
+    this.count = count;
+  }
+
+  public Start start() {
+    return new Start();
+  }
+
+  public synchronized void classAnalyzed(String className, Start start) {
+    keep(slowestClasses, new Sample(className, System.nanoTime() - start.nanos,
+        allocatedSince(start), decoded[0], decoded[1], decoded[2]));
+    Arrays.fill(decoded, 0);
+  }
+
+  public synchronized void methodDecoded(String className, String methodName,
+      Start start, int blockCount, long pathCount, int operationCount) {
+    keep(slowestMethods, new Sample(className + "." + methodName,
+        System.nanoTime() - start.nanos, allocatedSince(start), blockCount,
+        pathCount, operationCount));
+    decoded[0] += blockCount;
+    decoded[1] += pathCount;
+    decoded[2] += operationCount;
+  }
+
+  private long allocatedSince(Start start) {
+    return RunStatistics.currentThreadAllocatedBytes() - start.allocatedBytes;
+  }
+
+  private void keep(PriorityQueue<Sample> slowest, Sample sample) {
+    if (slowest.size() < count) {
+      slowest.add(sample);
+    } else if (slowest.peek().compareTo(sample) < 0) {
+      slowest.poll();
+      slowest.add(sample);
+    }
+  }
+
+  /**
+   * @return the slowest classes, slowest first.
+   */
+  public synchronized List<Sample> getSlowestClasses() {
+    return sorted(slowestClasses);
+  }
+
+  /**
+   * @return the slowest methods, slowest first.
+   */
+  public synchronized List<Sample> getSlowestMethods() {
+    return sorted(slowestMethods);
+  }
+
+  private List<Sample> sorted(PriorityQueue<Sample> samples) {
+    List<Sample> sorted = new ArrayList<Sample>(samples);
+    Collections.sort(sorted, Collections.reverseOrder());
+    return sorted;
+  }
+
+  public void print(PrintStream out) {
+    print(out, "Slowest classes to analyze:", getSlowestClasses());
+    print(out, "Slowest methods to decode:", getSlowestMethods());
+  }
+
+  private void print(PrintStream out, String title, List<Sample> samples) {
+    out.println(title);
+    out.printf("%10s %10s %8s %10s %8s  %s%n", "ms", "KB", "blocks", "paths",
+        "ops", "name");
+    for (Sample sample : samples) {
+      out.printf("%10.1f %10s %8d %10d %8d  %s%n", sample.getNanos() / 1e6,
+          RunStatistics.isAllocationAvailable()
+              ? Long.toString(sample.getAllocatedBytes() / 1024) : "n/a",
+          sample.getBlockCount(), sample.getPathCount(),
+          sample.getOperationCount(), sample.getName());
+    }
+  }
+}
@@ -15,7 +15,10 @@
  */
 package com.google.test.metric;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ClassCost {
 
@@ -29,25 +32,65 @@ public class ClassCost {
   private final List<MethodCost> methods;
   private final String className;
   private long overallCost;
+  private Map<String, MethodCost> methodIndex;
+  private boolean aggregated = false;
+  private long totalComplexityCost;
+  private long highestMethodComplexityCost;
+  private long totalGlobalCost;
+  private long highestMethodGlobalCost;
+  private boolean truncated = false;
 
   public ClassCost(String className, List<MethodCost> methods) {
     this.className = className;
     this.methods = methods;
   }
 
+  /**
+   * A class whose overall cost is known but whose methods are not, ex. one
+   * read back from a partial report.
+   */
+  public ClassCost(String className, long overallCost) {
+    this(className, Collections.<MethodCost>emptyList());
+    this.overallCost = overallCost;
+  }
+
+  /**
+   * @param methodName method name and descriptor, without the class name.
+   */
   public MethodCost getMethodCost(String methodName) {
-    for (MethodCost cost : methods) {
-      if (cost.getMethodName().equals(className + "." + methodName)) {
-        return cost;
+    if (methodIndex == null) {
+      methodIndex = new HashMap<String, MethodCost>();
+      String prefix = className + ".";
+      for (MethodCost cost : methods) {
+        String name = cost.getMethodName();
+        if (name.startsWith(prefix)) {
+          methodIndex.put(name.substring(prefix.length()), cost);
+        }
       }
     }
-    throw new IllegalArgumentException("Method '" + methodName
-        + "' does not exist.");
+    MethodCost cost = methodIndex.get(methodName);
+    if (cost == null) {
+      throw new IllegalArgumentException("Method '" + methodName
+          + "' does not exist.");
+    }
+    return cost;
   }
 
   @Override
   public String toString() {
-    return className + " " + getOverallCost();
+    return className + " " + getOverallCost() + (truncated ? " (truncated)" : "");
+  }
+
+  /**
+   * True if computing the cost ran out of its {@link AnalysisBudget}, so some
+   * callees were left out and the cost is lower than it should be.
+   */
+  public boolean isTruncated() {
+    return truncated;
+  }
+
+  public void setTruncated(boolean truncated) {
+    this.truncated = truncated;
   }
 
   public String getClassName() {
@@ -59,45 +102,58 @@ public class ClassCost {
   }
 
   public long getTotalComplexityCost() {
-    long totalCost = 0;
-    for (MethodCost methodCost : getMethods()) {
-      totalCost += methodCost.getTotalComplexityCost();
-    }
-    return totalCost;
+    aggregate();
+    return totalComplexityCost;
   }
 
   public long getHighestMethodComplexityCost() {
-    long cost = 0;
-    for (MethodCost methodCost : getMethods()) {
-      if (methodCost.getTotalComplexityCost() > cost) {
-        cost = methodCost.getTotalComplexityCost();
-      }
-    }
-    return cost;
+    aggregate();
+    return highestMethodComplexityCost;
   }
 
   public long getTotalGlobalCost() {
-    long totalCost = 0;
-    for (MethodCost methodCost : getMethods()) {
-      totalCost += methodCost.getTotalGlobalCost();
-    }
-    return totalCost;
+    aggregate();
+    return totalGlobalCost;
   }
 
   public long getHighestMethodGlobalCost() {
-    long cost = 0;
-    for (MethodCost methodCost : getMethods()) {
-      if (methodCost.getTotalGlobalCost() > cost) {
-        cost = methodCost.getTotalGlobalCost();
-      }
+    aggregate();
+    return highestMethodGlobalCost;
+  }
+
+  /**
+   * Computes the totals and highest method costs in one pass over the
+   * methods. The method costs have to be linked.
+   */
+  private void aggregate() {
+    if (aggregated) {
+      return;
     }
-    return cost;
+    long totalComplexity = 0;
+    long highestComplexity = 0;
+    long totalGlobal = 0;
+    long highestGlobal = 0;
+    for (MethodCost methodCost : methods) {
+      long complexity = methodCost.getTotalComplexityCost();
+      long global = methodCost.getTotalGlobalCost();
+      totalComplexity += complexity;
+      highestComplexity = Math.max(highestComplexity, complexity);
+      totalGlobal += global;
+      highestGlobal = Math.max(highestGlobal, global);
+    }
+    totalComplexityCost = totalComplexity;
+    highestMethodComplexityCost = highestComplexity;
+    totalGlobalCost = totalGlobal;
+    highestMethodGlobalCost = highestGlobal;
+    aggregated = true;
   }
 
   public void link(CostModel costModel) {
     for (MethodCost methodCost : methods) {
       methodCost.link(costModel);
     }
+    aggregated = false;
+    aggregate();
     overallCost = costModel.computeClass(methods);
   }
 
@@ -16,6 +16,7 @@
 package com.google.test.metric;
 
 import com.google.classpath.ClasspathRootGroup;
+import com.google.test.metric.RunStatistics.Phase;
 import com.google.test.metric.asm.ClassInfoBuilderVisitor;
 import org.objectweb.asm.ClassReader;
 
@@ -23,11 +24,17 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 public class ClassRepository {
 
   private final Map<String, ClassInfo> classes = new HashMap<String, ClassInfo>();
+  private final RunStatistics statistics = new RunStatistics();
   private ClasspathRootGroup classpathRoots;
+  private Executor translationExecutor;
+  private int parallelTranslationThreshold;
+  private AnalysisProfiler profiler;
+  private AnalysisListener listener;
 
   public ClassRepository() {
   }
@@ -45,34 +52,51 @@ public class ClassRepository {
       return getClass(Object.class);
     }
     ClassInfo classInfo = classes.get(clazzName.replace('/', '.'));
+    if (listener != null) {
+      listener.classLookedUp(clazzName, classInfo != null);
+    }
     if (classInfo == null) {
-        classInfo = parseClass(inputStreamForClass(clazzName));
+        classInfo = parseClass(clazzName, inputStreamForClass(clazzName));
     }
     return classInfo;
   }
 
   private InputStream inputStreamForClass(String clazzName) {
     String classResource = clazzName.replace(".", "/") + ".class";
+    Object token = listener == null ? null
+        : listener.resourceLookupStarted(classResource);
     InputStream classBytes;
     if (classpathRoots != null) {
       classBytes = classpathRoots.getResourceAsStream(classResource);
     } else {
       classBytes = ClassLoader.getSystemResourceAsStream(classResource);
     }
+    if (listener != null) {
+      listener.resourceLookupFinished(token, classBytes != null);
+    }
     if (classBytes == null) {
       throw new ClassNotFoundException(clazzName);
     }
     return classBytes;
   }
 
-  private ClassInfo parseClass(InputStream classBytes) {
+  private ClassInfo parseClass(String clazzName, InputStream classBytes) {
+    Phase previous = statistics.enter(Phase.PARSE);
+    Object token = listener == null ? null
+        : listener.classParseStarted(clazzName);
     try {
       ClassReader classReader = new ClassReader(classBytes);
       ClassInfoBuilderVisitor visitor = new ClassInfoBuilderVisitor(this);
       classReader.accept(visitor, 0);
+      statistics.classParsed();
+      if (listener != null) {
+        listener.classParseFinished(token, classReader.b.length);
+      }
       return visitor.getClassInfo();
     } catch (IOException e) {
       throw new RuntimeException(e);
+    } finally {
+      statistics.exit(previous);
     }
   }
 
@@ -80,5 +104,51 @@ public class ClassRepository {
     classes.put(classInfo.getName(), classInfo);
   }
 
+  /**
+   * Classes are always parsed on the calling thread, but the methods of
+   * classes with at least {@code minMethodCount} methods are translated on the
+   * given executor. Pass null to translate everything on the calling thread.
+   */
+  public void setTranslationExecutor(Executor executor, int minMethodCount) {
+    this.translationExecutor = executor;
+    this.parallelTranslationThreshold = minMethodCount;
+  }
+
+  public Executor getTranslationExecutor() {
+    return translationExecutor;
+  }
+
+  public int getParallelTranslationThreshold() {
+    return parallelTranslationThreshold;
+  }
+
+  public RunStatistics getStatistics() {
+    return statistics;
+  }
+
+  /**
+   * @param profiler measures the decoding of every method, or null (the
+   *     default) to not measure anything.
+   */
+  public void setProfiler(AnalysisProfiler profiler) {
+    this.profiler = profiler;
+  }
+
+  public AnalysisProfiler getProfiler() {
+    return profiler;
+  }
+
+  /**
+   * @param listener is told about lookups, parsing, translation and cost
+   *     computation, or null (the default).
+   */
+  public void setListener(AnalysisListener listener) {
+    this.listener = listener;
+  }
+
+  public AnalysisListener getListener() {
+    return listener;
+  }
+
 }
 
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+/**
+ * Passes each step of the analysis on to several listeners, ex. to emit
+ * Flight Recorder events and count metrics in the same run. The token of a
+ * step holds the tokens of all listeners.
+ */
+public class CompositeAnalysisListener implements AnalysisListener {
+
+  private final AnalysisListener[] listeners;
+
+  public CompositeAnalysisListener(AnalysisListener... listeners) {
+    this.listeners = listeners.clone();
+  }
+
+  /**
+   * @return {@code second} if {@code first} is null and the other way around,
+   *         both of them combined otherwise
+   */
+  public static AnalysisListener combine(AnalysisListener first,
+      AnalysisListener second) {
+    if (first == null) {
+      return second;
+    } else if (second == null) {
+      return first;
+    }
+    return new CompositeAnalysisListener(first, second);
+  }
+
+  public void classLookedUp(String className, boolean hit) {
+    for (AnalysisListener listener : listeners) {
+      listener.classLookedUp(className, hit);
+    }
+  }
+
+  public Object resourceLookupStarted(String resourceName) {
+    Object[] tokens = new Object[listeners.length];
+    for (int i = 0; i < listeners.length; i++) {
+      tokens[i] = listeners[i].resourceLookupStarted(resourceName);
+    }
+    return tokens;
+  }
+
+  public void resourceLookupFinished(Object token, boolean found) {
+    Object[] tokens = (Object[]) token;
+    for (int i = 0; i < listeners.length; i++) {
+      listeners[i].resourceLookupFinished(tokens[i], found);
+    }
+  }
+
+  public Object classParseStarted(String className) {
+    Object[] tokens = new Object[listeners.length];
+    for (int i = 0; i < listeners.length; i++) {
+      tokens[i] = listeners[i].classParseStarted(className);
+    }
+    return tokens;
+  }
+
+  public void classParseFinished(Object token, int byteCount) {
+    Object[] tokens = (Object[]) token;
+    for (int i = 0; i < listeners.length; i++) {
+      listeners[i].classParseFinished(tokens[i], byteCount);
+    }
+  }
+
+  public Object methodTranslationStarted(String className, String methodName) {
+    Object[] tokens = new Object[listeners.length];
+    for (int i = 0; i < listeners.length; i++) {
+      tokens[i] = listeners[i].methodTranslationStarted(className, methodName);
+    }
+    return tokens;
+  }
+
+  public void methodTranslationFinished(Object token, int blockCount,
+      long pathCount, int operationCount) {
+    Object[] tokens = (Object[]) token;
+    for (int i = 0; i < listeners.length; i++) {
+      listeners[i].methodTranslationFinished(tokens[i], blockCount, pathCount,
+          operationCount);
+    }
+  }
+
+  public Object classCostStarted(String className) {
+    Object[] tokens = new Object[listeners.length];
+    for (int i = 0; i < listeners.length; i++) {
+      tokens[i] = listeners[i].classCostStarted(className);
+    }
+    return tokens;
+  }
+
+  public void classCostFinished(Object token, long overallCost) {
+    Object[] tokens = (Object[]) token;
+    for (int i = 0; i < listeners.length; i++) {
+      listeners[i].classCostFinished(tokens[i], overallCost);
+    }
+  }
+
+  public void invocationFollowed(String className, String methodName) {
+    for (AnalysisListener listener : listeners) {
+      listener.invocationFollowed(className, methodName);
+    }
+  }
+
+  public void methodEvaluated(int operationCount) {
+    for (AnalysisListener listener : listeners) {
+      listener.methodEvaluated(operationCount);
+    }
+  }
+
+  public void warning(String message) {
+    for (AnalysisListener listener : listeners) {
+      listener.warning(message);
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import com.google.test.metric.report.BinaryReportReader;
+import com.google.test.metric.report.ReportDiff;
+
+import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.Option;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prints the cost changes between two runs written with
+ * {@code Testability -print bin}.
+ */
+public class DiffReports {
+
+  @Option(name = "-threshold",
+      usage = "Only print classes and methods whose cost changed by at " +
+          "least N. Defaults to 1.")
+  int threshold = 1;
+
+  @Argument(metaVar = "before after",
+      usage = "The binary reports of the earlier and of the later run. The " +
+          "earlier report is held in memory, the later one is streamed.",
+      required = true)
+  List<String> reports = new ArrayList<String>();
+
+  private final PrintStream out;
+  private final PrintStream err;
+
+  public DiffReports(PrintStream out, PrintStream err) {
+    this.out = out;
+    this.err = err;
+  }
+
+  public static void main(String... args) {
+    main(System.out, System.err, args);
+  }
+
+  public static void main(PrintStream out, PrintStream err, String... args) {
+    DiffReports diff = new DiffReports(out, err);
+    try {
+      diff.parseArgs(args);
+      diff.execute();
+    } catch (CmdLineException ignored) { }
+  }
+
+  public void parseArgs(String... args) throws CmdLineException {
+    CmdLineParser parser = new CmdLineParser(this);
+    try {
+      parser.parseArgument(args);
+      if (reports.size() != 2) {
+        throw new CmdLineException("Expected two reports but got "
+            + reports.size());
+      }
+    } catch (CmdLineException e) {
+      err.println(e.getMessage() + "\n");
+      parser.setUsageWidth(120);
+      parser.printUsage(err);
+      throw new CmdLineException("Exiting...");
+    }
+  }
+
+  public void execute() throws CmdLineException {
+    BinaryReportReader before = open(reports.get(0));
+    try {
+      BinaryReportReader after = open(reports.get(1));
+      try {
+        new ReportDiff(out, threshold).diff(before, after);
+      } catch (IOException e) {
+        err.println("Can not compare reports: " + e.getMessage());
+        throw new CmdLineException("Exiting...");
+      } finally {
+        close(after);
+      }
+    } finally {
+      close(before);
+    }
+  }
+
+  private BinaryReportReader open(String file) throws CmdLineException {
+    try {
+      return new BinaryReportReader(new FileInputStream(file));
+    } catch (IOException e) {
+      err.println("Can not read report '" + file + "': " + e.getMessage());
+      throw new CmdLineException("Exiting...");
+    }
+  }
+
+  private void close(BinaryReportReader reader) {
+    try {
+      reader.close();
+    } catch (IOException ignored) {
+    }
+  }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+/**
+ * A field as it is referenced by a field instruction: owner class, name, type
+ * and whether it is static. This is all the method translation needs, so
+ * decoding a method does not have to load the owner class. The reference is
+ * resolved to the real {@link FieldInfo} of the owner class the first time
+ * the metric of the method is computed (see {@link MethodInfo}).
+ */
+public class FieldReference extends FieldInfo {
+
+  private final String owner;
+  private FieldInfo resolved;
+
+  public FieldReference(String owner, String name, Type type, boolean isStatic) {
+    super(null, name, type, false, isStatic, false);
+    this.owner = owner.replace('/', '.');
+  }
+
+  public String getOwner() {
+    return owner;
+  }
+
+  /**
+   * @return the field declared in the owner class (or one of its super
+   *         classes), a fake field if the owner does not declare it, or this
+   *         reference if the owner class can not be found.
+   */
+  public FieldInfo resolve(TestabilityContext context) {
+    if (resolved == null) {
+      resolved = lookup(context);
+    }
+    return resolved;
+  }
+
+  private FieldInfo lookup(TestabilityContext context) {
+    ClassInfo ownerClass;
+    try {
+      ownerClass = context.getClass(owner);
+    } catch (ClassNotFoundException e) {
+      context.reportError("WARNING: class not found: " + owner);
+      return this;
+    }
+    try {
+      return ownerClass.getField(getName());
+    } catch (FieldNotFoundException e) {
+      context.reportError("WARNING: field not found: " + getName());
+      return new FieldInfo(ownerClass, "FAKE:" + getName(), getType(), false,
+          isGlobal(), false);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return owner + "." + getName() + "{" + type + "}";
+  }
+
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import java.io.PrintStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Estimates how much heap the in-memory program model retains, split up by
+ * category, so that the memory needed for a classpath can be predicted and
+ * regressions spotted. Enabled with {@code -footprint}.
+ * <p>
+ * The estimate is a structural walk over everything reachable from the
+ * objects passed to {@link #add(Object)}, each object counted once. Object
+ * sizes are computed from their fields, assuming a 64 bit VM with compressed
+ * references; JDK collections are not looked into but charged a fixed
+ * overhead per element. An object which is not part of the model itself
+ * (a list, a string) is charged to the category of the model object which
+ * holds it, or of its elements when it is a collection of model objects.
+ */
+public class HeapFootprint {
+
+  public enum Category {
+    CLASSES("classes and methods"),
+    OPERATIONS("operations"),
+    VARIABLES("variables and types"),
+    COSTS("method costs"),
+    REPORTS("report buffers"),
+    OTHER("other");
+
+    private final String description;
+
+    private Category(String description) {
+      this.description = description;
+    }
+
+    public String getDescription() {
+      return description;
+    }
+  }
+
+  static final int OBJECT_HEADER = 12;
+  static final int ARRAY_HEADER = 16;
+  static final int REFERENCE = 4;
+  static final int ALIGNMENT = 8;
+  /** Per element of a linked list or deque: one node. */
+  static final int LINKED_ENTRY = 24;
+  /** Per entry of a hash map or set: one node and its table slot. */
+  static final int HASHED_ENTRY = 36;
+
+  private static final String OPERATION_PACKAGE =
+      "com.google.test.metric.method.op.";
+  private static final String REPORT_PACKAGE = "com.google.test.metric.report.";
+
+  private final Map<Object, Object> visited = new IdentityHashMap<Object, Object>();
+  private final Map<Class<?>, Long> shallowSizes = new HashMap<Class<?>, Long>();
+  private final Map<Class<?>, List<Field>> referenceFields =
+      new HashMap<Class<?>, List<Field>>();
+  private final long[] bytes = new long[Category.values().length];
+  private final long[] objects = new long[Category.values().length];
+  private long classCount;
+  private long methodCount;
+
+  /**
+   * Adds everything reachable from {@code root} which has not been counted
+   * yet. Objects outside of the model are charged to {@link Category#OTHER}.
+   */
+  public void add(Object root) {
+    List<Object> pending = new ArrayList<Object>();
+    List<Category> pendingCategories = new ArrayList<Category>();
+    pending.add(root);
+    pendingCategories.add(Category.OTHER);
+    while (!pending.isEmpty()) {
+      int last = pending.size() - 1;
+      Object object = pending.remove(last);
+      Category parent = pendingCategories.remove(last);
+      if (object == null || object instanceof Class<?>
+          || visited.put(object, object) != null) {
+        continue;
+      }
+      Category category = categoryOf(object, parent);
+      count(object, category);
+      for (Object child : children(object)) {
+        if (child != null && !visited.containsKey(child)) {
+          pending.add(child);
+          pendingCategories.add(category);
+        }
+      }
+    }
+  }
+
+  private void count(Object object, Category category) {
+    long size;
+    if (object instanceof String) {
+      size = sizeOfString((String) object);
+    } else if (object.getClass().isArray()) {
+      size = sizeOfArray(object);
+    } else {
+      size = shallowSize(object.getClass());
+      if (object instanceof Collection<?>) {
+        size += sizeOfEntries(object, ((Collection<?>) object).size());
+      } else if (object instanceof Map<?, ?>) {
+        size += sizeOfEntries(object, ((Map<?, ?>) object).size());
+      }
+    }
+    bytes[category.ordinal()] += size;
+    objects[category.ordinal()]++;
+    if (object instanceof ClassInfo) {
+      classCount++;
+    } else if (object instanceof MethodInfo) {
+      methodCount++;
+    }
+  }
+
+  private Category categoryOf(Object object, Category parent) {
+    Category category = modelCategoryOf(object);
+    if (category != null) {
+      return category;
+    }
+    Object element = firstElement(object);
+    category = element == null ? null : modelCategoryOf(element);
+    return category == null ? parent : category;
+  }
+
+  static Category modelCategoryOf(Object object) {
+    if (object instanceof ClassInfo || object instanceof MethodInfo) {
+      return Category.CLASSES;
+    } else if (object instanceof Variable || object instanceof Type) {
+      return Category.VARIABLES;
+    } else if (object instanceof ClassCost || object instanceof MethodCost
+        || object instanceof LineNumberCost
+        || object instanceof GlobalStateCost) {
+      return Category.COSTS;
+    }
+    String name = object.getClass().getName();
+    if (name.startsWith(OPERATION_PACKAGE)) {
+      return Category.OPERATIONS;
+    } else if (name.startsWith(REPORT_PACKAGE)) {
+      return Category.REPORTS;
+    }
+    return null;
+  }
+
+  private Object firstElement(Object container) {
+    Collection<?> elements = null;
+    if (container instanceof Collection<?>) {
+      elements = (Collection<?>) container;
+    } else if (container instanceof Map<?, ?>) {
+      elements = ((Map<?, ?>) container).values();
+    } else if (container instanceof Object[]) {
+      Object[] array = (Object[]) container;
+      return array.length == 0 ? null : array[0];
+    }
+    return elements == null || elements.isEmpty()
+        ? null : elements.iterator().next();
+  }
+
+  private List<Object> children(Object object) {
+    List<Object> children = new ArrayList<Object>();
+    if (object instanceof Object[]) {
+      for (Object element : (Object[]) object) {
+        children.add(element);
+      }
+    } else if (object instanceof Collection<?>) {
+      children.addAll((Collection<?>) object);
+    } else if (object instanceof Map<?, ?>) {
+      children.addAll(((Map<?, ?>) object).keySet());
+      children.addAll(((Map<?, ?>) object).values());
+    } else if (!isJdkClass(object.getClass())) {
+      for (Field field : referenceFields(object.getClass())) {
+        try {
+          children.add(field.get(object));
+        } catch (IllegalAccessException e) {
+          // Not reachable, the field was made accessible.
+        }
+      }
+    }
+    return children;
+  }
+
+  private static boolean isJdkClass(Class<?> clazz) {
+    String name = clazz.getName();
+    return name.startsWith("java.") || name.startsWith("javax.")
+        || name.startsWith("sun.") || name.startsWith("com.sun.")
+        || name.startsWith("jdk.");
+  }
+
+  private List<Field> referenceFields(Class<?> clazz) {
+    List<Field> fields = referenceFields.get(clazz);
+    if (fields == null) {
+      fields = new ArrayList<Field>();
+      for (Class<?> type = clazz; type != null && !isJdkClass(type);
+          type = type.getSuperclass()) {
+        for (Field field : type.getDeclaredFields()) {
+          if (!Modifier.isStatic(field.getModifiers())
+              && !field.getType().isPrimitive()) {
+            field.setAccessible(true);
+            fields.add(field);
+          }
+        }
+      }
+      referenceFields.put(clazz, fields);
+    }
+    return fields;
+  }
+
+  long shallowSize(Class<?> clazz) {
+    Long size = shallowSizes.get(clazz);
+    if (size == null) {
+      long fieldBytes = 0;
+      for (Class<?> type = clazz; type != null; type = type.getSuperclass()) {
+        for (Field field : type.getDeclaredFields()) {
+          if (!Modifier.isStatic(field.getModifiers())) {
+            fieldBytes += sizeOf(field.getType());
+          }
+        }
+      }
+      size = align(OBJECT_HEADER + fieldBytes);
+      shallowSizes.put(clazz, size);
+    }
+    return size;
+  }
+
+  private static long sizeOfArray(Object array) {
+    return align(ARRAY_HEADER
+        + (long) Array.getLength(array) * sizeOf(array.getClass().getComponentType()));
+  }
+
+  /** The string with a one byte per character value array. */
+  private long sizeOfString(String string) {
+    return shallowSize(String.class) + align(ARRAY_HEADER + string.length());
+  }
+
+  private static long sizeOfEntries(Object container, int size) {
+    if (container instanceof RandomAccess) {
+      return align(ARRAY_HEADER + (long) size * REFERENCE);
+    } else if (container instanceof Map<?, ?>
+        || container instanceof Set<?>) {
+      return align(ARRAY_HEADER + (long) size * HASHED_ENTRY);
+    }
+    return (long) size * LINKED_ENTRY;
+  }
+
+  private static int sizeOf(Class<?> type) {
+    if (type == long.class || type == double.class) {
+      return 8;
+    } else if (type == int.class || type == float.class) {
+      return 4;
+    } else if (type == short.class || type == char.class) {
+      return 2;
+    } else if (type == byte.class || type == boolean.class) {
+      return 1;
+    }
+    return REFERENCE;
+  }
+
+  private static long align(long size) {
+    return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+  }
+
+  public long getBytes(Category category) {
+    return bytes[category.ordinal()];
+  }
+
+  public long getObjectCount(Category category) {
+    return objects[category.ordinal()];
+  }
+
+  public long getTotalBytes() {
+    long total = 0;
+    for (long categoryBytes : bytes) {
+      total += categoryBytes;
+    }
+    return total;
+  }
+
+  public long getTotalObjectCount() {
+    long total = 0;
+    for (long categoryObjects : objects) {
+      total += categoryObjects;
+    }
+    return total;
+  }
+
+  /** Number of {@link ClassInfo}s counted, for the per class averages. */
+  public long getClassCount() {
+    return classCount;
+  }
+
+  public long getMethodCount() {
+    return methodCount;
+  }
+
+  public long getBytesPerClass(Category category) {
+    return classCount == 0 ? 0 : getBytes(category) / classCount;
+  }
+
+  public void print(PrintStream out) {
+    out.printf("Estimated heap footprint of %d classes and %d methods:%n",
+        classCount, methodCount);
+    out.printf("%25s %10s %10s %12s%n", "Category", "Objects", "KB",
+        "Bytes/class");
+    for (Category category : Category.values()) {
+      out.printf("%25s %10d %10d %12d%n", category.getDescription(),
+          getObjectCount(category), getBytes(category) / 1024,
+          getBytesPerClass(category));
+    }
+    out.printf("%25s %10d %10d %12d%n", "total", getTotalObjectCount(),
+        getTotalBytes() / 1024,
+        classCount == 0 ? 0 : getTotalBytes() / classCount);
+  }
+}
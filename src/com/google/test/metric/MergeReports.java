@@ -0,0 +1,123 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import com.google.test.metric.report.HtmlReport;
+import com.google.test.metric.report.SummaryReport;
+import com.google.test.metric.report.TextReport;
+
+import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.Option;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Combines the partial reports written by the shards of an analysis
+ * ({@code Testability -shard I/N -print partial}) into the summary a single
+ * run would have printed. The shards and the merge have to use the same
+ * cost thresholds and worst offender count.
+ */
+public class MergeReports {
+
+  @Option(name = "-maxExcellentCost",
+      usage = "Maximum Total Class cost to be classify it as 'excellent'.")
+  int maxExcellentCost = 50;
+
+  @Option(name = "-maxAcceptableCost",
+      usage = "Maximum Total Class cost to be classify it as 'acceptable'.")
+  int maxAcceptableCost = 100;
+
+  @Option(name = "-worstOffenderCount",
+      usage = "Print N number of worst offending classes.")
+  int worstOffenderCount = 20;
+
+  @Option(name = "-print",
+      usage = "summary: (default) print package summary information.\n" +
+              "html: print package summary information as HTML.")
+  String printer = "summary";
+
+  @Argument(metaVar = "partial reports",
+      usage = "Partial report files written with -print partial.",
+      required = true)
+  List<String> partials = new ArrayList<String>();
+
+  private final PrintStream out;
+  private final PrintStream err;
+
+  public MergeReports(PrintStream out, PrintStream err) {
+    this.out = out;
+    this.err = err;
+  }
+
+  public static void main(String... args) {
+    main(System.out, System.err, args);
+  }
+
+  public static void main(PrintStream out, PrintStream err, String... args) {
+    MergeReports merge = new MergeReports(out, err);
+    try {
+      merge.parseArgs(args);
+      merge.execute();
+    } catch (CmdLineException ignored) { }
+  }
+
+  public void parseArgs(String... args) throws CmdLineException {
+    CmdLineParser parser = new CmdLineParser(this);
+    try {
+      parser.parseArgument(args);
+    } catch (CmdLineException e) {
+      err.println(e.getMessage() + "\n");
+      parser.setUsageWidth(120);
+      parser.printUsage(err);
+      throw new CmdLineException("Exiting...");
+    }
+  }
+
+  public void execute() throws CmdLineException {
+    SummaryReport report;
+    if (printer.equals("summary")) {
+      report = new TextReport(out, maxExcellentCost, maxAcceptableCost, worstOffenderCount);
+    } else if (printer.equals("html")) {
+      report = new HtmlReport(out, maxExcellentCost, maxAcceptableCost, worstOffenderCount);
+    } else {
+      throw new CmdLineException("Don't understand '-print' option '"
+          + printer + "'");
+    }
+    report.printHeader();
+    for (String partial : partials) {
+      try {
+        FileReader reader = new FileReader(partial);
+        try {
+          report.readPartial(reader);
+        } finally {
+          reader.close();
+        }
+      } catch (IOException e) {
+        err.println("Can not read partial report '" + partial + "': "
+            + e.getMessage());
+        throw new CmdLineException("Exiting...");
+      }
+    }
+    report.printFooter();
+  }
+
+}
@@ -21,6 +21,7 @@ import java.util.List;
 
 import com.google.test.metric.asm.Visibility;
 import com.google.test.metric.method.op.turing.Operation;
+import com.google.test.metric.method.op.turing.OperationTable;
 
 public class MethodInfo {
 
@@ -32,7 +33,8 @@ public class MethodInfo {
   private final String desc;
   private final long cyclomaticComplexity;
   private final Visibility visibility;
-  private final List<Operation> operations;
+  private OperationTable operations;
+  private boolean fieldsResolved;
   private final int startingLineNumber;
 
   public MethodInfo(ClassInfo classInfo, String methodName,
@@ -49,7 +51,7 @@ public class MethodInfo {
     this.localVariables = localVariables;
     this.cyclomaticComplexity = cylomaticComplexity;
     this.visibility = visibility;
-    this.operations = operations;
+    this.operations = OperationTable.encode(operations);
   }
 
   public String getNameDesc() {
@@ -89,8 +91,29 @@ public class MethodInfo {
     return visibility;
   }
 
+  /**
+   * Operations are kept encoded in an {@link OperationTable}, so this creates
+   * new {@link Operation} objects on every call. Use for tests and debugging.
+   */
   public List<Operation> getOperations() {
-    return unmodifiableList(operations);
+    return unmodifiableList(getOperationTable().toOperations());
+  }
+
+  public synchronized OperationTable getOperationTable() {
+    return operations;
+  }
+
+  /**
+   * Field instructions are decoded as {@link FieldReference}s so that parsing
+   * a class does not parse the owners of all the fields it touches. They are
+   * resolved here, once, when the metric of the method is first computed.
+   */
+  private synchronized OperationTable resolveFields(TestabilityContext context) {
+    if (!fieldsResolved) {
+      operations = operations.resolveFields(context);
+      fieldsResolved = true;
+    }
+    return operations;
   }
 
   public boolean isStatic() {
@@ -133,9 +156,9 @@ public class MethodInfo {
   }
 
   public void computeMetric(TestabilityContext context) {
-    for (Operation operation : getOperations()) {
-      operation.computeMetric(context, this);
-    }
+    OperationTable table = resolveFields(context);
+    context.methodVisited(table.size());
+    table.computeMetric(context, this);
   }
 
   public boolean isStaticConstructor() {
@@ -20,6 +20,7 @@ import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 
+import com.google.test.metric.RunStatistics.Phase;
 import com.google.test.metric.asm.Visibility;
 
 public class MetricComputer {
@@ -28,13 +29,39 @@ public class MetricComputer {
   private final PrintStream err;
   private final WhiteList whitelist;
   private final CostModel costModel;
+  private final SummaryPack summaryPack;
+  private AnalysisBudget budget = AnalysisBudget.UNLIMITED;
 
   public MetricComputer(ClassRepository classRepository, PrintStream err,
       WhiteList whitelist, CostModel costModel) {
+    this(classRepository, err, whitelist, costModel, null);
+  }
+
+  public MetricComputer(ClassRepository classRepository, PrintStream err,
+      WhiteList whitelist, CostModel costModel, SummaryPack summaryPack) {
     this.classRepository = classRepository;
     this.err = err;
     this.whitelist = whitelist;
     this.costModel = costModel;
+    this.summaryPack = summaryPack;
+  }
+
+  /**
+   * Limits the work done for each class given to {@link #compute(ClassInfo)},
+   * or for each method given to {@link #compute(MethodInfo)} and
+   * {@link #computeCallCost(MethodInfo)}.
+   */
+  public void setBudget(AnalysisBudget budget) {
+    this.budget = budget;
+  }
+
+  public AnalysisBudget getBudget() {
+    return budget;
+  }
+
+  private TestabilityContext newContext(AnalysisBudget.Meter meter) {
+    return new TestabilityContext(classRepository, err, whitelist, costModel,
+        summaryPack, meter);
   }
 
   /* used for testing */
@@ -45,8 +72,11 @@ public class MetricComputer {
   }
 
   public MethodCost compute(MethodInfo method) {
-    TestabilityContext context = new TestabilityContext(classRepository, err,
-        whitelist, costModel);
+    return compute(method, budget.start());
+  }
+
+  private MethodCost compute(MethodInfo method, AnalysisBudget.Meter meter) {
+    TestabilityContext context = newContext(meter);
     addStaticCost(method, context);
     addConstructorCost(method, context);
     addSetterInjection(method, context);
@@ -56,6 +86,30 @@ public class MetricComputer {
     return context.getLinkedMethodCost(method);
   }
 
+  /**
+   * Cost of the method when it is called: the method on its own, without the
+   * cost of constructing its object and without anything being injectable.
+   * This is what gets stored in a {@link SummaryPack}.
+   */
+  public MethodCost computeCallCost(MethodInfo method) {
+    TestabilityContext context = newContext(budget.start());
+    method.computeMetric(context);
+    return context.getLinkedMethodCost(method);
+  }
+
+  /**
+   * Adds the cost of the method, computed as by
+   * {@link #computeCallCost(MethodInfo)}, to the pack, along with whether the
+   * method returns global state.
+   */
+  public void summarize(MethodInfo method, SummaryPack pack) {
+    TestabilityContext context = newContext(budget.start());
+    method.computeMetric(context);
+    boolean returnsGlobal = !method.getNameDesc().endsWith(")V")
+        && context.isGlobal(context.getReturnValue());
+    pack.add(method, context.getLinkedMethodCost(method), returnsGlobal);
+  }
+
   private void addSetterInjection(MethodInfo baseMethod, TestabilityContext context) {
     for (MethodInfo method : baseMethod.getClassInfo().getMethods()) {
       if (method.getName().startsWith("set")) {
@@ -131,13 +185,37 @@ public class MetricComputer {
   }
 
   public ClassCost compute(ClassInfo clazz) {
-    List<MethodCost> methods = new LinkedList<MethodCost>();
-    for (MethodInfo method : clazz.getMethods()) {
-      methods.add(compute(method));
+    RunStatistics statistics = classRepository.getStatistics();
+    Phase previous = statistics.enter(Phase.COMPUTE);
+    AnalysisListener listener = classRepository.getListener();
+    Object token = listener == null ? null
+        : listener.classCostStarted(clazz.getName());
+    try {
+      AnalysisBudget.Meter meter = budget.start();
+      List<MethodCost> methods = new LinkedList<MethodCost>();
+      for (MethodInfo method : clazz.getMethods()) {
+        methods.add(compute(method, meter));
+      }
+      ClassCost classCost = new ClassCost(clazz.getName(), methods);
+      classCost.link(costModel);
+      if (meter.isTruncated()) {
+        classCost.setTruncated(true);
+        String message = "WARNING: cost of class " + clazz.getName()
+            + " is truncated, its budget ran out after visiting "
+            + meter.getMethodCount() + " methods with "
+            + meter.getOperationCount() + " operations";
+        err.println(message);
+        if (listener != null) {
+          listener.warning(message);
+        }
+      }
+      if (listener != null) {
+        listener.classCostFinished(token, classCost.getOverallCost());
+      }
+      return classCost;
+    } finally {
+      statistics.exit(previous);
     }
-    ClassCost classCost = new ClassCost(clazz.getName(), methods);
-    classCost.link(costModel);
-    return classCost;
   }
 
 }
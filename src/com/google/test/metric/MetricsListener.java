@@ -0,0 +1,176 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import com.google.test.metric.MetricsRegistry.Counter;
+import com.google.test.metric.MetricsRegistry.Gauge;
+import com.google.test.metric.MetricsRegistry.Histogram;
+
+/**
+ * Counts the steps of the analysis in a {@link MetricsRegistry}: classes
+ * looked up, parsed and analyzed, class file bytes read, methods and
+ * operations translated, methods and operations evaluated, invocations
+ * followed and warnings, and the latency
+ * of looking up, parsing, translating and costing. The cache hit ratio and
+ * the heap in use are gauges. Several repositories may report to the same
+ * registry, so that a service sees the totals over all its analyses.
+ */
+public class MetricsListener implements AnalysisListener {
+
+  private final Counter classCacheHits;
+  private final Counter classCacheMisses;
+  private final Counter resourcesNotFound;
+  private final Counter classesParsed;
+  private final Counter classBytesRead;
+  private final Counter methodsTranslated;
+  private final Counter operationsTranslated;
+  private final Counter classesAnalyzed;
+  private final Counter methodsEvaluated;
+  private final Counter operationsEvaluated;
+  private final Counter invocationsFollowed;
+  private final Counter warnings;
+  private final Histogram resourceLookupLatency;
+  private final Histogram parseLatency;
+  private final Histogram translationLatency;
+  private final Histogram costLatency;
+
+  public MetricsListener(MetricsRegistry registry) {
+    classCacheHits = registry.counter("testability_class_cache_hits_total",
+        "Class lookups answered from the repository.");
+    classCacheMisses = registry.counter("testability_class_cache_misses_total",
+        "Class lookups which had to read the class from the classpath.");
+    resourcesNotFound = registry.counter("testability_resources_not_found_total",
+        "Class files which were not found on the classpath.");
+    classesParsed = registry.counter("testability_classes_parsed_total",
+        "Class files parsed.");
+    classBytesRead = registry.counter("testability_class_bytes_read_total",
+        "Bytes of class files parsed.");
+    methodsTranslated = registry.counter("testability_methods_translated_total",
+        "Methods translated into operations.");
+    operationsTranslated = registry.counter(
+        "testability_operations_translated_total",
+        "Operations the methods were translated into.");
+    classesAnalyzed = registry.counter("testability_classes_analyzed_total",
+        "Classes whose cost was computed.");
+    methodsEvaluated = registry.counter("testability_methods_evaluated_total",
+        "Methods whose operations were evaluated while computing costs, "
+            + "counted each time a method is reached.");
+    operationsEvaluated = registry.counter(
+        "testability_operations_evaluated_total",
+        "Operations evaluated while computing costs.");
+    invocationsFollowed = registry.counter(
+        "testability_invocations_followed_total",
+        "Method calls followed while computing costs.");
+    warnings = registry.counter("testability_warnings_total",
+        "Warnings, ex. about classes or methods which were not found.");
+    resourceLookupLatency = registry.latency(
+        "testability_resource_lookup_seconds",
+        "Time to find and read a class file.");
+    parseLatency = registry.latency("testability_class_parse_seconds",
+        "Time to parse a class file, including translating its methods and "
+            + "parsing its supertypes.");
+    translationLatency = registry.latency(
+        "testability_method_translation_seconds",
+        "Time to translate a method into operations.");
+    costLatency = registry.latency("testability_class_cost_seconds",
+        "Time to compute the cost of a class, including parsing the classes "
+            + "it calls.");
+    if (registry.get("testability_class_cache_hit_ratio") == null) {
+      registry.register(new Gauge("testability_class_cache_hit_ratio",
+          "Share of class lookups answered from the repository.") {
+        @Override
+        public double get() {
+          return getCacheHitRatio();
+        }
+      });
+    }
+    if (registry.get("testability_heap_used_bytes") == null) {
+      registry.register(new Gauge("testability_heap_used_bytes",
+          "Heap in use by the process.") {
+        @Override
+        public double get() {
+          Runtime runtime = Runtime.getRuntime();
+          return runtime.totalMemory() - runtime.freeMemory();
+        }
+      });
+    }
+  }
+
+  /** The share of class lookups answered from the repository, 0 if none. */
+  public double getCacheHitRatio() {
+    long hits = classCacheHits.get();
+    long lookups = hits + classCacheMisses.get();
+    return lookups == 0 ? 0 : (double) hits / lookups;
+  }
+
+  public void classLookedUp(String className, boolean hit) {
+    (hit ? classCacheHits : classCacheMisses).increment();
+  }
+
+  public Object resourceLookupStarted(String resourceName) {
+    return System.nanoTime();
+  }
+
+  public void resourceLookupFinished(Object token, boolean found) {
+    resourceLookupLatency.observeNanos(System.nanoTime() - (Long) token);
+    if (!found) {
+      resourcesNotFound.increment();
+    }
+  }
+
+  public Object classParseStarted(String className) {
+    return System.nanoTime();
+  }
+
+  public void classParseFinished(Object token, int byteCount) {
+    parseLatency.observeNanos(System.nanoTime() - (Long) token);
+    classesParsed.increment();
+    classBytesRead.add(byteCount);
+  }
+
+  public Object methodTranslationStarted(String className, String methodName) {
+    return System.nanoTime();
+  }
+
+  public void methodTranslationFinished(Object token, int blockCount,
+      long pathCount, int operationCount) {
+    translationLatency.observeNanos(System.nanoTime() - (Long) token);
+    methodsTranslated.increment();
+    operationsTranslated.add(operationCount);
+  }
+
+  public Object classCostStarted(String className) {
+    return System.nanoTime();
+  }
+
+  public void classCostFinished(Object token, long overallCost) {
+    costLatency.observeNanos(System.nanoTime() - (Long) token);
+    classesAnalyzed.increment();
+  }
+
+  public void invocationFollowed(String className, String methodName) {
+    invocationsFollowed.increment();
+  }
+
+  public void methodEvaluated(int operationCount) {
+    methodsEvaluated.increment();
+    operationsEvaluated.add(operationCount);
+  }
+
+  public void warning(String message) {
+    warnings.increment();
+  }
+}
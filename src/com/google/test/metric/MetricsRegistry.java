@@ -0,0 +1,270 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters, gauges and latency histograms of a process which embeds the
+ * analysis, readable through this API and dumpable in the Prometheus text
+ * exposition format. {@link MetricsListener} fills in the standard metrics of
+ * the analysis; enabled in Testability with {@code -metrics FILE}.
+ * <p>
+ * Counters and histograms are updated from the analysis threads without
+ * locks: each thread adds to one of several stripes, each on its own cache
+ * line, and reading sums up the stripes. Metrics are created once by name;
+ * creating one under an existing name returns the existing one.
+ */
+public class MetricsRegistry {
+
+  private static final int STRIPES = 16;
+  /** Longs per stripe, so that stripes do not share a cache line. */
+  private static final int PADDING = 8;
+
+  /** Upper bounds of the latency buckets in seconds, 10us to 10s. */
+  public static final double[] LATENCY_BUCKETS = {0.00001, 0.000025, 0.00005,
+      0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1,
+      0.25, 0.5, 1, 2.5, 5, 10};
+
+  public abstract static class Metric {
+    private final String name;
+    private final String help;
+
+    Metric(String name, String help) {
+      this.name = name;
+      this.help = help;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getHelp() {
+      return help;
+    }
+
+    abstract String getType();
+
+    abstract void writeSamples(PrintStream out);
+  }
+
+  public static class Counter extends Metric {
+    private final AtomicLongArray stripes = new AtomicLongArray(STRIPES * PADDING);
+
+    Counter(String name, String help) {
+      super(name, help);
+    }
+
+    public void increment() {
+      add(1);
+    }
+
+    public void add(long value) {
+      stripes.addAndGet(stripe(), value);
+    }
+
+    public long get() {
+      long sum = 0;
+      for (int i = 0; i < STRIPES; i++) {
+        sum += stripes.get(i * PADDING);
+      }
+      return sum;
+    }
+
+    @Override
+    String getType() {
+      return "counter";
+    }
+
+    @Override
+    void writeSamples(PrintStream out) {
+      out.println(getName() + " " + get());
+    }
+  }
+
+  public abstract static class Gauge extends Metric {
+    public Gauge(String name, String help) {
+      super(name, help);
+    }
+
+    public abstract double get();
+
+    @Override
+    String getType() {
+      return "gauge";
+    }
+
+    @Override
+    void writeSamples(PrintStream out) {
+      out.println(getName() + " " + get());
+    }
+  }
+
+  public static class Histogram extends Metric {
+    private final double[] bounds;
+    /** The non-cumulative bucket counts; the last one is for +Inf. */
+    private final Counter[] buckets;
+    private final Counter sumNanos;
+
+    Histogram(String name, String help, double[] bounds) {
+      super(name, help);
+      this.bounds = bounds.clone();
+      buckets = new Counter[bounds.length + 1];
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = new Counter(name, help);
+      }
+      sumNanos = new Counter(name, help);
+    }
+
+    public void observeNanos(long nanos) {
+      double seconds = nanos / 1e9;
+      int bucket = 0;
+      while (bucket < bounds.length && seconds > bounds[bucket]) {
+        bucket++;
+      }
+      buckets[bucket].increment();
+      sumNanos.add(nanos);
+    }
+
+    public long getCount() {
+      long count = 0;
+      for (Counter bucket : buckets) {
+        count += bucket.get();
+      }
+      return count;
+    }
+
+    public double getSumSeconds() {
+      return sumNanos.get() / 1e9;
+    }
+
+    /** The number of observations of at most {@code seconds}. */
+    public long getCountAtMost(double seconds) {
+      long count = 0;
+      for (int i = 0; i < bounds.length && bounds[i] <= seconds; i++) {
+        count += buckets[i].get();
+      }
+      return count;
+    }
+
+    @Override
+    String getType() {
+      return "histogram";
+    }
+
+    @Override
+    void writeSamples(PrintStream out) {
+      long cumulative = 0;
+      for (int i = 0; i < bounds.length; i++) {
+        cumulative += buckets[i].get();
+        out.println(getName() + "_bucket{le=\"" + bounds[i] + "\"} " + cumulative);
+      }
+      cumulative += buckets[bounds.length].get();
+      out.println(getName() + "_bucket{le=\"+Inf\"} " + cumulative);
+      out.println(getName() + "_sum " + getSumSeconds());
+      out.println(getName() + "_count " + cumulative);
+    }
+  }
+
+  private final Map<String, Metric> metrics = new LinkedHashMap<String, Metric>();
+
+  private static int stripe() {
+    return (int) (Thread.currentThread().getId() % STRIPES) * PADDING;
+  }
+
+  public Counter counter(String name, String help) {
+    synchronized (metrics) {
+      Metric metric = metrics.get(name);
+      if (metric == null) {
+        metric = new Counter(name, help);
+        metrics.put(name, metric);
+      }
+      return (Counter) metric;
+    }
+  }
+
+  /** Seconds, with the {@link #LATENCY_BUCKETS}. */
+  public Histogram latency(String name, String help) {
+    synchronized (metrics) {
+      Metric metric = metrics.get(name);
+      if (metric == null) {
+        metric = new Histogram(name, help, LATENCY_BUCKETS);
+        metrics.put(name, metric);
+      }
+      return (Histogram) metric;
+    }
+  }
+
+  public <T extends Gauge> T register(T gauge) {
+    synchronized (metrics) {
+      if (metrics.containsKey(gauge.getName())) {
+        throw new IllegalArgumentException("There already is a metric named '"
+            + gauge.getName() + "'.");
+      }
+      metrics.put(gauge.getName(), gauge);
+      return gauge;
+    }
+  }
+
+  /** @return the metric with the given name, or null. */
+  public Metric get(String name) {
+    synchronized (metrics) {
+      return metrics.get(name);
+    }
+  }
+
+  public List<Metric> getMetrics() {
+    synchronized (metrics) {
+      return new ArrayList<Metric>(metrics.values());
+    }
+  }
+
+  public void writePrometheus(PrintStream out) {
+    for (Metric metric : getMetrics()) {
+      out.println("# HELP " + metric.getName() + " " + metric.getHelp());
+      out.println("# TYPE " + metric.getName() + " " + metric.getType());
+      metric.writeSamples(out);
+    }
+    out.flush();
+  }
+
+  /**
+   * Writes to a temporary file next to {@code file} and renames it, so that a
+   * scraper never reads a half written file.
+   */
+  public void writePrometheus(File file) throws IOException {
+    File temporary = new File(file.getPath() + ".tmp");
+    PrintStream out = new PrintStream(new FileOutputStream(temporary));
+    try {
+      writePrometheus(out);
+    } finally {
+      out.close();
+    }
+    file.delete();
+    if (!temporary.renameTo(file)) {
+      throw new IOException("Can not rename '" + temporary + "' to '" + file
+          + "'");
+    }
+  }
+}
@@ -0,0 +1,448 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.Option;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Runs the standard performance scenarios, a full analysis of the bundled
+ * jars and of synthetic code bases, and either writes the measurements to a
+ * baseline file or compares them with one. A metric regressed when its mean
+ * got worse by more than {@code -threshold} percent and a one-sided Welch's
+ * t-test says the difference is significant at the 5% level.
+ * <p>
+ * Baselines are plain text, one metric of a scenario per line:
+ * <pre>
+ * scenario, metric, comma separated samples
+ * </pre>
+ * separated by tabs. Lines starting with {@code #} are comments.
+ */
+public class PerformanceBaseline {
+
+  public static final String HEADER =
+      "# testability-metrics performance baseline 1";
+
+  public static final String ASM = "asm";
+  public static final String ARGS4J = "args4j";
+  public static final String SYNTHETIC = "synthetic-";
+
+  public static final String TIME = "time-ms";
+  public static final String ALLOCATED = "allocated-mb";
+  public static final String PEAK_HEAP = "peak-heap-mb";
+
+  /** One-sided critical values of Student's t at 5% for 1 to 30 degrees of freedom. */
+  private static final double[] CRITICAL_T = {6.314, 2.920, 2.353, 2.132,
+      2.015, 1.943, 1.895, 1.860, 1.833, 1.812, 1.796, 1.782, 1.771, 1.761,
+      1.753, 1.746, 1.740, 1.734, 1.729, 1.725, 1.721, 1.717, 1.714, 1.711,
+      1.708, 1.706, 1.703, 1.701, 1.699, 1.697};
+  private static final double CRITICAL_T_NORMAL = 1.645;
+
+  @Option(name = "-write",
+      usage = "Run the scenarios and write the measurements to this baseline file.")
+  String write = null;
+
+  @Option(name = "-compare",
+      usage = "Run the scenarios and compare the measurements with this " +
+          "baseline file. Fails if a metric regressed.")
+  String compare = null;
+
+  @Option(name = "-runs",
+      metaVar = "N",
+      usage = "Measured runs of each scenario. Defaults to 5.")
+  int runs = 5;
+
+  @Option(name = "-warmups",
+      metaVar = "N",
+      usage = "Unmeasured runs of each scenario before measuring. Defaults to 1.")
+  int warmups = 1;
+
+  @Option(name = "-threshold",
+      metaVar = "PERCENT",
+      usage = "Smallest slowdown which counts as a regression. Defaults to 5.")
+  double threshold = 5;
+
+  @Option(name = "-lib",
+      usage = "Directory with the bundled jars. Defaults to lib.")
+  String lib = "lib";
+
+  @Argument(metaVar = "scenarios",
+      usage = "Scenarios to run: asm, args4j or synthetic-N for a synthetic " +
+          "code base of N classes. Defaults to asm args4j synthetic-1000 " +
+          "synthetic-10000.")
+  List<String> scenarios = new ArrayList<String>();
+
+  private final PrintStream out;
+  private final PrintStream err;
+
+  public PerformanceBaseline(PrintStream out, PrintStream err) {
+    this.out = out;
+    this.err = err;
+  }
+
+  public static void main(String... args) {
+    if (!main(System.out, System.err, args)) {
+      System.exit(1);
+    }
+  }
+
+  /**
+   * @return false if the arguments were wrong, a scenario could not be run or
+   *         a metric regressed
+   */
+  public static boolean main(PrintStream out, PrintStream err, String... args) {
+    PerformanceBaseline baseline = new PerformanceBaseline(out, err);
+    try {
+      baseline.parseArgs(args);
+      return baseline.execute();
+    } catch (CmdLineException e) {
+      return false;
+    }
+  }
+
+  public void parseArgs(String... args) throws CmdLineException {
+    CmdLineParser parser = new CmdLineParser(this);
+    try {
+      parser.parseArgument(args);
+      if ((write == null) == (compare == null)) {
+        throw new CmdLineException("Expected either -write or -compare");
+      }
+      if (runs < 1) {
+        throw new CmdLineException("Expected at least one run");
+      }
+      if (scenarios.isEmpty()) {
+        scenarios.addAll(Arrays.asList(ASM, ARGS4J, SYNTHETIC + 1000,
+            SYNTHETIC + 10000));
+      }
+      for (String scenario : scenarios) {
+        checkScenario(scenario);
+      }
+    } catch (CmdLineException e) {
+      err.println(e.getMessage() + "\n");
+      parser.setUsageWidth(120);
+      parser.printUsage(err);
+      throw new CmdLineException("Exiting...");
+    }
+  }
+
+  private void checkScenario(String scenario) throws CmdLineException {
+    if (scenario.equals(ASM) || scenario.equals(ARGS4J)) {
+      return;
+    }
+    if (scenario.startsWith(SYNTHETIC)) {
+      try {
+        if (Integer.parseInt(scenario.substring(SYNTHETIC.length())) > 0) {
+          return;
+        }
+      } catch (NumberFormatException e) {
+        // Reported below.
+      }
+    }
+    throw new CmdLineException("Unknown scenario '" + scenario + "'");
+  }
+
+  public boolean execute() throws CmdLineException {
+    Map<String, double[]> baseline = null;
+    if (compare != null) {
+      baseline = read(compare);
+    }
+    Map<String, double[]> current = new LinkedHashMap<String, double[]>();
+    for (String scenario : scenarios) {
+      err.println("Running " + scenario + "...");
+      current.putAll(run(scenario));
+    }
+    if (write != null) {
+      write(write, current);
+      return true;
+    }
+    return compare(baseline, current);
+  }
+
+  private Map<String, double[]> run(String scenario) throws CmdLineException {
+    File corpus = null;
+    try {
+      String classpath;
+      if (scenario.startsWith(SYNTHETIC)) {
+        corpus = File.createTempFile("synthetic", "");
+        corpus.delete();
+        new SyntheticCorpus().setClassCount(Integer.parseInt(
+            scenario.substring(SYNTHETIC.length()))).writeTo(corpus);
+        classpath = corpus.getPath();
+      } else {
+        classpath = new File(lib, scenario.equals(ASM)
+            ? "asm-3.0.jar" : "args4j-2.0.8.jar").getPath();
+        if (!new File(classpath).isFile()) {
+          err.println("Can not find '" + classpath + "'");
+          throw new CmdLineException("Exiting...");
+        }
+      }
+      for (int i = 0; i < warmups; i++) {
+        analyze(classpath);
+      }
+      double[] time = new double[runs];
+      double[] allocated = new double[runs];
+      double[] peakHeap = new double[runs];
+      for (int i = 0; i < runs; i++) {
+        System.gc();
+        resetPeakHeap();
+        long allocatedBefore = RunStatistics.currentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        analyze(classpath);
+        time[i] = (System.nanoTime() - start) / 1e6;
+        allocated[i] = (RunStatistics.currentThreadAllocatedBytes()
+            - allocatedBefore) / 1048576.0;
+        peakHeap[i] = getPeakHeap() / 1048576.0;
+      }
+      Map<String, double[]> samples = new LinkedHashMap<String, double[]>();
+      samples.put(key(scenario, TIME), time);
+      if (RunStatistics.isAllocationAvailable()) {
+        samples.put(key(scenario, ALLOCATED), allocated);
+      }
+      samples.put(key(scenario, PEAK_HEAP), peakHeap);
+      return samples;
+    } catch (IOException e) {
+      err.println("Can not write the corpus of '" + scenario + "': "
+          + e.getMessage());
+      throw new CmdLineException("Exiting...");
+    } finally {
+      if (corpus != null) {
+        delete(corpus);
+      }
+    }
+  }
+
+  /** Analyzes every class on the classpath, discarding the report. */
+  private void analyze(String classpath) throws CmdLineException {
+    PrintStream discard = new PrintStream(new OutputStream() {
+      @Override
+      public void write(int b) {
+      }
+
+      @Override
+      public void write(byte[] bytes, int offset, int length) {
+      }
+    });
+    Testability testability = new Testability(discard, discard);
+    testability.parseArgs("-cp", classpath, "");
+    testability.execute();
+  }
+
+  private static void resetPeakHeap() {
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        pool.resetPeakUsage();
+      }
+    }
+  }
+
+  /** The sum of the peaks of the heap pools, which may not coincide. */
+  private static long getPeakHeap() {
+    long peak = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        peak += pool.getPeakUsage().getUsed();
+      }
+    }
+    return peak;
+  }
+
+  private static void delete(File file) {
+    File[] files = file.listFiles();
+    if (files != null) {
+      for (File child : files) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+
+  private static String key(String scenario, String metric) {
+    return scenario + "\t" + metric;
+  }
+
+  private void write(String file, Map<String, double[]> samples)
+      throws CmdLineException {
+    try {
+      PrintStream baselineOut = new PrintStream(new FileOutputStream(file));
+      try {
+        write(baselineOut, samples);
+      } finally {
+        baselineOut.close();
+      }
+    } catch (IOException e) {
+      err.println("Can not write baseline '" + file + "': " + e.getMessage());
+      throw new CmdLineException("Exiting...");
+    }
+  }
+
+  static void write(PrintStream out, Map<String, double[]> samples) {
+    out.println(HEADER);
+    out.println("# java " + System.getProperty("java.version") + ", "
+        + System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+    for (Map.Entry<String, double[]> entry : samples.entrySet()) {
+      StringBuilder line = new StringBuilder(entry.getKey()).append('\t');
+      double[] values = entry.getValue();
+      for (int i = 0; i < values.length; i++) {
+        line.append(i == 0 ? "" : ",").append(String.format(Locale.US, "%.3f", values[i]));
+      }
+      out.println(line);
+    }
+  }
+
+  private Map<String, double[]> read(String file) throws CmdLineException {
+    try {
+      Reader reader = new FileReader(file);
+      try {
+        return read(reader);
+      } finally {
+        reader.close();
+      }
+    } catch (IOException e) {
+      err.println("Can not read baseline '" + file + "': " + e.getMessage());
+      throw new CmdLineException("Exiting...");
+    }
+  }
+
+  static Map<String, double[]> read(Reader in) throws IOException {
+    BufferedReader reader = new BufferedReader(in);
+    if (!HEADER.equals(reader.readLine())) {
+      throw new IOException("not a performance baseline");
+    }
+    Map<String, double[]> samples = new LinkedHashMap<String, double[]>();
+    String line;
+    while ((line = reader.readLine()) != null) {
+      if (line.length() == 0 || line.startsWith("#")) {
+        continue;
+      }
+      String[] columns = line.split("\t");
+      if (columns.length != 3) {
+        throw new IOException("malformed line '" + line + "'");
+      }
+      String[] values = columns[2].split(",");
+      double[] parsed = new double[values.length];
+      try {
+        for (int i = 0; i < values.length; i++) {
+          parsed[i] = Double.parseDouble(values[i]);
+        }
+      } catch (NumberFormatException e) {
+        throw new IOException("malformed line '" + line + "'");
+      }
+      samples.put(key(columns[0], columns[1]), parsed);
+    }
+    return samples;
+  }
+
+  /**
+   * Prints each metric measured in both runs.
+   *
+   * @return false if a metric regressed
+   */
+  boolean compare(Map<String, double[]> baseline, Map<String, double[]> current) {
+    boolean passed = true;
+    out.printf("%-18s %-14s %12s %12s %8s%n", "Scenario", "Metric", "Baseline",
+        "Current", "Change");
+    for (Map.Entry<String, double[]> entry : current.entrySet()) {
+      double[] before = baseline.get(entry.getKey());
+      if (before == null) {
+        continue;
+      }
+      double[] after = entry.getValue();
+      String[] scenarioAndMetric = entry.getKey().split("\t");
+      double change = 100 * (mean(after) - mean(before)) / mean(before);
+      boolean regressed = isRegression(before, after, threshold);
+      passed &= !regressed;
+      out.printf("%-18s %-14s %12.1f %12.1f %+7.1f%%%s%n", scenarioAndMetric[0],
+          scenarioAndMetric[1], mean(before), mean(after), change,
+          regressed ? "  REGRESSION" : "");
+    }
+    return passed;
+  }
+
+  /**
+   * True if {@code after} is worse than {@code before} by more than
+   * {@code thresholdPercent} of the mean and significantly so.
+   */
+  static boolean isRegression(double[] before, double[] after,
+      double thresholdPercent) {
+    double meanBefore = mean(before);
+    double meanAfter = mean(after);
+    if (meanAfter - meanBefore <= meanBefore * thresholdPercent / 100) {
+      return false;
+    }
+    if (before.length < 2 || after.length < 2) {
+      return true;
+    }
+    double varianceBefore = variance(before) / before.length;
+    double varianceAfter = variance(after) / after.length;
+    double standardError = Math.sqrt(varianceBefore + varianceAfter);
+    if (standardError == 0) {
+      return true;
+    }
+    double t = (meanAfter - meanBefore) / standardError;
+    // Welch-Satterthwaite degrees of freedom.
+    double degrees = (varianceBefore + varianceAfter)
+        * (varianceBefore + varianceAfter)
+        / (varianceBefore * varianceBefore / (before.length - 1)
+            + varianceAfter * varianceAfter / (after.length - 1));
+    return t > criticalT(degrees);
+  }
+
+  static double criticalT(double degrees) {
+    int index = (int) Math.floor(degrees);
+    if (index < 1) {
+      return CRITICAL_T[0];
+    }
+    return index <= CRITICAL_T.length ? CRITICAL_T[index - 1] : CRITICAL_T_NORMAL;
+  }
+
+  static double mean(double[] values) {
+    double sum = 0;
+    for (double value : values) {
+      sum += value;
+    }
+    return sum / values.length;
+  }
+
+  /** The sample variance. */
+  static double variance(double[] values) {
+    double mean = mean(values);
+    double sum = 0;
+    for (double value : values) {
+      sum += (value - mean) * (value - mean);
+    }
+    return sum / (values.length - 1);
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reports how far a long analysis has got, so that a run which prints nothing
+ * until its footer is not mistaken for a hung one. Enabled with
+ * {@code -progress SECONDS}.
+ * <p>
+ * The analysis only bumps a counter and publishes the name of the current
+ * class; a daemon thread wakes up every period and prints a line with the
+ * classes done, throughput, heap in use and estimated time left to the error
+ * stream, and optionally rewrites a status file with the same line.
+ */
+public class ProgressReporter {
+
+  private final int total;
+  private final AtomicInteger done = new AtomicInteger();
+  private volatile String currentClass;
+  private final long startNanos;
+  private final PrintStream out;
+  private final File statusFile;
+  private Thread reporter;
+
+  public ProgressReporter(int total, PrintStream out, File statusFile) {
+    this.total = total;
+    this.out = out;
+    this.statusFile = statusFile;
+    startNanos = System.nanoTime();
+  }
+
+  public void classStarted(String className) {
+    currentClass = className;
+  }
+
+  public void classFinished() {
+    done.incrementAndGet();
+  }
+
+  public int getDone() {
+    return done.get();
+  }
+
+  public int getTotal() {
+    return total;
+  }
+
+  public String getCurrentClass() {
+    return currentClass;
+  }
+
+  /** Starts printing a line every {@code periodMillis} on a daemon thread. */
+  public void start(final long periodMillis) {
+    reporter = new Thread(new Runnable() {
+      public void run() {
+        try {
+          while (true) {
+            Thread.sleep(periodMillis);
+            report();
+          }
+        } catch (InterruptedException e) {
+          // Stopped.
+        }
+      }
+    }, "progress-reporter");
+    reporter.setDaemon(true);
+    reporter.start();
+  }
+
+  /** Stops the reporter thread and reports the final state once. */
+  public void stop() {
+    if (reporter != null) {
+      reporter.interrupt();
+      try {
+        reporter.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      reporter = null;
+    }
+    report();
+  }
+
+  public void report() {
+    Runtime runtime = Runtime.getRuntime();
+    String line = formatLine(System.nanoTime() - startNanos,
+        runtime.totalMemory() - runtime.freeMemory());
+    out.println(line);
+    if (statusFile != null) {
+      writeStatus(line);
+    }
+  }
+
+  String formatLine(long elapsedNanos, long usedHeap) {
+    int classesDone = done.get();
+    double seconds = elapsedNanos / 1e9;
+    double rate = seconds > 0 ? classesDone / seconds : 0;
+    StringBuilder line = new StringBuilder();
+    line.append(String.format("Progress: %d/%d classes (%.1f%%), %.1f classes/s, "
+        + "heap %d MB, elapsed %s, ETA %s", classesDone, total,
+        total == 0 ? 100.0 : 100.0 * classesDone / total, rate,
+        usedHeap / (1024 * 1024), formatDuration((long) seconds),
+        rate > 0 ? formatDuration((long) ((total - classesDone) / rate)) : "?"));
+    String current = currentClass;
+    if (current != null && classesDone < total) {
+      line.append(", at ").append(current);
+    }
+    return line.toString();
+  }
+
+  static String formatDuration(long seconds) {
+    if (seconds >= 3600) {
+      return String.format("%dh%02dm%02ds", seconds / 3600, seconds / 60 % 60,
+          seconds % 60);
+    } else if (seconds >= 60) {
+      return String.format("%dm%02ds", seconds / 60, seconds % 60);
+    }
+    return seconds + "s";
+  }
+
+  /**
+   * Writes the line to a temporary file next to the status file and renames
+   * it, so that readers never see a half written status.
+   */
+  private void writeStatus(String line) {
+    File temporary = new File(statusFile.getPath() + ".tmp");
+    try {
+      PrintStream status = new PrintStream(new FileOutputStream(temporary));
+      try {
+        status.println(line);
+      } finally {
+        status.close();
+      }
+      statusFile.delete();
+      if (!temporary.renameTo(statusFile)) {
+        out.println("Can not write progress to '" + statusFile + "'");
+      }
+    } catch (IOException e) {
+      out.println("Can not write progress to '" + statusFile + "': "
+          + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters collected while a run decodes and analyzes classes. Printed at the
+ * end of a run when {@code -stats} is given. Methods may be translated on
+ * several threads, so all counters are atomic; they are only updated when
+ * {@link #setTimed(boolean) timed}, so that a run without {@code -stats} does
+ * not contend on them.
+ * <p>
+ * With {@link #setTimed(boolean)} the run is also broken down into
+ * {@link Phase}s. Each thread charges the wall time, CPU time and allocated
+ * bytes between two phase changes to the phase it was in, so nested phases
+ * (parsing a class while computing the cost of another one) are not counted
+ * twice. Times of threads translating in parallel add up, so the sum can
+ * exceed the elapsed time. When not timed, {@link #enter(Phase)} and
+ * {@link #exit(Phase)} only check a flag.
+ */
+public class RunStatistics {
+
+  public enum Phase {
+    SCAN("classpath scan"),
+    PARSE("parse"),
+    DECOMPOSE("decompose"),
+    TRANSLATE("translate"),
+    COMPUTE("compute"),
+    REPORT("report");
+
+    private final String description;
+
+    private Phase(String description) {
+      this.description = description;
+    }
+
+    public String getDescription() {
+      return description;
+    }
+  }
+
+  /**
+   * The phase a thread is in and the readings of its clocks at the last
+   * phase change.
+   */
+  private static class PhaseClock {
+    Phase phase;
+    long wallTime;
+    long cpuTime;
+    long allocatedBytes;
+  }
+
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+  /**
+   * com.sun.management.ThreadMXBean.getThreadAllocatedBytes(long), if this VM
+   * has it; looked up by reflection so the code still runs on VMs without it.
+   */
+  private static final Method ALLOCATED_BYTES = allocatedBytesMethod();
+
+  private final AtomicLong methodCount = new AtomicLong();
+  private final AtomicLong emptyMethodCount = new AtomicLong();
+  private final AtomicLong straightLineMethodCount = new AtomicLong();
+  private final AtomicLong classCount = new AtomicLong();
+  private final AtomicLong operationCount = new AtomicLong();
+  private final AtomicLong invocationCount = new AtomicLong();
+  private final AtomicLongArray wallTimes = new AtomicLongArray(Phase.values().length);
+  private final AtomicLongArray cpuTimes = new AtomicLongArray(Phase.values().length);
+  private final AtomicLongArray allocations = new AtomicLongArray(Phase.values().length);
+  private final ThreadLocal<PhaseClock> clocks = new ThreadLocal<PhaseClock>() {
+    @Override
+    protected PhaseClock initialValue() {
+      return new PhaseClock();
+    }
+  };
+  /** Set before the run starts, so it is not volatile. */
+  private boolean timed;
+
+  private static Method allocatedBytesMethod() {
+    try {
+      Class<?> bean = Class.forName("com.sun.management.ThreadMXBean");
+      if (bean.isInstance(THREADS)) {
+        Method method = bean.getMethod("getThreadAllocatedBytes", long.class);
+        method.invoke(THREADS, Thread.currentThread().getId());
+        return method;
+      }
+    } catch (Exception e) {
+      // Allocations are not available on this VM.
+    }
+    return null;
+  }
+
+  public void setTimed(boolean timed) {
+    this.timed = timed;
+  }
+
+  public boolean isTimed() {
+    return timed;
+  }
+
+  /**
+   * Switches the current thread to {@code phase}. Use as
+   * {@code Phase previous = enter(PARSE); try {...} finally {exit(previous);}}
+   *
+   * @return the phase the thread was in, to be passed to {@link #exit(Phase)}.
+   */
+  public Phase enter(Phase phase) {
+    if (!timed) {
+      return null;
+    }
+    PhaseClock clock = clocks.get();
+    Phase previous = clock.phase;
+    charge(clock);
+    clock.phase = phase;
+    return previous;
+  }
+
+  /**
+   * Switches the current thread back to the phase returned by
+   * {@link #enter(Phase)}.
+   */
+  public void exit(Phase previous) {
+    if (!timed) {
+      return;
+    }
+    PhaseClock clock = clocks.get();
+    charge(clock);
+    clock.phase = previous;
+  }
+
+  private void charge(PhaseClock clock) {
+    long wallTime = System.nanoTime();
+    long cpuTime = THREADS.getCurrentThreadCpuTime();
+    long allocatedBytes = currentThreadAllocatedBytes();
+    if (clock.phase != null) {
+      int phase = clock.phase.ordinal();
+      wallTimes.addAndGet(phase, wallTime - clock.wallTime);
+      cpuTimes.addAndGet(phase, cpuTime - clock.cpuTime);
+      allocations.addAndGet(phase, allocatedBytes - clock.allocatedBytes);
+    }
+    clock.wallTime = wallTime;
+    clock.cpuTime = cpuTime;
+    clock.allocatedBytes = allocatedBytes;
+  }
+
+  /**
+   * @return the bytes allocated by the current thread so far, or 0 if the VM
+   *         can not tell (see {@link #isAllocationAvailable()}).
+   */
+  public static long currentThreadAllocatedBytes() {
+    if (ALLOCATED_BYTES == null) {
+      return 0;
+    }
+    try {
+      return (Long) ALLOCATED_BYTES.invoke(THREADS, Thread.currentThread().getId());
+    } catch (Exception e) {
+      return 0;
+    }
+  }
+
+  public static boolean isAllocationAvailable() {
+    return ALLOCATED_BYTES != null;
+  }
+
+  public long getWallTime(Phase phase) {
+    return wallTimes.get(phase.ordinal());
+  }
+
+  public long getCpuTime(Phase phase) {
+    return cpuTimes.get(phase.ordinal());
+  }
+
+  public long getAllocatedBytes(Phase phase) {
+    return allocations.get(phase.ordinal());
+  }
+
+  public void classParsed() {
+    if (timed) {
+      classCount.incrementAndGet();
+    }
+  }
+
+  public void operationsTranslated(int count) {
+    if (timed) {
+      operationCount.addAndGet(count);
+    }
+  }
+
+  public void invocationVisited() {
+    if (timed) {
+      invocationCount.incrementAndGet();
+    }
+  }
+
+  public long getClassCount() {
+    return classCount.get();
+  }
+
+  public long getOperationCount() {
+    return operationCount.get();
+  }
+
+  public long getInvocationCount() {
+    return invocationCount.get();
+  }
+
+  /**
+   * A method which had to be broken into blocks and translated with
+   * {@link com.google.test.metric.method.Stack2Turing}.
+   */
+  public void methodTranslated() {
+    if (timed) {
+      methodCount.incrementAndGet();
+    }
+  }
+
+  /**
+   * A method which has no instructions producing operations, so it was not
+   * translated at all.
+   */
+  public void emptyMethodSkipped() {
+    if (timed) {
+      methodCount.incrementAndGet();
+      emptyMethodCount.incrementAndGet();
+    }
+  }
+
+  /**
+   * A method without any control flow, which was translated in a single pass
+   * without building blocks.
+   */
+  public void straightLineMethodTranslated() {
+    if (timed) {
+      methodCount.incrementAndGet();
+      straightLineMethodCount.incrementAndGet();
+    }
+  }
+
+  public long getMethodCount() {
+    return methodCount.get();
+  }
+
+  public long getEmptyMethodCount() {
+    return emptyMethodCount.get();
+  }
+
+  public long getStraightLineMethodCount() {
+    return straightLineMethodCount.get();
+  }
+
+  public long getFastPathMethodCount() {
+    return getEmptyMethodCount() + getStraightLineMethodCount();
+  }
+
+  public void print(PrintStream out) {
+    out.printf("           Parsed classes: %8d%n", getClassCount());
+    out.printf("          Decoded methods: %8d%n", getMethodCount());
+    out.printf("        Fast path methods: %8d %5.1f%%%n",
+        getFastPathMethodCount(), percent(getFastPathMethodCount()));
+    out.printf("       without operations: %8d%n", getEmptyMethodCount());
+    out.printf("            straight line: %8d%n", getStraightLineMethodCount());
+    if (timed) {
+      out.printf("    Translated operations: %8d%n", getOperationCount());
+      out.printf("      Visited invocations: %8d%n", getInvocationCount());
+      out.println();
+      out.printf("%25s %10s %10s %12s%n", "Phase", "Wall ms", "CPU ms",
+          "Allocated MB");
+      for (Phase phase : Phase.values()) {
+        out.printf("%25s %10.1f %10.1f %12s%n", phase.getDescription(),
+            getWallTime(phase) / 1e6, getCpuTime(phase) / 1e6,
+            isAllocationAvailable()
+                ? String.format("%.1f", getAllocatedBytes(phase) / 1048576.0)
+                : "n/a");
+      }
+    }
+  }
+
+  /**
+   * Prints the statistics as a single JSON object. Times are in nanoseconds,
+   * allocations in bytes (-1 when the VM can not count them).
+   */
+  public void printJson(PrintStream out) {
+    StringBuilder json = new StringBuilder();
+    json.append("{\"classes\":").append(getClassCount());
+    json.append(",\"methods\":").append(getMethodCount());
+    json.append(",\"emptyMethods\":").append(getEmptyMethodCount());
+    json.append(",\"straightLineMethods\":").append(getStraightLineMethodCount());
+    if (timed) {
+      json.append(",\"operations\":").append(getOperationCount());
+      json.append(",\"invocations\":").append(getInvocationCount());
+      json.append(",\"phases\":{");
+      String separator = "";
+      for (Phase phase : Phase.values()) {
+        json.append(separator);
+        json.append('"').append(phase.name().toLowerCase()).append("\":{");
+        json.append("\"wallNanos\":").append(getWallTime(phase));
+        json.append(",\"cpuNanos\":").append(getCpuTime(phase));
+        json.append(",\"allocatedBytes\":").append(
+            isAllocationAvailable() ? getAllocatedBytes(phase) : -1);
+        json.append('}');
+        separator = ",";
+      }
+      json.append('}');
+    }
+    json.append('}');
+    out.println(json);
+  }
+
+  private float percent(long count) {
+    long total = getMethodCount();
+    return total == 0 ? 0f : 100f * count / total;
+  }
+
+}
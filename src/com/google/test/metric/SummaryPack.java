@@ -0,0 +1,162 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Precomputed costs of library methods. When a method with a summary is
+ * called, {@link TestabilityContext} adds the summarized cost to the caller
+ * instead of loading the class and descending into the method.
+ *
+ * A summary is the cost of the method computed on its own, with nothing
+ * injectable, so it is the cost a caller pays if it can not substitute any of
+ * the collaborators. It also records whether the method returns global state
+ * (ex. a singleton's {@code getInstance()}), which the caller's return value
+ * then carries. Global state the caller passes in as this or as an argument is
+ * not reflected in the summary. Packs are plain text, one method per line:
+ * <pre>
+ * full method name, line, total complexity cost, total global cost,
+ * overridable, returns global
+ * </pre>
+ * separated by tabs.
+ */
+public class SummaryPack {
+
+  public static final String HEADER = "# testability-metrics summary pack 2";
+
+  private static class Summary {
+    private final int lineNumber;
+    private final long complexityCost;
+    private final long globalCost;
+    private final boolean canOverride;
+    private final boolean returnsGlobal;
+
+    public Summary(int lineNumber, long complexityCost, long globalCost,
+        boolean canOverride, boolean returnsGlobal) {
+      this.lineNumber = lineNumber;
+      this.complexityCost = complexityCost;
+      this.globalCost = globalCost;
+      this.canOverride = canOverride;
+      this.returnsGlobal = returnsGlobal;
+    }
+  }
+
+  /**
+   * A leaf cost which carries the totals of the summarized method as its own
+   * cyclomatic and global cost.
+   */
+  private static class SummaryMethodCost extends MethodCost {
+    private final long globalCost;
+
+    public SummaryMethodCost(String methodName, Summary summary) {
+      super(methodName, summary.lineNumber, summary.complexityCost);
+      this.globalCost = summary.globalCost;
+    }
+
+    @Override
+    public long getGlobalCost() {
+      return globalCost;
+    }
+  }
+
+  private final Map<String, Summary> summaries = new HashMap<String, Summary>();
+
+  public void add(MethodInfo method, MethodCost linkedCost,
+      boolean returnsGlobal) {
+    summaries.put(method.getFullName(), new Summary(
+        linkedCost.getMethodLineNumber(), linkedCost.getTotalComplexityCost(),
+        linkedCost.getTotalGlobalCost(), method.canOverride(), returnsGlobal));
+  }
+
+  public int size() {
+    return summaries.size();
+  }
+
+  public boolean contains(String methodName) {
+    return summaries.containsKey(methodName);
+  }
+
+  public boolean canOverride(String methodName) {
+    return summaries.get(methodName).canOverride;
+  }
+
+  public boolean returnsGlobal(String methodName) {
+    return summaries.get(methodName).returnsGlobal;
+  }
+
+  /**
+   * @param methodName full method name (class name, method name and
+   *        descriptor) as in {@link MethodInfo#getFullName()}
+   * @return a new unlinked cost for the method, or null if it is not part of
+   *         the pack.
+   */
+  public MethodCost getMethodCost(String methodName) {
+    Summary summary = summaries.get(methodName);
+    return summary == null ? null : new SummaryMethodCost(methodName, summary);
+  }
+
+  public void write(PrintStream out) {
+    out.println(HEADER);
+    for (String methodName : new TreeSet<String>(summaries.keySet())) {
+      Summary summary = summaries.get(methodName);
+      out.print(methodName);
+      out.print('\t');
+      out.print(summary.lineNumber);
+      out.print('\t');
+      out.print(summary.complexityCost);
+      out.print('\t');
+      out.print(summary.globalCost);
+      out.print('\t');
+      out.print(summary.canOverride);
+      out.print('\t');
+      out.println(summary.returnsGlobal);
+    }
+  }
+
+  public void read(Reader reader) throws IOException {
+    BufferedReader in = new BufferedReader(reader);
+    String line = in.readLine();
+    if (!HEADER.equals(line)) {
+      throw new IOException("Not a summary pack: expected '" + HEADER
+          + "' but was '" + line + "'.");
+    }
+    while ((line = in.readLine()) != null) {
+      if (line.length() == 0) {
+        continue;
+      }
+      String[] columns = line.split("\t");
+      if (columns.length != 6) {
+        throw new IOException("Malformed summary pack line: " + line);
+      }
+      try {
+        summaries.put(columns[0], new Summary(Integer.parseInt(columns[1]),
+            Long.parseLong(columns[2]), Long.parseLong(columns[3]),
+            Boolean.parseBoolean(columns[4]),
+            Boolean.parseBoolean(columns[5])));
+      } catch (NumberFormatException e) {
+        throw new IOException("Malformed summary pack line: " + line);
+      }
+    }
+  }
+
+}
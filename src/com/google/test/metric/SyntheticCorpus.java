@@ -0,0 +1,333 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric;
+
+import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.Option;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates class files of a synthetic code base, to reproduce the behavior
+ * of the analysis on large code bases. The classes are
+ * {@code synthetic.pP.CI}, {@link #getPackageSize()} to a package, and are
+ * arranged in {@code depth} layers, but never more layers than classes so
+ * that no layer is empty. Every method {@code int mN(int)} of a class
+ * creates instances of {@code fanOut} random classes of the next layer and
+ * calls one of their methods. On top of that a class can
+ * <ul>
+ * <li>call back into the previous layer, which closes recursion cycles,</li>
+ * <li>read and write a mutable static field in every method,</li>
+ * <li>switch over its argument in every method,</li>
+ * <li>extend the class before it, up to the inheritance depth.</li>
+ * </ul>
+ * The classes only depend on each other and java.lang.Object, and the same
+ * parameters and seed always generate the same classes.
+ */
+public class SyntheticCorpus {
+
+  public static final String ROOT_PACKAGE = "synthetic";
+  private static final String OBJECT = "java/lang/Object";
+
+  @Option(name = "-classes", metaVar = "N",
+      usage = "Number of classes to generate.")
+  int classCount = 1000;
+
+  @Option(name = "-methods", metaVar = "N",
+      usage = "Number of methods in each class.")
+  int methodCount = 3;
+
+  @Option(name = "-fanOut", metaVar = "N",
+      usage = "Number of calls into the next layer from each method.")
+  int fanOut = 2;
+
+  @Option(name = "-depth", metaVar = "N",
+      usage = "Number of layers of the call graph, at most the number of " +
+          "classes.")
+  int depth = 8;
+
+  @Option(name = "-cycleEvery", metaVar = "N",
+      usage = "Every Nth class also calls into the previous layer, which " +
+          "closes recursion cycles. 0 for none.")
+  int cycleEvery = 0;
+
+  @Option(name = "-staticState", metaVar = "PERCENT",
+      usage = "Percentage of classes with mutable static state.")
+  int staticStatePercent = 10;
+
+  @Option(name = "-branches", metaVar = "N",
+      usage = "Number of cases of the switch in each method. 0 for none.")
+  int branchWidth = 0;
+
+  @Option(name = "-inheritance", metaVar = "N",
+      usage = "Length of the chains of classes extending each other. 1 for " +
+          "none.")
+  int inheritanceDepth = 1;
+
+  @Option(name = "-seed", metaVar = "N",
+      usage = "Seed of the random choices.")
+  int seed = 0;
+
+  @Argument(metaVar = "directory",
+      usage = "Directory to write the class files to.",
+      required = true)
+  List<String> directories = new ArrayList<String>();
+
+  public static void main(String... args) {
+    main(System.err, args);
+  }
+
+  public static void main(PrintStream err, String... args) {
+    SyntheticCorpus corpus = new SyntheticCorpus();
+    CmdLineParser parser = new CmdLineParser(corpus);
+    try {
+      parser.parseArgument(args);
+      if (corpus.directories.size() != 1) {
+        throw new CmdLineException("Expecting one directory");
+      }
+      corpus.writeTo(new File(corpus.directories.get(0)));
+    } catch (CmdLineException e) {
+      err.println(e.getMessage() + "\n");
+      parser.setUsageWidth(120);
+      parser.printUsage(err);
+    } catch (IOException e) {
+      err.println("Can not write classes: " + e.getMessage());
+    }
+  }
+
+  public SyntheticCorpus setClassCount(int classCount) {
+    this.classCount = classCount;
+    return this;
+  }
+
+  public SyntheticCorpus setMethodCount(int methodCount) {
+    this.methodCount = methodCount;
+    return this;
+  }
+
+  public SyntheticCorpus setFanOut(int fanOut) {
+    this.fanOut = fanOut;
+    return this;
+  }
+
+  public SyntheticCorpus setDepth(int depth) {
+    this.depth = depth;
+    return this;
+  }
+
+  public SyntheticCorpus setCycleEvery(int cycleEvery) {
+    this.cycleEvery = cycleEvery;
+    return this;
+  }
+
+  public SyntheticCorpus setStaticStatePercent(int staticStatePercent) {
+    this.staticStatePercent = staticStatePercent;
+    return this;
+  }
+
+  public SyntheticCorpus setBranchWidth(int branchWidth) {
+    this.branchWidth = branchWidth;
+    return this;
+  }
+
+  public SyntheticCorpus setInheritanceDepth(int inheritanceDepth) {
+    this.inheritanceDepth = inheritanceDepth;
+    return this;
+  }
+
+  public SyntheticCorpus setSeed(int seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  public int getClassCount() {
+    return classCount;
+  }
+
+  public int getPackageSize() {
+    return 100;
+  }
+
+  /**
+   * @return the internal name (with slashes) of the class with the given index.
+   */
+  public String getInternalName(int index) {
+    return ROOT_PACKAGE + "/p" + (index / getPackageSize()) + "/C" + index;
+  }
+
+  public String getClassName(int index) {
+    return getInternalName(index).replace('/', '.');
+  }
+
+  public boolean hasStaticState(int index) {
+    return random(index, 1).nextInt(100) < staticStatePercent;
+  }
+
+  public void writeTo(File directory) throws IOException {
+    for (int index = 0; index < classCount; index++) {
+      File file = new File(directory, getInternalName(index) + ".class");
+      file.getParentFile().mkdirs();
+      OutputStream out = new FileOutputStream(file);
+      try {
+        out.write(generate(index));
+      } finally {
+        out.close();
+      }
+    }
+  }
+
+  /**
+   * Each class has its own random sequences, so classes can be generated
+   * independently and in any order.
+   */
+  private Random random(int index, int purpose) {
+    return new Random(((long) seed * 31 + index) * 31 + purpose);
+  }
+
+  /**
+   * With fewer classes than {@link #depth} some layers would be empty and
+   * calls into them would name classes which do not exist.
+   */
+  private int layerCount() {
+    return Math.min(depth, classCount);
+  }
+
+  private int layer(int index) {
+    return (int) ((long) index * layerCount() / classCount);
+  }
+
+  private int randomClassInLayer(Random random, int layer) {
+    int layers = layerCount();
+    int start = (int) (((long) layer * classCount + layers - 1) / layers);
+    int end = (int) (((long) (layer + 1) * classCount + layers - 1) / layers);
+    return start + random.nextInt(Math.max(1, end - start));
+  }
+
+  private String superName(int index) {
+    if (inheritanceDepth > 1 && index % inheritanceDepth != 0) {
+      return getInternalName(index - 1);
+    }
+    return OBJECT;
+  }
+
+  public byte[] generate(int index) {
+    String name = getInternalName(index);
+    String superName = superName(index);
+    boolean staticState = hasStaticState(index);
+    ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+    writer.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, superName, null);
+    if (staticState) {
+      writer.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "state", "I", null, null)
+          .visitEnd();
+    }
+    MethodVisitor init = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V",
+        null, null);
+    init.visitCode();
+    init.visitVarInsn(Opcodes.ALOAD, 0);
+    init.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "<init>", "()V");
+    init.visitInsn(Opcodes.RETURN);
+    init.visitMaxs(0, 0);
+    init.visitEnd();
+    Random random = random(index, 2);
+    for (int method = 0; method < methodCount; method++) {
+      generateMethod(writer, index, method, staticState, random);
+    }
+    writer.visitEnd();
+    return writer.toByteArray();
+  }
+
+  private void generateMethod(ClassWriter writer, int index, int method,
+      boolean staticState, Random random) {
+    MethodVisitor mv = writer.visitMethod(Opcodes.ACC_PUBLIC, "m" + method, "(I)I",
+        null, null);
+    mv.visitCode();
+    if (branchWidth > 0) {
+      generateSwitch(mv);
+    }
+    int layer = layer(index);
+    if (layer + 1 < layerCount()) {
+      for (int call = 0; call < fanOut; call++) {
+        generateCall(mv, randomClassInLayer(random, layer + 1), random);
+      }
+    }
+    if (cycleEvery > 0 && index % cycleEvery == 0 && layer > 0) {
+      generateCall(mv, randomClassInLayer(random, layer - 1), random);
+    }
+    if (staticState) {
+      String name = getInternalName(index);
+      mv.visitFieldInsn(Opcodes.GETSTATIC, name, "state", "I");
+      mv.visitVarInsn(Opcodes.ILOAD, 1);
+      mv.visitInsn(Opcodes.IADD);
+      mv.visitFieldInsn(Opcodes.PUTSTATIC, name, "state", "I");
+    }
+    mv.visitVarInsn(Opcodes.ILOAD, 1);
+    mv.visitInsn(Opcodes.IRETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+  }
+
+  /**
+   * x += n + 1 for case n, x -= 1 otherwise. Every label is followed by an
+   * instruction.
+   */
+  private void generateSwitch(MethodVisitor mv) {
+    Label[] cases = new Label[branchWidth];
+    for (int i = 0; i < cases.length; i++) {
+      cases[i] = new Label();
+    }
+    Label dflt = new Label();
+    Label end = new Label();
+    mv.visitVarInsn(Opcodes.ILOAD, 1);
+    mv.visitTableSwitchInsn(0, branchWidth - 1, dflt, cases);
+    for (int i = 0; i < cases.length; i++) {
+      mv.visitLabel(cases[i]);
+      mv.visitIincInsn(1, i + 1);
+      mv.visitJumpInsn(Opcodes.GOTO, end);
+    }
+    mv.visitLabel(dflt);
+    mv.visitIincInsn(1, -1);
+    mv.visitLabel(end);
+  }
+
+  /**
+   * x += new Callee().mN(x)
+   */
+  private void generateCall(MethodVisitor mv, int callee, Random random) {
+    String calleeName = getInternalName(callee);
+    mv.visitTypeInsn(Opcodes.NEW, calleeName);
+    mv.visitInsn(Opcodes.DUP);
+    mv.visitMethodInsn(Opcodes.INVOKESPECIAL, calleeName, "<init>", "()V");
+    mv.visitVarInsn(Opcodes.ILOAD, 1);
+    mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, calleeName,
+        "m" + random.nextInt(methodCount), "(I)I");
+    mv.visitVarInsn(Opcodes.ILOAD, 1);
+    mv.visitInsn(Opcodes.IADD);
+    mv.visitVarInsn(Opcodes.ISTORE, 1);
+  }
+}
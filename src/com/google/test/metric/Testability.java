@@ -18,8 +18,15 @@ package com.google.test.metric;
 import com.google.classpath.ClasspathRootFactory;
 import com.google.classpath.ClasspathRootGroup;
 import com.google.classpath.ColonDelimitedStringParser;
+import com.google.test.metric.RunStatistics.Phase;
+import com.google.test.metric.report.AsyncOutputStream;
+import com.google.test.metric.report.BinaryReport;
+import com.google.test.metric.report.CsvReport;
 import com.google.test.metric.report.DrillDownReport;
 import com.google.test.metric.report.HtmlReport;
+import com.google.test.metric.report.JsonLinesReport;
+import com.google.test.metric.report.PackageReport;
+import com.google.test.metric.report.PartialReport;
 import com.google.test.metric.report.Report;
 import com.google.test.metric.report.TextReport;
 
@@ -28,12 +35,36 @@ import org.kohsuke.args4j.CmdLineException;
 import org.kohsuke.args4j.CmdLineParser;
 import org.kohsuke.args4j.Option;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class Testability {
 
+  /**
+   * Classes with fewer methods than this are not worth handing out to the
+   * translation threads.
+   */
+  private static final int PARALLEL_TRANSLATION_MIN_METHODS = 50;
+  private static final int DEFAULT_PROGRESS_SECONDS = 10;
+
+  @Option(name = "-asyncOutput",
+      usage = "Write the report from a separate thread, so that the " +
+          "analysis does not wait for the console or the disk.")
+  boolean asyncOutput = false;
+
+  @Option(name = "-classTable",
+      usage = "With -print html, add a sortable, paginated table of all " +
+          "analyzed classes.")
+  boolean classTable = false;
+
   @Option(name = "-cp",
       usage = "colon delimited classpath to analyze (jars or directories)" +
           "\nEx. lib/one.jar:lib/two.jar")
@@ -44,10 +75,42 @@ public class Testability {
       	  "that the classes under analysis depend on. Defaults to 0.")
   int printDepth = 2;
 
+  @Option(name = "-metrics",
+      usage = "Write counters and latency histograms of the run in the " +
+          "Prometheus text format to this file, or to the error stream for -.")
+  String metricsFile = null;
+
   @Option(name = "-minCost",
       usage = "Minimum Total Class cost required to print that class' metrics.")
   int minCost = 1;
 
+  @Option(name = "-jfr",
+      usage = "Emit Java Flight Recorder events for parsing, translation, cost " +
+          "computation and class lookups. Needs a VM with JFR and a running " +
+          "recording.")
+  boolean jfr = false;
+
+  @Option(name = "-maxClassMethods",
+      metaVar = "N",
+      usage = "Stop following calls once computing the cost of a class has " +
+          "visited N methods, and mark the class as truncated. Defaults to 0 " +
+          "(no limit).")
+  int maxClassMethods = 0;
+
+  @Option(name = "-maxClassMillis",
+      metaVar = "N",
+      usage = "Stop following calls once computing the cost of a class has " +
+          "taken N milliseconds, and mark the class as truncated. Defaults " +
+          "to 0 (no limit).")
+  int maxClassMillis = 0;
+
+  @Option(name = "-maxClassOperations",
+      metaVar = "N",
+      usage = "Stop following calls once computing the cost of a class has " +
+          "evaluated N operations, and mark the class as truncated. Defaults " +
+          "to 0 (no limit).")
+  int maxClassOperations = 0;
+
   @Option(name = "-maxExcellentCost",
       usage = "Maximum Total Class cost to be classify it as 'excellent'.")
   int maxExcellentCost = 50;
@@ -57,6 +120,16 @@ public class Testability {
   public
   int worstOffenderCount = 20;
 
+  @Option(name = "-footprint",
+      usage = "Print an estimate of the memory retained by the classes, " +
+          "operations, variables, costs and report at the end of the run " +
+          "to the error stream.")
+  boolean printFootprint = false;
+
+  @Option(name = "-gzip",
+      usage = "Compress the report with gzip. Implies -asyncOutput.")
+  boolean gzip = false;
+
   @Option(name = "-maxAcceptableCost",
       usage = "Maximum Total Class cost to be classify it as 'acceptable'.")
   int maxAcceptableCost = 100;
@@ -68,11 +141,83 @@ public class Testability {
   String wl = null;
   private final RegExpWhiteList whitelist = new RegExpWhiteList();
 
+  @Option(name = "-packageDepth",
+      usage = "With -print packages, number of package name segments to " +
+          "print. Defaults to 3.")
+  int packageDepth = 3;
+
   @Option(name = "-print",
       usage = "summary: (default) print package summary information.\n" +
-              "detail: print detail drill down information for each method call.")
+              "detail: print detail drill down information for each method call.\n" +
+              "html: print package summary information as HTML.\n" +
+              "jsonl, csv, bin: print a record for each class and method as " +
+              "JSON lines, CSV or compact binary.\n" +
+              "partial: print the summary state of a shard, for MergeReports.\n" +
+              "packages: print class costs summed up by package.")
   String printer = "summary";
 
+  @Option(name = "-profile",
+      metaVar = "N",
+      usage = "Print the N classes which took longest to analyze and the N " +
+          "methods which took longest to decode to the error stream.")
+  int profileCount = 0;
+
+  @Option(name = "-progress",
+      metaVar = "SECONDS",
+      usage = "Print the classes done, classes per second, heap used and the " +
+          "estimated time left to the error stream every SECONDS.")
+  int progressSeconds = 0;
+
+  @Option(name = "-progressFile",
+      usage = "Also write the latest -progress line to this file. Implies " +
+          "-progress " + DEFAULT_PROGRESS_SECONDS + " unless given.")
+  String progressFile = null;
+
+  @Option(name = "-remoteCharts",
+      usage = "With -print html, draw the charts with the Google Chart API " +
+          "instead of inline SVG. Viewing the report then needs the network.")
+  boolean remoteCharts = false;
+
+  @Option(name = "-shard",
+      metaVar = "I/N",
+      usage = "Only analyze the classes in shard I (counting from 0) of N. " +
+          "Classes are assigned to shards by a hash of their name.")
+  String shard = null;
+  private int shardIndex = 0;
+  private int shardCount = 1;
+
+  @Option(name = "-stats",
+      usage = "Print statistics about the run (such as how many methods were " +
+          "decoded, and the time and memory spent in each phase) to the " +
+          "error stream.")
+  boolean printStatistics = false;
+
+  @Option(name = "-statsFormat",
+      metaVar = "text|json",
+      usage = "Print the -stats as a table (default) or as a JSON object.")
+  String statsFormat = "text";
+
+  @Option(name = "-streamDetail",
+      usage = "With -print detail, print each class as soon as it is " +
+          "analyzed instead of sorting all classes by cost at the end.")
+  boolean streamDetail = false;
+
+  @Option(name = "-summaryPack",
+      usage = "colon delimited summary pack files with precomputed costs of " +
+          "library methods. Calls to these methods are not analyzed again.")
+  String summaryPackFiles = null;
+  private SummaryPack summaryPack;
+
+  @Option(name = "-writeSummaryPack",
+      usage = "Instead of printing a report, write the costs of all methods " +
+          "of the analyzed classes to the given summary pack file.")
+  String writeSummaryPack = null;
+
+  @Option(name = "-translationThreads",
+      usage = "Number of threads used to translate the methods of large " +
+          "classes. Defaults to 0 (translate on the analysis thread).")
+  int translationThreads = 0;
+
   @Option(name = "cyclomatic",
       metaVar = "cyclomatic cost multiplier",
       usage = "When computing the overall cost of the method the " +
@@ -98,6 +243,7 @@ public class Testability {
   private final PrintStream out;
   private final PrintStream err;
 
+  private PrintStream reportOut;
   private Report report;
 
   public Testability(PrintStream out, PrintStream err) {
@@ -145,34 +291,315 @@ public class Testability {
       entryList.add("");
     }
     classpath = ClasspathRootFactory.makeClasspathRootGroup(cp);
+    if (shard != null) {
+      parseShard(shard);
+    }
+    if (summaryPackFiles != null) {
+      summaryPack = readSummaryPacks(summaryPackFiles);
+    }
+    if (!statsFormat.equals("text") && !statsFormat.equals("json")) {
+      throw new CmdLineException("Don't understand '-statsFormat' option '"
+          + statsFormat + "'");
+    }
     if (printer.equals("summary")) {
-      report = new TextReport(out, maxExcellentCost, maxAcceptableCost, worstOffenderCount);
+      report = new TextReport(reportOut, maxExcellentCost, maxAcceptableCost, worstOffenderCount);
     } else if (printer.equals("html")) {
-      report = new HtmlReport(out, maxExcellentCost, maxAcceptableCost, worstOffenderCount);
+      HtmlReport htmlReport = new HtmlReport(reportOut, maxExcellentCost,
+          maxAcceptableCost, worstOffenderCount);
+      htmlReport.setRemoteCharts(remoteCharts);
+      htmlReport.setClassTable(classTable);
+      report = htmlReport;
     } else if (printer.equals("detail")) {
-      report = new DrillDownReport(out, entryList, printDepth, minCost);
+      report = new DrillDownReport(reportOut, entryList, printDepth, minCost,
+          streamDetail);
+    } else if (printer.equals("jsonl")) {
+      report = new JsonLinesReport(reportOut);
+    } else if (printer.equals("csv")) {
+      report = new CsvReport(reportOut);
+    } else if (printer.equals("bin")) {
+      report = new BinaryReport(reportOut);
+    } else if (printer.equals("packages")) {
+      report = new PackageReport(reportOut, packageDepth);
+    } else if (printer.equals("partial")) {
+      report = new PartialReport(reportOut, maxExcellentCost, maxAcceptableCost, worstOffenderCount);
     } else {
       throw new CmdLineException("Don't understand '-print' option '"
           + printer + "'");
     }
   }
 
+  private void parseShard(String value) throws CmdLineException {
+    int slash = value.indexOf('/');
+    try {
+      shardIndex = Integer.parseInt(value.substring(0, slash));
+      shardCount = Integer.parseInt(value.substring(slash + 1));
+    } catch (RuntimeException e) {
+      throw new CmdLineException("Don't understand '-shard' option '"
+          + value + "'");
+    }
+    if (shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount) {
+      throw new CmdLineException("Don't understand '-shard' option '"
+          + value + "'");
+    }
+  }
+
+  static boolean isInShard(String className, int shardIndex, int shardCount) {
+    return (className.hashCode() & Integer.MAX_VALUE) % shardCount == shardIndex;
+  }
+
+  private List<String> getClassNamesToAnalyze() {
+    List<String> classNames = classpath.getClassNamesToEnter(entryList);
+    if (shardCount == 1) {
+      return classNames;
+    }
+    List<String> shardClassNames = new ArrayList<String>();
+    for (String className : classNames) {
+      if (isInShard(className, shardIndex, shardCount)) {
+        shardClassNames.add(className);
+      }
+    }
+    return shardClassNames;
+  }
+
+  private SummaryPack readSummaryPacks(String files) throws CmdLineException {
+    SummaryPack pack = new SummaryPack();
+    for (String file : new ColonDelimitedStringParser(files).getStrings()) {
+      try {
+        FileReader reader = new FileReader(file);
+        try {
+          pack.read(reader);
+        } finally {
+          reader.close();
+        }
+      } catch (IOException e) {
+        err.println("Can not read summary pack '" + file + "': "
+            + e.getMessage());
+        throw new CmdLineException("Exiting...");
+      }
+    }
+    return pack;
+  }
+
   public void execute() throws CmdLineException {
-    postParse();
+    AsyncOutputStream asyncOut = null;
+    reportOut = out;
+    if (asyncOutput || gzip) {
+      try {
+        asyncOut = new AsyncOutputStream(out, gzip);
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+      reportOut = new PrintStream(asyncOut);
+    }
+    ExecutorService translationPool = null;
+    try {
+      postParse();
+      ClassRepository repository = newRepository();
+      MetricsRegistry metrics = null;
+      if (metricsFile != null) {
+        metrics = new MetricsRegistry();
+        repository.setListener(CompositeAnalysisListener.combine(
+            repository.getListener(), new MetricsListener(metrics)));
+      }
+      if (translationThreads > 0) {
+        translationPool = Executors.newFixedThreadPool(translationThreads);
+        repository.setTranslationExecutor(translationPool,
+            PARALLEL_TRANSLATION_MIN_METHODS);
+      }
+      if (writeSummaryPack == null) {
+        analyze(repository);
+      } else {
+        writeSummaryPack(repository);
+      }
+      if (metrics != null) {
+        writeMetrics(metrics);
+      }
+    } finally {
+      if (translationPool != null) {
+        translationPool.shutdown();
+      }
+      if (asyncOut != null) {
+        closeAsyncOutput(asyncOut);
+      }
+    }
+  }
+
+  /**
+   * The repository for {@link #classpath}, with the statistics, profiler and
+   * Java Flight Recorder listener the options ask for.
+   */
+  ClassRepository newRepository() throws CmdLineException {
     ClassRepository repository = new ClassRepository(classpath);
+    repository.getStatistics().setTimed(printStatistics);
+    if (profileCount > 0) {
+      repository.setProfiler(new AnalysisProfiler(profileCount));
+    }
+    if (jfr) {
+      repository.setListener(newJfrListener());
+    }
+    return repository;
+  }
+
+  /**
+   * Loaded by name, so that VMs without JFR never load the event classes.
+   */
+  private AnalysisListener newJfrListener() throws CmdLineException {
+    try {
+      return (AnalysisListener) Class.forName(
+          "com.google.test.metric.jfr.JfrAnalysisListener")
+          .getConstructor().newInstance();
+    } catch (java.lang.ClassNotFoundException e) {
+      throw new CmdLineException("Can not use -jfr: " + e);
+    } catch (NoSuchMethodException e) {
+      throw new CmdLineException("Can not use -jfr: " + e);
+    } catch (InstantiationException e) {
+      throw new CmdLineException("Can not use -jfr: " + e);
+    } catch (IllegalAccessException e) {
+      throw new CmdLineException("Can not use -jfr: " + e);
+    } catch (InvocationTargetException e) {
+      throw new CmdLineException("Can not use -jfr: " + e.getCause());
+    } catch (LinkageError e) {
+      throw new CmdLineException("Can not use -jfr, this VM has no Java "
+          + "Flight Recorder: " + e);
+    }
+  }
+
+  private void writeMetrics(MetricsRegistry metrics) throws CmdLineException {
+    if (metricsFile.equals("-")) {
+      metrics.writePrometheus(err);
+      return;
+    }
+    try {
+      metrics.writePrometheus(new File(metricsFile));
+    } catch (IOException e) {
+      err.println("Can not write metrics '" + metricsFile + "': "
+          + e.getMessage());
+      throw new CmdLineException("Exiting...");
+    }
+  }
+
+  private void closeAsyncOutput(AsyncOutputStream asyncOut) {
+    reportOut.flush();
+    try {
+      asyncOut.close();
+    } catch (IOException e) {
+      err.println("Can not write report: " + e.getMessage());
+    }
+  }
+
+  private void analyze(ClassRepository repository) {
     CostModel costModel = new CostModel(cyclomaticMultiplier, globalMultiplier);
-    MetricComputer computer = new MetricComputer(repository, err, whitelist, costModel);
-    List<String> classNames = classpath.getClassNamesToEnter(entryList);
-    report.printHeader();
-    for (String className : classNames) {
+    MetricComputer computer = new MetricComputer(repository, err, whitelist,
+        costModel, summaryPack);
+    computer.setBudget(new AnalysisBudget(maxClassOperations, maxClassMethods,
+        maxClassMillis));
+    RunStatistics statistics = repository.getStatistics();
+    Phase previous = statistics.enter(Phase.SCAN);
+    ProgressReporter progress = null;
+    try {
+      List<String> classNames = getClassNamesToAnalyze();
+      // Computing and parsing enter their own phases and switch back.
+      statistics.enter(Phase.REPORT);
+      report.printHeader();
+      AnalysisProfiler profiler = repository.getProfiler();
+      progress = startProgress(classNames.size());
+      for (String className : classNames) {
+        if (progress != null) {
+          progress.classStarted(className);
+        }
+        try {
+          AnalysisProfiler.Start start = profiler == null ? null : profiler.start();
+          ClassCost classCost = computer.compute(repository.getClass(className));
+          if (profiler != null) {
+            profiler.classAnalyzed(className, start);
+          }
+          report.addClassCost(classCost);
+        } catch (ClassNotFoundException e) {
+          warn(repository, "WARNING: can not analyze class '" + className +
+              "' since class '" + e.getClassName() + "' was not found.");
+        }
+        if (progress != null) {
+          progress.classFinished();
+        }
+      }
+      report.printFooter();
+    } finally {
+      if (progress != null) {
+        progress.stop();
+      }
+      statistics.exit(previous);
+    }
+    if (printFootprint) {
+      HeapFootprint footprint = new HeapFootprint();
+      footprint.add(repository);
+      footprint.add(report);
+      footprint.print(err);
+    }
+    if (repository.getProfiler() != null) {
+      repository.getProfiler().print(err);
+    }
+    if (printStatistics) {
+      if (statsFormat.equals("json")) {
+        statistics.printJson(err);
+      } else {
+        statistics.print(err);
+      }
+    }
+  }
+
+  private void warn(ClassRepository repository, String message) {
+    err.println(message);
+    if (repository.getListener() != null) {
+      repository.getListener().warning(message);
+    }
+  }
+
+  private ProgressReporter startProgress(int classCount) {
+    if (progressSeconds <= 0 && progressFile == null) {
+      return null;
+    }
+    ProgressReporter progress = new ProgressReporter(classCount, err,
+        progressFile == null ? null : new File(progressFile));
+    progress.start(1000L * (progressSeconds > 0
+        ? progressSeconds : DEFAULT_PROGRESS_SECONDS));
+    return progress;
+  }
+
+  private void writeSummaryPack(ClassRepository repository)
+      throws CmdLineException {
+    CostModel costModel = new CostModel(cyclomaticMultiplier, globalMultiplier);
+    MetricComputer computer = new MetricComputer(repository, err, whitelist,
+        costModel, summaryPack);
+    // A truncated summary would undercount every run which uses the pack.
+    if (!new AnalysisBudget(maxClassOperations, maxClassMethods,
+        maxClassMillis).isUnlimited()) {
+      err.println("WARNING: -maxClassMethods, -maxClassOperations and "
+          + "-maxClassMillis are not applied when writing a summary pack.");
+    }
+    SummaryPack pack = new SummaryPack();
+    for (String className : getClassNamesToAnalyze()) {
       try {
-        ClassCost classCost = computer.compute(repository.getClass(className));
-        report.addClassCost(classCost);
+        for (MethodInfo method : repository.getClass(className).getMethods()) {
+          computer.summarize(method, pack);
+        }
       } catch (ClassNotFoundException e) {
-        err.println("WARNING: can not analyze class '" + className +
+        warn(repository, "WARNING: can not summarize class '" + className +
             "' since class '" + e.getClassName() + "' was not found.");
       }
     }
-    report.printFooter();
+    try {
+      PrintStream packOut = new PrintStream(new FileOutputStream(writeSummaryPack));
+      try {
+        pack.write(packOut);
+      } finally {
+        packOut.close();
+      }
+    } catch (IOException e) {
+      err.println("Can not write summary pack '" + writeSummaryPack + "': "
+          + e.getMessage());
+      throw new CmdLineException("Exiting...");
+    }
+    err.println("Wrote " + pack.size() + " method summaries to "
+        + writeSummaryPack);
   }
 }
@@ -33,20 +33,125 @@ public class TestabilityContext {
   private final PrintStream err;
   private final WhiteList whitelist;
   private final CostModel linkContext;
+  private final SummaryPack summaryPack;
+  private final Map<String, MethodCost> summarizedCosts = new HashMap<String, MethodCost>();
+  private final AnalysisBudget.Meter meter;
   private Variable returnValue;
 
   public TestabilityContext(ClassRepository classRepository, PrintStream err,
     WhiteList whitelist, CostModel linkContext) {
+    this(classRepository, err, whitelist, linkContext, null);
+  }
+
+  public TestabilityContext(ClassRepository classRepository, PrintStream err,
+      WhiteList whitelist, CostModel linkContext, SummaryPack summaryPack) {
+    this(classRepository, err, whitelist, linkContext, summaryPack,
+        AnalysisBudget.UNLIMITED.start());
+  }
+
+  /**
+   * @param meter counts the work done, and stops calls from being followed
+   *        once its budget is exhausted. May be shared between the contexts
+   *        of one class.
+   */
+  public TestabilityContext(ClassRepository classRepository, PrintStream err,
+      WhiteList whitelist, CostModel linkContext, SummaryPack summaryPack,
+      AnalysisBudget.Meter meter) {
     this.classRepository = classRepository;
     this.err = err;
     this.whitelist = whitelist;
     this.linkContext = linkContext;
+    this.summaryPack = summaryPack;
+    this.meter = meter;
+  }
+
+  public ClassInfo getClass(String clazzName) {
+    return classRepository.getClass(clazzName);
   }
 
   public MethodInfo getMethod(String clazzName, String methodName) {
     return classRepository.getClass(clazzName).getMethod(methodName);
   }
 
+  /**
+   * Resolves the target of a method call and decides whether its cost has to
+   * be added to the caller.
+   *
+   * @return the called method, or null if the call is whitelisted, already
+   *         visited, can be overridden through an injectable instance or can
+   *         not be resolved. Also null if the method is in the summary pack,
+   *         in which case its summarized cost has already been added and
+   *         {@code returnValue} made global if the method returns global
+   *         state.
+   */
+  public MethodInfo getCalledMethod(MethodInfo fromMethod, int fromLineNumber,
+      String clazzName, String methodName, Variable methodThis,
+      Variable returnValue) {
+    classRepository.getStatistics().invocationVisited();
+    if (classRepository.getListener() != null) {
+      classRepository.getListener().invocationFollowed(clazzName, methodName);
+    }
+    if (isClassWhiteListed(clazzName)) {
+      return null;
+    }
+    if (summaryPack != null) {
+      String fullName = clazzName + "." + methodName;
+      if (summaryPack.contains(fullName)) {
+        recordSummarizedCall(fromMethod, fromLineNumber, fullName, methodThis,
+            returnValue);
+        return null;
+      }
+    }
+    try {
+      MethodInfo toMethod = getMethod(clazzName, methodName);
+      if (methodAlreadyVisited(toMethod)) {
+        // Method already counted, skip (to prevent recursion)
+        return null;
+      } else if (toMethod.canOverride() && isInjectable(methodThis)) {
+        // Method can be overridden / injectable
+        return null;
+      } else if (meter.isExhausted()) {
+        // Over budget, leave the callee out
+        meter.truncate();
+        return null;
+      }
+      return toMethod;
+    } catch (ClassNotFoundException e) {
+      reportError("WARNING: class not found: " + clazzName);
+    } catch (MethodNotFoundException e) {
+      reportError("WARNING: method not found: " + e.getMethodName()
+          + " in " + e.getClassInfo().getName());
+    }
+    return null;
+  }
+
+  private void recordSummarizedCall(MethodInfo fromMethod, int fromLineNumber,
+      String methodName, Variable methodThis, Variable returnValue) {
+    if (summarizedCosts.containsKey(methodName)) {
+      // Method already counted
+    } else if (summaryPack.canOverride(methodName) && isInjectable(methodThis)) {
+      // Method can be overridden / injectable
+    } else {
+      MethodCost cost = summaryPack.getMethodCost(methodName);
+      summarizedCosts.put(methodName, cost);
+      getMethodCost(fromMethod).addMethodCost(fromLineNumber, cost);
+      // As the return value assignment of invokeMethod would
+      if (summaryPack.returnsGlobal(methodName)) {
+        setGlobal(returnValue);
+      }
+    }
+  }
+
+  /**
+   * Called before the operations of a method are evaluated.
+   */
+  public void methodVisited(int operationCount) {
+    meter.methodVisited(operationCount);
+    if (classRepository != null && classRepository.getListener() != null) {
+      classRepository.getListener().methodEvaluated(operationCount);
+    }
+  }
+
   public boolean methodAlreadyVisited(MethodInfo method) {
     return methodCosts.containsKey(method);
   }
@@ -61,6 +166,38 @@ public class TestabilityContext {
     }
   }
 
+  /**
+   * Follows a call from {@code fromMethod} to {@code methodName} of
+   * {@code clazzName}: assigns this, the arguments and the return value and
+   * adds the cost of the called method, unless the call is not followed (see
+   * {@link #getCalledMethod}).
+   */
+  public void invokeMethod(MethodInfo fromMethod, int lineNumber,
+      String clazzName, String methodName, Variable methodThis,
+      List<? extends Variable> arguments, Variable returnValue) {
+    MethodInfo toMethod = getCalledMethod(fromMethod, lineNumber, clazzName,
+        methodName, methodThis, returnValue);
+    if (toMethod == null) {
+      return;
+    }
+    // Method can not be intercepted we have to add the cost recursively
+    if (toMethod.isInstance()) {
+      localAssignment(toMethod, lineNumber, toMethod.getMethodThis(),
+          methodThis);
+    }
+    List<? extends Variable> parameters = toMethod.getParameters();
+    if (arguments.size() != parameters.size()) {
+      throw new IllegalStateException(
+          "Argument count does not match method parameter count.");
+    }
+    for (int i = 0; i < arguments.size(); i++) {
+      localAssignment(toMethod, lineNumber, parameters.get(i),
+          arguments.get(i));
+    }
+    recordMethodCall(fromMethod, lineNumber, toMethod);
+    localAssignment(toMethod, lineNumber, returnValue, getReturnValue());
+  }
+
   public MethodCost getLinkedMethodCost(MethodInfo method) {
     MethodCost cost = getMethodCost(method);
     cost.link(linkContext);
@@ -172,6 +309,9 @@ public class TestabilityContext {
 
   public void reportError(String errorMessage) {
     err.println(errorMessage);
+    if (classRepository != null && classRepository.getListener() != null) {
+      classRepository.getListener().warning(errorMessage);
+    }
   }
 
   public WhiteList getWhitelist() {
@@ -17,6 +17,7 @@ package com.google.test.metric.asm;
 
 import com.google.test.metric.ClassInfo;
 import com.google.test.metric.ClassRepository;
+import com.google.test.metric.MethodInfo;
 
 import org.objectweb.asm.FieldVisitor;
 import org.objectweb.asm.MethodVisitor;
@@ -24,11 +25,16 @@ import org.objectweb.asm.Opcodes;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 public class ClassInfoBuilderVisitor extends NoopClassVisitor {
 
   private final ClassRepository repository;
   private ClassInfo classInfo;
+  private final List<MethodVisitorBuilder> methods = new ArrayList<MethodVisitorBuilder>();
 
   public ClassInfoBuilderVisitor(ClassRepository repository) {
     this.repository = repository;
@@ -53,8 +59,70 @@ public class ClassInfoBuilderVisitor extends NoopClassVisitor {
   public MethodVisitor visitMethod(int access, String name, String desc,
       String signature, String[] exceptions) {
     boolean isStatic = (access & Opcodes.ACC_STATIC) == Opcodes.ACC_STATIC;
-    return new MethodVisitorBuilder(repository, classInfo, name, desc, signature,
-        exceptions, isStatic, Visibility.valueOf(access));
+    MethodVisitorBuilder method = new MethodVisitorBuilder(repository,
+        classInfo, name, desc, signature, exceptions, isStatic,
+        Visibility.valueOf(access));
+    methods.add(method);
+    return method;
+  }
+
+  /**
+   * All of the methods have been visited at this point, but none of them has
+   * been translated yet. The translation does not need the repository (field
+   * owners are resolved later, see FieldReference), so for large classes it
+   * can be farmed out to the translation executor. Methods
+   * are added to the class only here, so the class is complete once parsing
+   * returns.
+   */
+  @Override
+  public void visitEnd() {
+    Executor executor = repository.getTranslationExecutor();
+    if (executor == null
+        || methods.size() < repository.getParallelTranslationThreshold()) {
+      for (MethodVisitorBuilder method : methods) {
+        classInfo.addMethod(method.buildMethodInfo());
+      }
+    } else {
+      translateInParallel(executor);
+    }
+    methods.clear();
+  }
+
+  private void translateInParallel(Executor executor) {
+    List<FutureTask<MethodInfo>> tasks = new ArrayList<FutureTask<MethodInfo>>();
+    for (final MethodVisitorBuilder method : methods) {
+      FutureTask<MethodInfo> task = new FutureTask<MethodInfo>(
+          new Callable<MethodInfo>() {
+            public MethodInfo call() {
+              return method.buildMethodInfo();
+            }
+          });
+      tasks.add(task);
+      executor.execute(task);
+    }
+    for (FutureTask<MethodInfo> task : tasks) {
+      // Run the task here if no pool thread got to it yet (a FutureTask only
+      // runs once), so we never just wait on a busy pool.
+      task.run();
+      classInfo.addMethod(get(task));
+    }
+  }
+
+  private MethodInfo get(FutureTask<MethodInfo> task) {
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new RuntimeException(cause);
+    }
   }
 
   @Override
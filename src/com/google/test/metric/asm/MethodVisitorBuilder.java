@@ -17,6 +17,8 @@ package com.google.test.metric.asm;
 
 import static com.google.test.metric.asm.SignatureParser.parse;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -28,17 +30,21 @@ import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 
+import com.google.test.metric.AnalysisListener;
+import com.google.test.metric.AnalysisProfiler;
 import com.google.test.metric.ClassInfo;
 import com.google.test.metric.ClassRepository;
-import com.google.test.metric.FieldInfo;
-import com.google.test.metric.FieldNotFoundException;
+import com.google.test.metric.FieldReference;
 import com.google.test.metric.LocalVariableInfo;
 import com.google.test.metric.MethodInfo;
 import com.google.test.metric.ParameterInfo;
+import com.google.test.metric.RunStatistics;
+import com.google.test.metric.RunStatistics.Phase;
 import com.google.test.metric.Type;
 import com.google.test.metric.Variable;
 import com.google.test.metric.method.BlockDecomposer;
 import com.google.test.metric.method.Constant;
+import com.google.test.metric.method.StraightLineTranslator;
 import com.google.test.metric.method.op.stack.ArrayLoad;
 import com.google.test.metric.method.op.stack.ArrayStore;
 import com.google.test.metric.method.op.stack.Convert;
@@ -54,10 +60,12 @@ import com.google.test.metric.method.op.stack.MultiANewArrayIns;
 import com.google.test.metric.method.op.stack.Pop;
 import com.google.test.metric.method.op.stack.RetSub;
 import com.google.test.metric.method.op.stack.Return;
+import com.google.test.metric.method.op.stack.StackOperation;
 import com.google.test.metric.method.op.stack.Store;
 import com.google.test.metric.method.op.stack.Swap;
 import com.google.test.metric.method.op.stack.Throw;
 import com.google.test.metric.method.op.stack.Transform;
+import com.google.test.metric.method.op.turing.Operation;
 
 public class MethodVisitorBuilder implements MethodVisitor {
 
@@ -66,11 +74,27 @@ public class MethodVisitorBuilder implements MethodVisitor {
   private final String desc;
   private final Visibility visibility;
   private final Map<Integer, Variable> slots = new HashMap<Integer, Variable>();
-  private final BlockDecomposer block = new BlockDecomposer();
+  private final BlockDecomposer block;
   private final List<Runnable> recorder = new LinkedList<Runnable>();
   private final ClassRepository repository;
 
   private long cyclomaticComplexity = 1;
+  /**
+   * Set by any jump, switch, subroutine or exception handler. Methods without
+   * control flow are a single block and skip the BlockDecomposer.
+   */
+  private boolean hasControlFlow;
+  /**
+   * Set by any instruction which can translate into an Operation (store,
+   * put field, array store, invoke, non void return). Methods without such
+   * instructions translate to an empty operation list.
+   */
+  private boolean producesOperations;
+  /**
+   * Collects the stack operations instead of the BlockDecomposer when the
+   * method is translated on the fast path.
+   */
+  private List<StackOperation> straightLineOperations;
   private Variable methodThis;
   private int lineNumber;
   private int startingLineNumber;
@@ -80,7 +104,20 @@ public class MethodVisitorBuilder implements MethodVisitor {
   public MethodVisitorBuilder(ClassRepository repository, ClassInfo classInfo,
       String name, String desc, String signature, String[] exceptions,
       boolean isStatic, Visibility visibility) {
+    this(repository, classInfo, name, desc, signature, exceptions, isStatic,
+        visibility, new BlockDecomposer());
+  }
+
+  /**
+   * @param block receives the stack operations and control flow of methods
+   *     which are not translated on the fast path, ex. a decomposer which
+   *     records its calls for the benchmarks.
+   */
+  public MethodVisitorBuilder(ClassRepository repository, ClassInfo classInfo,
+      String name, String desc, String signature, String[] exceptions,
+      boolean isStatic, Visibility visibility, BlockDecomposer block) {
     this.repository = repository;
+    this.block = block;
     this.classInfo = classInfo;
     this.name = name;
     this.desc = desc;
@@ -103,10 +140,11 @@ public class MethodVisitorBuilder implements MethodVisitor {
   }
 
   public void visitJumpInsn(final int opcode, final Label label) {
+    hasControlFlow = true;
     if (opcode == Opcodes.GOTO) {
       recorder.add(new Runnable() {
         public void run() {
-          block.addOp(new Transform(lineNumber, "GOTO", null, null, null));
+          addOp(new Transform(lineNumber, "GOTO", null, null, null));
           block.unconditionalGoto(label);
         }
       });
@@ -174,11 +212,11 @@ public class MethodVisitorBuilder implements MethodVisitor {
         }
 
         private void if1(String name) {
-          block.addOp(new Transform(lineNumber, name, Type.INT, null, null));
+          addOp(new Transform(lineNumber, name, Type.INT, null, null));
         }
 
         private void if2(String name) {
-          block.addOp(new Transform(lineNumber, name, Type.INT, Type.INT, null));
+          addOp(new Transform(lineNumber, name, Type.INT, Type.INT, null));
         }
       });
     }
@@ -186,6 +224,7 @@ public class MethodVisitorBuilder implements MethodVisitor {
 
   public void visitTryCatchBlock(final Label start, final Label end,
       final Label handler, final String type) {
+    hasControlFlow = true;
     if (type != null) {
       cyclomaticComplexity++;
     }
@@ -198,6 +237,7 @@ public class MethodVisitorBuilder implements MethodVisitor {
 
   public void visitTableSwitchInsn(int min, int max, final Label dflt,
       final Label[] labels) {
+    hasControlFlow = true;
     for (Label label : labels) {
       if (label != dflt) {
         cyclomaticComplexity++;
@@ -205,7 +245,7 @@ public class MethodVisitorBuilder implements MethodVisitor {
     }
     recorder.add(new Runnable() {
       public void run() {
-        block.addOp(new Pop(lineNumber, 1));
+        addOp(new Pop(lineNumber, 1));
         block.tableSwitch(dflt, labels);
       }
     });
@@ -213,6 +253,7 @@ public class MethodVisitorBuilder implements MethodVisitor {
 
   public void visitLookupSwitchInsn(final Label dflt, final int[] keys,
       final Label[] labels) {
+    hasControlFlow = true;
     for (Label label : labels) {
       if (label != null) {
         cyclomaticComplexity++;
@@ -220,7 +261,7 @@ public class MethodVisitorBuilder implements MethodVisitor {
     }
     recorder.add(new Runnable() {
       public void run() {
-        block.addOp(new Pop(lineNumber, 1));
+        addOp(new Pop(lineNumber, 1));
         block.tableSwitch(dflt, labels);
       }
     });
@@ -251,21 +292,85 @@ public class MethodVisitorBuilder implements MethodVisitor {
   }
 
   public void visitEnd() {
+  }
+
+  /**
+   * Replays the recorded instructions, breaks the method into blocks and
+   * translates it. Must be called after {@link #visitEnd()}. Fields are only
+   * recorded as {@link FieldReference}s, so this only touches the state of
+   * this method and does not have to run on the thread which visited the
+   * method (see {@link ClassInfoBuilderVisitor}).
+   */
+  public MethodInfo buildMethodInfo() {
+    AnalysisProfiler profiler = repository.getProfiler();
+    AnalysisProfiler.Start start = profiler == null ? null : profiler.start();
+    AnalysisListener listener = repository.getListener();
+    Object token = listener == null ? null
+        : listener.methodTranslationStarted(classInfo.getName(), name + desc);
+    if (!hasControlFlow) {
+      straightLineOperations = new ArrayList<StackOperation>();
+    }
     for (Runnable runnable : recorder) {
       runnable.run();
     }
-    block.done();
     try {
-      MethodInfo methodInfo = new MethodInfo(classInfo, name, startingLineNumber,
-          desc, methodThis, parameters, localVariables, visibility,
-          cyclomaticComplexity, block.getOperations());
-      classInfo.addMethod(methodInfo);
+      List<Operation> operations = translate();
+      if (profiler != null) {
+        profiler.methodDecoded(classInfo.getName(), name + desc, start,
+            block.getBlockCount(), block.getPathCount(), operations.size());
+      }
+      if (listener != null) {
+        listener.methodTranslationFinished(token, block.getBlockCount(),
+            block.getPathCount(), operations.size());
+      }
+      return new MethodInfo(classInfo, name, startingLineNumber, desc,
+          methodThis, parameters, localVariables, visibility,
+          cyclomaticComplexity, operations);
     } catch (IllegalStateException e) {
       throw new IllegalStateException("Error in " + classInfo + "." + name
           + desc, e);
     }
   }
 
+  private List<Operation> translate() {
+    RunStatistics statistics = repository.getStatistics();
+    if (hasControlFlow) {
+      Phase previous = statistics.enter(Phase.DECOMPOSE);
+      try {
+        block.done();
+        statistics.enter(Phase.TRANSLATE);
+        List<Operation> operations = block.getOperations();
+        statistics.methodTranslated();
+        statistics.operationsTranslated(operations.size());
+        return operations;
+      } finally {
+        statistics.exit(previous);
+      }
+    } else if (producesOperations) {
+      Phase previous = statistics.enter(Phase.TRANSLATE);
+      try {
+        List<Operation> operations =
+            new StraightLineTranslator(straightLineOperations).translate();
+        statistics.straightLineMethodTranslated();
+        statistics.operationsTranslated(operations.size());
+        return operations;
+      } finally {
+        statistics.exit(previous);
+      }
+    } else {
+      repository.getStatistics().emptyMethodSkipped();
+      return Collections.emptyList();
+    }
+  }
+
+  private void addOp(StackOperation operation) {
+    if (straightLineOperations != null) {
+      straightLineOperations.add(operation);
+    } else {
+      block.addOp(operation);
+    }
+  }
+
   public void visitTypeInsn(final int opcode, final String desc) {
     if (desc.length() == 1) {
       throw new IllegalStateException(
@@ -278,20 +383,19 @@ public class MethodVisitorBuilder implements MethodVisitor {
         switch (opcode) {
           case Opcodes.NEW :
             Constant constant = new Constant("new", type);
-            block.addOp(new Load(lineNumber, constant));
+            addOp(new Load(lineNumber, constant));
             break;
           case Opcodes.NEWARRAY :
           case Opcodes.ANEWARRAY :
-            block.addOp(new Transform(lineNumber, "newarray", Type.INT, null,
+            addOp(new Transform(lineNumber, "newarray", Type.INT, null,
                 type.toArray()));
             break;
           case Opcodes.INSTANCEOF :
-            block.addOp(new Transform(lineNumber, "instanceof", Type.OBJECT,
+            addOp(new Transform(lineNumber, "instanceof", Type.OBJECT,
                 null, Type.INT));
             break;
           case Opcodes.CHECKCAST :
-            block
-                .addOp(new Transform(lineNumber, "checkcast", type, null, type));
+            addOp(new Transform(lineNumber, "checkcast", type, null, type));
             break;
           default :
             throw new UnsupportedOperationException("" + opcode);
@@ -335,9 +439,10 @@ public class MethodVisitorBuilder implements MethodVisitor {
         break;
 
       case Opcodes.RET :
+        hasControlFlow = true;
         recorder.add(new Runnable() {
           public void run() {
-            block.addOp(new RetSub(lineNumber));
+            addOp(new RetSub(lineNumber));
           }
         });
         break;
@@ -347,9 +452,10 @@ public class MethodVisitorBuilder implements MethodVisitor {
   }
 
   private void store(final int var, final Type type) {
+    producesOperations = true;
     recorder.add(new Runnable() {
       public void run() {
-        block.addOp(new Store(lineNumber, variable(var, type)));
+        addOp(new Store(lineNumber, variable(var, type)));
       }
     });
   }
@@ -357,7 +463,7 @@ public class MethodVisitorBuilder implements MethodVisitor {
   private void load(final int var, final Type type) {
     recorder.add(new Runnable() {
       public void run() {
-        block.addOp(new Load(lineNumber, variable(var, type)));
+        addOp(new Load(lineNumber, variable(var, type)));
       }
     });
   }
@@ -384,7 +490,9 @@ public class MethodVisitorBuilder implements MethodVisitor {
   public void visitLabel(final Label label) {
     recorder.add(new Runnable() {
       public void run() {
-        block.label(label);
+        if (straightLineOperations == null) {
+          block.label(label);
+        }
       }
     });
   }
@@ -392,7 +500,7 @@ public class MethodVisitorBuilder implements MethodVisitor {
   public void visitLdcInsn(final Object cst) {
     recorder.add(new Runnable() {
       public void run() {
-        block.addOp(new Load(lineNumber, new Constant(cst, Type.fromClass(cst
+        addOp(new Load(lineNumber, new Constant(cst, Type.fromClass(cst
             .getClass()))));
       }
     });
@@ -403,7 +511,7 @@ public class MethodVisitorBuilder implements MethodVisitor {
       case Opcodes.ACONST_NULL :
         recorder.add(new Runnable() {
           public void run() {
-            block.addOp(new Load(lineNumber, new Constant(null, Type.OBJECT)));
+            addOp(new Load(lineNumber, new Constant(null, Type.OBJECT)));
           }
         });
         break;
@@ -482,7 +590,7 @@ public class MethodVisitorBuilder implements MethodVisitor {
       case Opcodes.POP2 :
         recorder.add(new Runnable() {
           public void run() {
-            block.addOp(new Pop(lineNumber, opcode - Opcodes.POP + 1));
+            addOp(new Pop(lineNumber, opcode - Opcodes.POP + 1));
           }
         });
         break;
@@ -492,7 +600,7 @@ public class MethodVisitorBuilder implements MethodVisitor {
         recorder.add(new Runnable() {
           public void run() {
             int offset = opcode - Opcodes.DUP;
-            block.addOp(new Duplicate(lineNumber, offset));
+            addOp(new Duplicate(lineNumber, offset));
           }
         });
         break;
@@ -501,14 +609,14 @@ public class MethodVisitorBuilder implements MethodVisitor {
       case Opcodes.DUP2_X2 :
         recorder.add(new Runnable() {
           public void run() {
-            block.addOp(new Duplicate2(lineNumber, opcode - Opcodes.DUP2));
+            addOp(new Duplicate2(lineNumber, opcode - Opcodes.DUP2));
           }
         });
         break;
       case Opcodes.SWAP :
         recorder.add(new Runnable() {
           public void run() {
-            block.addOp(new Swap(lineNumber));
+            addOp(new Swap(lineNumber));
           }
         });
         break;
@@ -530,7 +638,7 @@ public class MethodVisitorBuilder implements MethodVisitor {
       case Opcodes.ATHROW :
         recorder.add(new Runnable() {
           public void run() {
-            block.addOp(new Throw(lineNumber));
+            addOp(new Throw(lineNumber));
           }
         });
         break;
@@ -711,14 +819,14 @@ public class MethodVisitorBuilder implements MethodVisitor {
       case Opcodes.MONITORENTER :
         recorder.add(new Runnable() {
           public void run() {
-            block.addOp(new MonitorEnter(lineNumber));
+            addOp(new MonitorEnter(lineNumber));
           }
         });
         break;
       case Opcodes.MONITOREXIT :
         recorder.add(new Runnable() {
           public void run() {
-            block.addOp(new MonitorExit(lineNumber));
+            addOp(new MonitorExit(lineNumber));
           }
         });
         break;
@@ -729,7 +837,7 @@ public class MethodVisitorBuilder implements MethodVisitor {
       final Type op2, final Type result) {
     recorder.add(new Runnable() {
       public void run() {
-        block.addOp(new Transform(lineNumber, operation, op1, op2, result));
+        addOp(new Transform(lineNumber, operation, op1, op2, result));
       }
     });
   }
@@ -737,15 +845,18 @@ public class MethodVisitorBuilder implements MethodVisitor {
   private void convert(final Type from, final Type to) {
     recorder.add(new Runnable() {
       public void run() {
-        block.addOp(new Convert(lineNumber, from, to));
+        addOp(new Convert(lineNumber, from, to));
       }
     });
   }
 
   private void _return(final Type type) {
+    if (type != Type.VOID) {
+      producesOperations = true;
+    }
     recorder.add(new Runnable() {
       public void run() {
-        block.addOp(new Return(lineNumber, type));
+        addOp(new Return(lineNumber, type));
       }
     });
   }
@@ -753,15 +864,16 @@ public class MethodVisitorBuilder implements MethodVisitor {
   private void recordArrayLoad(final Type type) {
     recorder.add(new Runnable() {
       public void run() {
-        block.addOp(new ArrayLoad(lineNumber, type));
+        addOp(new ArrayLoad(lineNumber, type));
       }
     });
   }
 
   private void recordArrayStore(final Type type) {
+    producesOperations = true;
     recorder.add(new Runnable() {
       public void run() {
-        block.addOp(new ArrayStore(lineNumber, type));
+        addOp(new ArrayStore(lineNumber, type));
       }
     });
   }
@@ -769,7 +881,7 @@ public class MethodVisitorBuilder implements MethodVisitor {
   private void loadConstant(final int constant, final Type type) {
     recorder.add(new Runnable() {
       public void run() {
-        block.addOp(new Load(lineNumber, new Constant(constant, type)));
+        addOp(new Load(lineNumber, new Constant(constant, type)));
       }
     });
   }
@@ -778,28 +890,31 @@ public class MethodVisitorBuilder implements MethodVisitor {
       final String name, final String desc) {
     switch (opcode) {
       case Opcodes.PUTSTATIC :
-          recorder.add(new PutFieldRunnable(repository, owner, name, desc, true));
+          producesOperations = true;
+          recorder.add(new PutFieldRunnable(owner, name, desc, true));
           break;
       case Opcodes.PUTFIELD :
-        recorder.add(new PutFieldRunnable(repository, owner, name, desc, false));
+        producesOperations = true;
+        recorder.add(new PutFieldRunnable(owner, name, desc, false));
         break;
       case Opcodes.GETSTATIC :
-          recorder.add(new GetFieldRunnable(repository, owner, name, desc, true));
+          recorder.add(new GetFieldRunnable(owner, name, desc, true));
           break;
       case Opcodes.GETFIELD :
-        recorder.add(new GetFieldRunnable(repository, owner, name, desc, false));
+        recorder.add(new GetFieldRunnable(owner, name, desc, false));
         break;
     }
   }
 
   public void visitMethodInsn(final int opcode, final String clazz,
       final String name, final String desc) {
+    producesOperations = true;
     SignatureParser signature = parse(desc);
     final List<Type> params = signature.getParameters();
     final Type returnType = signature.getReturnType();
     recorder.add(new Runnable() {
       public void run() {
-        block.addOp(new Invoke(lineNumber, clazz.replace('/', '.'), name, desc,
+        addOp(new Invoke(lineNumber, clazz.replace('/', '.'), name, desc,
             params, opcode == Opcodes.INVOKESTATIC, returnType));
       }
     });
@@ -827,7 +942,7 @@ public class MethodVisitorBuilder implements MethodVisitor {
     recorder.add(new Runnable() {
       public void run() {
         Variable variable = variable(var, Type.INT);
-        block.addOp(new Increment(lineNumber, increment, variable));
+        addOp(new Increment(lineNumber, increment, variable));
       }
     });
   }
@@ -874,7 +989,7 @@ public class MethodVisitorBuilder implements MethodVisitor {
   private void newArray(final int operand, final Type type) {
     recorder.add(new Runnable() {
       public void run() {
-        block.addOp(new Transform(lineNumber, "newarray", Type.INT, null, type
+        addOp(new Transform(lineNumber, "newarray", Type.INT, null, type
             .toArray()));
       }
     });
@@ -886,7 +1001,7 @@ public class MethodVisitorBuilder implements MethodVisitor {
   public void visitMultiANewArrayInsn(final String clazz, final int dims) {
     recorder.add(new Runnable() {
       public void run() {
-        block.addOp(new MultiANewArrayIns(lineNumber, Type.fromDesc(clazz),
+        addOp(new MultiANewArrayIns(lineNumber, Type.fromDesc(clazz),
             dims));
       }
     });
@@ -903,64 +1018,31 @@ public class MethodVisitorBuilder implements MethodVisitor {
   }
 
   private class PutFieldRunnable implements Runnable {
-    private final String fieldOwner;
-    private final String fieldName;
-    private final String fieldDesc;
-    private final boolean isStatic;
-    private final ClassRepository repository;
+    private final FieldReference field;
 
-    public PutFieldRunnable(ClassRepository repository, String owner, String name, String desc,
+    public PutFieldRunnable(String owner, String name, String desc,
         boolean isStatic) {
-      this.repository = repository;
-      this.fieldOwner = owner;
-      this.fieldName = name;
-      this.fieldDesc = desc;
-      this.isStatic = isStatic;
+      this.field = new FieldReference(owner, name, Type.fromDesc(desc),
+          isStatic);
     }
 
     public void run() {
-      FieldInfo field = null;
-      ClassInfo ownerClass = repository.getClass(fieldOwner);
-      try {
-        field = ownerClass.getField(fieldName);
-      } catch (FieldNotFoundException e) {
-        System.err.println("WARNING: field not found: " + fieldName);
-        field =
-            new FieldInfo(ownerClass, "FAKE:" + fieldName, Type
-                .fromDesc(fieldDesc), false, isStatic, false);
-      }
-      block.addOp(new com.google.test.metric.method.op.stack.PutField(
-          lineNumber, field));
+      addOp(new com.google.test.metric.method.op.stack.PutField(lineNumber,
+          field));
     }
   }
 
   private class GetFieldRunnable implements Runnable {
-    private final String fieldOwner;
-    private final String fieldName;
-    private final String fieldDesc;
-    private final boolean isStatic;
-    private final ClassRepository repository;
+    private final FieldReference field;
 
-    public GetFieldRunnable(ClassRepository repository, String owner, String name, String desc,
+    public GetFieldRunnable(String owner, String name, String desc,
         boolean isStatic) {
-      this.repository = repository;
-      this.fieldOwner = owner;
-      this.fieldName = name;
-      this.fieldDesc = desc;
-      this.isStatic = isStatic;
+      this.field = new FieldReference(owner, name, Type.fromDesc(desc),
+          isStatic);
     }
 
     public void run() {
-      FieldInfo field = null;
-      ClassInfo ownerClass = repository.getClass(fieldOwner);
-      try {
-        field = ownerClass.getField(fieldName);
-      } catch (FieldNotFoundException e) {
-        System.err.println("WARNING: field not found: " + fieldName);
-        field = new FieldInfo(ownerClass, "FAKE:" + fieldName, Type
-                .fromDesc(fieldDesc), false, isStatic, false);
-      }
-      block.addOp(new GetField(lineNumber, field));
+      addOp(new GetField(lineNumber, field));
     }
 
   }
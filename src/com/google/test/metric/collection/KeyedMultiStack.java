@@ -114,6 +114,8 @@ public class KeyedMultiStack<KEY, VALUE> {
 
   private final Map<KEY, List<Entry<VALUE>>> head = new HashMap<KEY, List<Entry<VALUE>>>();
 
+  private long pathCount;
+
   public KeyedMultiStack() {
   }
 
@@ -161,6 +163,7 @@ public class KeyedMultiStack<KEY, VALUE> {
   public void apply(KEY key, PopClosure<KEY, VALUE> popClosure) {
     int popSize = popClosure.getSize();
     List<List<VALUE>> paths = fillPopPaths(getHead(key), popSize);
+    pathCount += paths.size();
     popPaths(key, popSize);
     VALUE[][] values = (VALUE[][]) new Object[paths.size()][];
     int i = 0;
@@ -187,6 +190,15 @@ public class KeyedMultiStack<KEY, VALUE> {
     }
   }
 
+  /**
+   * @return how many times a closure has been applied to a virtual stack, ie.
+   *         the number of paths popped by all {@link #apply} calls so far.
+   *         Grows quickly with the number of splits which were not rejoined.
+   */
+  public long getPathCount() {
+    return pathCount;
+  }
+
   private void popPaths(KEY key, int size) {
     if (size == 0) {
       return;
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.google.test.metric.ClassLookup")
+@Label("Class Repository Lookup")
+@Category("Testability")
+@Description("A class looked up in the ClassRepository, which either had it "
+    + "already (hit) or has to parse it (miss).")
+@StackTrace(false)
+class ClassLookupEvent extends jdk.jfr.Event {
+
+  @Label("Class")
+  String className;
+
+  @Label("Hit")
+  boolean hit;
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.google.test.metric.ClassParse")
+@Label("Class Parse")
+@Category("Testability")
+@Description("A class file read and decoded into the ClassRepository. Nested "
+    + "events are the super classes and interfaces it pulled in.")
+class ClassParseEvent extends jdk.jfr.Event {
+
+  @Label("Class")
+  String className;
+
+  @Label("Class File Size")
+  @DataAmount
+  int byteCount;
+}
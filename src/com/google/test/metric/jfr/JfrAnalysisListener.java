@@ -0,0 +1,115 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.jfr;
+
+import com.google.test.metric.AnalysisListener;
+
+/**
+ * Emits each step of the analysis as a Java Flight Recorder event in the
+ * "Testability" category, to be correlated with GC and allocation events in
+ * Mission Control. Needs a VM with JFR, so Testability only loads this class
+ * by name when {@code -jfr} is given. The events are only recorded while a
+ * recording with them enabled is running.
+ */
+public class JfrAnalysisListener implements AnalysisListener {
+
+  public void classLookedUp(String className, boolean hit) {
+    ClassLookupEvent event = new ClassLookupEvent();
+    if (event.isEnabled()) {
+      event.className = className;
+      event.hit = hit;
+      event.commit();
+    }
+  }
+
+  public Object resourceLookupStarted(String resourceName) {
+    ResourceLookupEvent event = new ResourceLookupEvent();
+    event.resourceName = resourceName;
+    event.begin();
+    return event;
+  }
+
+  public void resourceLookupFinished(Object token, boolean found) {
+    ResourceLookupEvent event = (ResourceLookupEvent) token;
+    event.end();
+    if (event.shouldCommit()) {
+      event.found = found;
+      event.commit();
+    }
+  }
+
+  public Object classParseStarted(String className) {
+    ClassParseEvent event = new ClassParseEvent();
+    event.className = className;
+    event.begin();
+    return event;
+  }
+
+  public void classParseFinished(Object token, int byteCount) {
+    ClassParseEvent event = (ClassParseEvent) token;
+    event.end();
+    if (event.shouldCommit()) {
+      event.byteCount = byteCount;
+      event.commit();
+    }
+  }
+
+  public Object methodTranslationStarted(String className, String methodName) {
+    MethodTranslationEvent event = new MethodTranslationEvent();
+    event.className = className;
+    event.methodName = methodName;
+    event.begin();
+    return event;
+  }
+
+  public void methodTranslationFinished(Object token, int blockCount,
+      long pathCount, int operationCount) {
+    MethodTranslationEvent event = (MethodTranslationEvent) token;
+    event.end();
+    if (event.shouldCommit()) {
+      event.blockCount = blockCount;
+      event.pathCount = pathCount;
+      event.operationCount = operationCount;
+      event.commit();
+    }
+  }
+
+  public Object classCostStarted(String className) {
+    ClassCostEvent event = new ClassCostEvent();
+    event.className = className;
+    event.begin();
+    return event;
+  }
+
+  public void classCostFinished(Object token, long overallCost) {
+    ClassCostEvent event = (ClassCostEvent) token;
+    event.end();
+    if (event.shouldCommit()) {
+      event.overallCost = overallCost;
+      event.commit();
+    }
+  }
+
+  /** Too frequent to be worth an event. */
+  public void invocationFollowed(String className, String methodName) {
+  }
+
+  public void methodEvaluated(int operationCount) {
+  }
+
+  public void warning(String message) {
+  }
+}
@@ -113,6 +113,7 @@ public class BlockDecomposer {
   private Label lastLabel;
   private Block mainBlock;
   private int counter = 0;
+  private long pathCount;
 
   public void addOp(StackOperation operation) {
     lastFrame = new Frame(lastFrame, operation, lastLabel);
@@ -256,10 +257,29 @@ public class BlockDecomposer {
     if (mainBlock == null) {
       return Collections.emptyList();
     } else {
-      return new Stack2Turing(mainBlock).translate();
+      Stack2Turing translator = new Stack2Turing(mainBlock);
+      List<Operation> operations = translator.translate();
+      pathCount = translator.stack.getPathCount();
+      return operations;
     }
   }
 
+  /**
+   * @return the number of blocks and subroutines the method was broken into.
+   */
+  public int getBlockCount() {
+    return counter;
+  }
+
+  /**
+   * @return the number of stack paths the last {@link #getOperations()}
+   *         walked, see
+   *         {@link com.google.test.metric.collection.KeyedMultiStack#getPathCount()}.
+   */
+  public long getPathCount() {
+    return pathCount;
+  }
+
   public Block getBlock(Label label) {
     return frames.get(label).block;
   }
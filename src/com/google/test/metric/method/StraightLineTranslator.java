@@ -0,0 +1,72 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.method;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import com.google.test.metric.Variable;
+import com.google.test.metric.collection.KeyedMultiStack.StackUnderflowException;
+import com.google.test.metric.method.op.stack.Return;
+import com.google.test.metric.method.op.stack.StackOperation;
+import com.google.test.metric.method.op.stack.Throw;
+import com.google.test.metric.method.op.turing.Operation;
+
+/**
+ * Translates a method which has no jumps, switches, subroutines or exception
+ * handlers. Such a method is a single block with a single stack, so there is
+ * no need to break it into blocks or to keep the parallel stacks of
+ * {@link Stack2Turing}.
+ */
+public class StraightLineTranslator {
+
+  private final List<StackOperation> stackOperations;
+  private final List<Variable> stack = new ArrayList<Variable>();
+  private final List<Operation> operations = new LinkedList<Operation>();
+
+  public StraightLineTranslator(List<StackOperation> stackOperations) {
+    this.stackOperations = stackOperations;
+  }
+
+  public List<Operation> translate() {
+    for (StackOperation operation : stackOperations) {
+      translateStackOperation(operation);
+      if (operation instanceof Return || operation instanceof Throw) {
+        // Anything past here is unreachable, same as in BlockDecomposer
+        break;
+      }
+    }
+    return operations;
+  }
+
+  private void translateStackOperation(StackOperation operation) {
+    int popSize = operation.getOperatorCount();
+    int depth = stack.size();
+    if (depth < popSize) {
+      throw new StackUnderflowException();
+    }
+    List<Variable> popped = stack.subList(depth - popSize, depth);
+    List<Variable> input = new ArrayList<Variable>(popped);
+    popped.clear();
+    stack.addAll(operation.apply(input));
+    Operation turingOp = operation.toOperation(input);
+    if (turingOp != null) {
+      operations.add(turingOp);
+    }
+  }
+
+}
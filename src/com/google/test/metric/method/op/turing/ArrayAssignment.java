@@ -33,6 +33,18 @@ public class ArrayAssignment extends Operation {
     this.value = value;
   }
 
+  public Variable getArray() {
+    return array;
+  }
+
+  public Variable getIndex() {
+    return index;
+  }
+
+  public Variable getValue() {
+    return value;
+  }
+
   @Override
   public void computeMetric(TestabilityContext context, MethodInfo currentMethod) {
     context.arrayAssignment(array, index, value, currentMethod, getLineNumber());
@@ -34,6 +34,18 @@ public class FieldAssignment extends Operation {
     this.value = value;
   }
 
+  public Variable getFieldInstance() {
+    return fieldInstance;
+  }
+
+  public FieldInfo getField() {
+    return field;
+  }
+
+  public Variable getValue() {
+    return value;
+  }
+
   @Override
   public void computeMetric(TestabilityContext context, MethodInfo currentMethod) {
     context.fieldAssignment(fieldInstance, field, value, currentMethod,
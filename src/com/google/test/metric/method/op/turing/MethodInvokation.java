@@ -17,9 +17,7 @@ package com.google.test.metric.method.op.turing;
 
 import java.util.List;
 
-import com.google.test.metric.ClassNotFoundException;
 import com.google.test.metric.MethodInfo;
-import com.google.test.metric.MethodNotFoundException;
 import com.google.test.metric.TestabilityContext;
 import com.google.test.metric.Variable;
 
@@ -60,6 +58,18 @@ public class MethodInvokation extends Operation {
     return clazzName;
   }
 
+  public String getSignature() {
+    return signature;
+  }
+
+  public String getNameDesc() {
+    return name + signature;
+  }
+
+  public Variable getReturnValue() {
+    return returnValue;
+  }
+
   @Override
   public String toString() {
     return getMethodName() + signature;
@@ -67,41 +77,8 @@ public class MethodInvokation extends Operation {
 
   @Override
   public void computeMetric(TestabilityContext context, MethodInfo currentMethod) {
-    if (context.isClassWhiteListed(clazzName)) {
-      return;
-    }
-    try {
-      MethodInfo toMethod = context.getMethod(clazzName, name + signature);
-      if (context.methodAlreadyVisited(toMethod)) {
-        // Method already counted, skip (to prevent recursion)
-      } else if (toMethod.canOverride() && context.isInjectable(methodThis)) {
-        // Method can be overridden / injectable
-      } else {
-        // Method can not be intercepted we have to add the cost
-        // recursively
-        if (toMethod.isInstance()) {
-          context.localAssignment(toMethod, getLineNumber(), toMethod
-              .getMethodThis(), methodThis);
-        }
-        int i = 0;
-        if (parameters.size() != toMethod.getParameters().size()) {
-          throw new IllegalStateException(
-              "Argument count does not match method parameter count.");
-        }
-        for (Variable var : parameters) {
-          context.localAssignment(toMethod, getLineNumber(), toMethod
-              .getParameters().get(i++), var);
-        }
-        context.recordMethodCall(currentMethod, getLineNumber(), toMethod);
-        context.localAssignment(toMethod, getLineNumber(), returnValue,
-            context.getReturnValue());
-      }
-    } catch (ClassNotFoundException e) {
-      context.reportError("WARNING: class not found: " + clazzName);
-    } catch (MethodNotFoundException e) {
-      context.reportError("WARNING: method not found: " + e.getMethodName()
-          + " in " + e.getClassInfo().getName());
-    }
+    context.invokeMethod(currentMethod, getLineNumber(), clazzName,
+        getNameDesc(), methodThis, parameters, returnValue);
   }
 
   public Variable getMethodThis() {
@@ -0,0 +1,375 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.method.op.turing;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.test.metric.FieldInfo;
+import com.google.test.metric.FieldReference;
+import com.google.test.metric.LocalField;
+import com.google.test.metric.MethodInfo;
+import com.google.test.metric.TestabilityContext;
+import com.google.test.metric.Variable;
+
+/**
+ * Compact encoding of the operations of a single method. Instead of one
+ * {@link Operation} object per step (each with its own list of parameters) the
+ * operations are kept in parallel int arrays which refer to a per method table
+ * of variables and names. {@link #computeMetric(TestabilityContext, MethodInfo)}
+ * works directly on the arrays; {@link Operation} objects are only created on
+ * demand by {@link #getOperation(int)}.
+ *
+ * Operands of each kind of operation (variable ids unless noted):
+ * <pre>
+ * LOCAL_ASSIGNMENT  variable, value
+ * FIELD_ASSIGNMENT  instance, field, value
+ * ARRAY_ASSIGNMENT  array, index, value
+ * RETURN            value
+ * METHOD_INVOKATION owner(name), name(name), signature(name),
+ *                   name+signature(name), this, return value, parameters...
+ * </pre>
+ */
+public class OperationTable {
+
+  public static final int LOCAL_ASSIGNMENT = 0;
+  public static final int FIELD_ASSIGNMENT = 1;
+  public static final int ARRAY_ASSIGNMENT = 2;
+  public static final int RETURN = 3;
+  public static final int METHOD_INVOKATION = 4;
+
+  private static final int NULL = -1;
+  private static final int INVOKE_PARAMETERS = 6;
+
+  private static final OperationTable EMPTY = new OperationTable(new int[0],
+      new int[0], new int[] {0}, new int[0], new Variable[0], new String[0]);
+
+  private final int[] opcodes;
+  private final int[] lineNumbers;
+  /** Operands of operation i are operands[operandStart[i]..operandStart[i+1]) */
+  private final int[] operandStart;
+  private final int[] operands;
+  private final Variable[] variables;
+  private final String[] names;
+
+  private OperationTable(int[] opcodes, int[] lineNumbers, int[] operandStart,
+      int[] operands, Variable[] variables, String[] names) {
+    this.opcodes = opcodes;
+    this.lineNumbers = lineNumbers;
+    this.operandStart = operandStart;
+    this.operands = operands;
+    this.variables = variables;
+    this.names = names;
+  }
+
+  public static OperationTable encode(List<Operation> operations) {
+    if (operations == null || operations.isEmpty()) {
+      return EMPTY;
+    }
+    return new Encoder(operations.size()).encode(operations);
+  }
+
+  public int size() {
+    return opcodes.length;
+  }
+
+  public int getOpcode(int index) {
+    return opcodes[index];
+  }
+
+  public int getLineNumber(int index) {
+    return lineNumbers[index];
+  }
+
+  public int getVariableCount() {
+    return variables.length;
+  }
+
+  public void computeMetric(TestabilityContext context, MethodInfo method) {
+    for (int i = 0; i < opcodes.length; i++) {
+      int line = lineNumbers[i];
+      int start = operandStart[i];
+      switch (opcodes[i]) {
+        case LOCAL_ASSIGNMENT :
+          context.localAssignment(method, line, variable(start),
+              variable(start + 1));
+          break;
+        case FIELD_ASSIGNMENT :
+          context.fieldAssignment(variable(start),
+              (FieldInfo) variable(start + 1), variable(start + 2), method,
+              line);
+          break;
+        case ARRAY_ASSIGNMENT :
+          context.arrayAssignment(variable(start), variable(start + 1),
+              variable(start + 2), method, line);
+          break;
+        case RETURN :
+          context.setReturnValue(variable(start));
+          break;
+        case METHOD_INVOKATION :
+          computeInvokation(context, method, line, start, operandStart[i + 1]);
+          break;
+        default :
+          throw new IllegalStateException("Unknown opcode: " + opcodes[i]);
+      }
+    }
+  }
+
+  private void computeInvokation(TestabilityContext context,
+      MethodInfo currentMethod, int lineNumber, int start, int end) {
+    context.invokeMethod(currentMethod, lineNumber, name(start),
+        name(start + 3), variable(start + 4),
+        new Arguments(start + INVOKE_PARAMETERS, end), variable(start + 5));
+  }
+
+  /**
+   * The arguments of an invocation, read from the operands without copying.
+   */
+  private class Arguments extends AbstractList<Variable> {
+    private final int start;
+    private final int end;
+
+    Arguments(int start, int end) {
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public Variable get(int index) {
+      if (index < 0 || index >= size()) {
+        throw new IndexOutOfBoundsException("Argument " + index);
+      }
+      return variable(start + index);
+    }
+
+    @Override
+    public int size() {
+      return end - start;
+    }
+  }
+
+  /**
+   * Replaces all {@link FieldReference}s (including the ones behind
+   * {@link LocalField}s) with the fields they refer to.
+   *
+   * @return this if there was nothing to resolve, a new table otherwise.
+   */
+  public OperationTable resolveFields(TestabilityContext context) {
+    Map<Variable, Variable> resolved = new IdentityHashMap<Variable, Variable>();
+    Variable[] resolvedVariables = new Variable[variables.length];
+    boolean changed = false;
+    for (int i = 0; i < variables.length; i++) {
+      resolvedVariables[i] = resolve(variables[i], context, resolved);
+      changed |= resolvedVariables[i] != variables[i];
+    }
+    if (!changed) {
+      return this;
+    }
+    return new OperationTable(opcodes, lineNumbers, operandStart, operands,
+        resolvedVariables, names);
+  }
+
+  private Variable resolve(Variable variable, TestabilityContext context,
+      Map<Variable, Variable> resolved) {
+    Variable result = resolved.get(variable);
+    if (result != null) {
+      return result;
+    }
+    result = variable;
+    if (variable instanceof FieldReference) {
+      result = ((FieldReference) variable).resolve(context);
+    } else if (variable instanceof LocalField) {
+      LocalField localField = (LocalField) variable;
+      Variable instance = localField.getInstance();
+      Variable resolvedInstance = instance == null ? null : resolve(instance,
+          context, resolved);
+      FieldInfo field = (FieldInfo) resolve(localField.getField(), context,
+          resolved);
+      if (resolvedInstance != instance || field != localField.getField()) {
+        result = new LocalField(resolvedInstance, field);
+      }
+    }
+    resolved.put(variable, result);
+    return result;
+  }
+
+  private Variable variable(int operand) {
+    int id = operands[operand];
+    return id == NULL ? null : variables[id];
+  }
+
+  private String name(int operand) {
+    return names[operands[operand]];
+  }
+
+  /**
+   * Creates the {@link Operation} for the given step. A new object is
+   * returned on every call.
+   */
+  public Operation getOperation(int index) {
+    int line = lineNumbers[index];
+    int start = operandStart[index];
+    switch (opcodes[index]) {
+      case LOCAL_ASSIGNMENT :
+        return new LocalAssignment(line, variable(start), variable(start + 1));
+      case FIELD_ASSIGNMENT :
+        return new FieldAssignment(line, variable(start),
+            (FieldInfo) variable(start + 1), variable(start + 2));
+      case ARRAY_ASSIGNMENT :
+        return new ArrayAssignment(line, variable(start), variable(start + 1),
+            variable(start + 2));
+      case RETURN :
+        return new ReturnOperation(line, variable(start));
+      case METHOD_INVOKATION :
+        List<Variable> parameters = new ArrayList<Variable>();
+        for (int i = start + INVOKE_PARAMETERS; i < operandStart[index + 1]; i++) {
+          parameters.add(variable(i));
+        }
+        return new MethodInvokation(line, name(start), name(start + 1),
+            name(start + 2), variable(start + 4), parameters,
+            variable(start + 5));
+      default :
+        throw new IllegalStateException("Unknown opcode: " + opcodes[index]);
+    }
+  }
+
+  public List<Operation> toOperations() {
+    if (opcodes.length == 0) {
+      return Collections.emptyList();
+    }
+    List<Operation> operations = new ArrayList<Operation>(opcodes.length);
+    for (int i = 0; i < opcodes.length; i++) {
+      operations.add(getOperation(i));
+    }
+    return operations;
+  }
+
+  @Override
+  public String toString() {
+    return toOperations().toString();
+  }
+
+  private static class Encoder {
+    private final int[] opcodes;
+    private final int[] lineNumbers;
+    private final int[] operandStart;
+    private int[] operands;
+    private int operandCount;
+    private final Map<Variable, Integer> variableIds =
+        new IdentityHashMap<Variable, Integer>();
+    private final List<Variable> variables = new ArrayList<Variable>();
+    private final Map<String, Integer> nameIds = new HashMap<String, Integer>();
+    private final List<String> names = new ArrayList<String>();
+
+    Encoder(int size) {
+      opcodes = new int[size];
+      lineNumbers = new int[size];
+      operandStart = new int[size + 1];
+      operands = new int[size * 3];
+    }
+
+    OperationTable encode(List<Operation> operations) {
+      int i = 0;
+      for (Operation operation : operations) {
+        lineNumbers[i] = operation.getLineNumber();
+        operandStart[i] = operandCount;
+        opcodes[i] = encode(operation);
+        i++;
+      }
+      operandStart[i] = operandCount;
+      int[] trimmed = new int[operandCount];
+      System.arraycopy(operands, 0, trimmed, 0, operandCount);
+      return new OperationTable(opcodes, lineNumbers, operandStart, trimmed,
+          variables.toArray(new Variable[variables.size()]),
+          names.toArray(new String[names.size()]));
+    }
+
+    private int encode(Operation operation) {
+      if (operation instanceof LocalAssignment) {
+        LocalAssignment assignment = (LocalAssignment) operation;
+        variables(assignment.getVariable(), assignment.getValue());
+        return LOCAL_ASSIGNMENT;
+      } else if (operation instanceof FieldAssignment) {
+        FieldAssignment assignment = (FieldAssignment) operation;
+        variables(assignment.getFieldInstance(), assignment.getField(),
+            assignment.getValue());
+        return FIELD_ASSIGNMENT;
+      } else if (operation instanceof ArrayAssignment) {
+        ArrayAssignment assignment = (ArrayAssignment) operation;
+        variables(assignment.getArray(), assignment.getIndex(),
+            assignment.getValue());
+        return ARRAY_ASSIGNMENT;
+      } else if (operation instanceof ReturnOperation) {
+        variables(((ReturnOperation) operation).getValue());
+        return RETURN;
+      } else if (operation instanceof MethodInvokation) {
+        MethodInvokation invokation = (MethodInvokation) operation;
+        names(invokation.getOwner(), invokation.getName(),
+            invokation.getSignature(), invokation.getNameDesc());
+        variables(invokation.getMethodThis(), invokation.getReturnValue());
+        for (Variable parameter : invokation.getParameters()) {
+          variables(parameter);
+        }
+        return METHOD_INVOKATION;
+      } else {
+        throw new IllegalArgumentException("Can not encode " + operation);
+      }
+    }
+
+    private void variables(Variable... vars) {
+      for (Variable var : vars) {
+        add(var == null ? NULL : id(var));
+      }
+    }
+
+    private int id(Variable var) {
+      Integer id = variableIds.get(var);
+      if (id == null) {
+        id = variables.size();
+        variables.add(var);
+        variableIds.put(var, id);
+      }
+      return id;
+    }
+
+    private void names(String... values) {
+      for (String value : values) {
+        Integer id = nameIds.get(value);
+        if (id == null) {
+          id = names.size();
+          names.add(value);
+          nameIds.put(value, id);
+        }
+        add(id);
+      }
+    }
+
+    private void add(int operand) {
+      if (operandCount == operands.length) {
+        int[] grown = new int[operands.length * 2 + INVOKE_PARAMETERS];
+        System.arraycopy(operands, 0, grown, 0, operandCount);
+        operands = grown;
+      }
+      operands[operandCount++] = operand;
+    }
+  }
+
+}
@@ -28,6 +28,10 @@ public class ReturnOperation extends Operation {
     this.value = value;
   }
 
+  public Variable getValue() {
+    return value;
+  }
+
   @Override
   public void computeMetric(TestabilityContext context, MethodInfo currentMethod) {
     context.setReturnValue(value);
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Collects report output in reusable chunks and hands full chunks to a
+ * writer thread, so that the thread producing the report does not wait for
+ * the console or the disk. It only waits if the writer falls behind by more
+ * than {@value #CHUNK_COUNT} chunks.
+ *
+ * Closing this stream writes all pending chunks and, when compressing,
+ * finishes the gzip stream; it flushes but does not close the target.
+ * Errors of the writer thread, including runtime exceptions of the target,
+ * are thrown as {@link IOException}s by the next write, flush or close.
+ */
+public class AsyncOutputStream extends OutputStream {
+
+  private static final int CHUNK_SIZE = 1 << 16;
+  private static final int CHUNK_COUNT = 8;
+  private static final long WRITER_CHECK_MILLIS = 100;
+
+  private static class Chunk {
+    private final byte[] bytes;
+    private int length;
+    private boolean flush;
+
+    public Chunk(int size) {
+      bytes = new byte[size];
+    }
+  }
+
+  private final Chunk end = new Chunk(0);
+  private final BlockingQueue<Chunk> full = new ArrayBlockingQueue<Chunk>(CHUNK_COUNT + 1);
+  private final BlockingQueue<Chunk> empty = new ArrayBlockingQueue<Chunk>(CHUNK_COUNT);
+  private final OutputStream target;
+  private final Thread writer;
+  private Chunk current;
+  private volatile IOException error;
+  private boolean closed;
+
+  public AsyncOutputStream(OutputStream target, boolean gzip) throws IOException {
+    this.target = gzip ? new GZIPOutputStream(target, CHUNK_SIZE) : target;
+    for (int i = 1; i < CHUNK_COUNT; i++) {
+      empty.add(new Chunk(CHUNK_SIZE));
+    }
+    current = new Chunk(CHUNK_SIZE);
+    writer = new Thread(new Runnable() {
+      public void run() {
+        writeChunks();
+      }
+    }, "report-writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    if (current.length == CHUNK_SIZE) {
+      handOff(false);
+    }
+    current.bytes[current.length++] = (byte) b;
+  }
+
+  @Override
+  public void write(byte[] bytes, int offset, int length) throws IOException {
+    while (length > 0) {
+      if (current.length == CHUNK_SIZE) {
+        handOff(false);
+      }
+      int copy = Math.min(length, CHUNK_SIZE - current.length);
+      System.arraycopy(bytes, offset, current.bytes, current.length, copy);
+      current.length += copy;
+      offset += copy;
+      length -= copy;
+    }
+  }
+
+  /**
+   * Hands the pending output to the writer thread, which flushes the target
+   * after writing it. Does not wait for the write.
+   */
+  @Override
+  public void flush() throws IOException {
+    if (!closed) {
+      handOff(true);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      full.put(current);
+      full.put(end);
+      writer.join();
+    } catch (InterruptedException e) {
+      throw new InterruptedIOException();
+    }
+    checkError();
+  }
+
+  private void handOff(boolean flush) throws IOException {
+    checkError();
+    current.flush = flush;
+    try {
+      full.put(current);
+      Chunk next;
+      while ((next = empty.poll(WRITER_CHECK_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+        checkError();
+        if (!writer.isAlive()) {
+          throw new IOException("The report writer stopped.");
+        }
+      }
+      current = next;
+    } catch (InterruptedException e) {
+      throw new InterruptedIOException();
+    }
+  }
+
+  private static IOException asIOException(Throwable t) {
+    if (t instanceof IOException) {
+      return (IOException) t;
+    }
+    IOException e = new IOException("Writing the report failed: " + t);
+    e.initCause(t);
+    return e;
+  }
+
+  private void checkError() throws IOException {
+    if (error != null) {
+      throw error;
+    }
+  }
+
+  private void writeChunks() {
+    try {
+      Chunk chunk;
+      while ((chunk = full.take()) != end) {
+        if (error == null) {
+          try {
+            target.write(chunk.bytes, 0, chunk.length);
+            if (chunk.flush) {
+              target.flush();
+            }
+          } catch (Throwable t) {
+            error = asIOException(t);
+          }
+        }
+        chunk.length = 0;
+        empty.put(chunk);
+      }
+      if (error == null) {
+        if (target instanceof GZIPOutputStream) {
+          ((GZIPOutputStream) target).finish();
+        }
+        target.flush();
+      }
+    } catch (InterruptedException e) {
+      error = new InterruptedIOException();
+    } catch (Throwable t) {
+      error = asIOException(t);
+    }
+  }
+
+}
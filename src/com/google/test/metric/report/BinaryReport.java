@@ -0,0 +1,100 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+import com.google.test.metric.ClassCost;
+import com.google.test.metric.LineNumberCost;
+import com.google.test.metric.MethodCost;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compact binary records written with {@link DataOutputStream}. The stream
+ * starts with {@link #MAGIC} and {@link #VERSION} (ints) and is a sequence of
+ * records, each starting with a tag byte:
+ * <pre>
+ * CLASS:  UTF class name, long cost, long complexity, long global,
+ *         boolean truncated (see {@link ClassCost#isTruncated()})
+ * METHOD: UTF method name, int line, long cost, long cyclomatic,
+ *         long global state, long complexity, long global, int call count,
+ *         and for every call: int line, UTF called method name,
+ *         long complexity, long global (totals of the called method)
+ * END
+ * </pre>
+ * Method records belong to the class record preceding them.
+ * {@link BinaryReportReader} reads the records back.
+ */
+public class BinaryReport extends RecordReport {
+
+  public static final int MAGIC = 0x54455354;
+  public static final int VERSION = 3;
+  public static final byte END = 0;
+  public static final byte CLASS = 1;
+  public static final byte METHOD = 2;
+
+  private final DataOutputStream out;
+
+  public BinaryReport(OutputStream out) {
+    this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+  }
+
+  @Override
+  protected void writeHeader() throws IOException {
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+  }
+
+  @Override
+  protected void writeClass(ClassCost classCost) throws IOException {
+    out.writeByte(CLASS);
+    out.writeUTF(classCost.getClassName());
+    out.writeLong(classCost.getOverallCost());
+    out.writeLong(classCost.getTotalComplexityCost());
+    out.writeLong(classCost.getTotalGlobalCost());
+    out.writeBoolean(classCost.isTruncated());
+  }
+
+  @Override
+  protected void writeMethod(ClassCost classCost, MethodCost methodCost)
+      throws IOException {
+    out.writeByte(METHOD);
+    out.writeUTF(methodCost.getMethodName());
+    out.writeInt(methodCost.getMethodLineNumber());
+    out.writeLong(methodCost.getOverallCost());
+    out.writeLong(methodCost.getCyclomaticCost());
+    out.writeLong(methodCost.getGlobalCost());
+    out.writeLong(methodCost.getTotalComplexityCost());
+    out.writeLong(methodCost.getTotalGlobalCost());
+    out.writeInt(methodCost.getOperationCosts().size());
+    for (LineNumberCost call : methodCost.getOperationCosts()) {
+      MethodCost calledCost = call.getMethodCost();
+      out.writeInt(call.getLineNumber());
+      out.writeUTF(calledCost.getMethodName());
+      out.writeLong(calledCost.getTotalComplexityCost());
+      out.writeLong(calledCost.getTotalGlobalCost());
+    }
+  }
+
+  @Override
+  protected void writeFooter() throws IOException {
+    out.writeByte(END);
+    out.flush();
+  }
+
+}
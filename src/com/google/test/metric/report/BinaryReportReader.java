@@ -0,0 +1,201 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the records written by {@link BinaryReport} one at a time. After
+ * {@link #next()} returns true, the getters describe the current record;
+ * method only values are 0 or empty for class records, and class only values
+ * are false for method records.
+ *
+ * Method names of calls repeat a lot, so they are shared between records. At
+ * most {@value #MAX_SHARED_NAMES} names are kept, so that reading a large
+ * report does not hold on to every name in it.
+ */
+public class BinaryReportReader {
+
+  private static final int[] NO_LINES = new int[0];
+  private static final String[] NO_NAMES = new String[0];
+  private static final long[] NO_COSTS = new long[0];
+  static final int MAX_SHARED_NAMES = 1 << 12;
+
+  private final DataInputStream in;
+  private final Map<String, String> names = new HashMap<String, String>();
+  private byte type;
+  private String name;
+  private int lineNumber;
+  private long cost;
+  private long cyclomaticCost;
+  private long globalStateCost;
+  private long complexityCost;
+  private long globalCost;
+  private boolean truncated;
+  private int[] callLineNumbers;
+  private String[] callMethodNames;
+  private long[] callComplexityCosts;
+  private long[] callGlobalCosts;
+
+  public BinaryReportReader(InputStream in) throws IOException {
+    this.in = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+    int magic = this.in.readInt();
+    if (magic != BinaryReport.MAGIC) {
+      throw new IOException("Not a binary report.");
+    }
+    int version = this.in.readInt();
+    if (version != BinaryReport.VERSION) {
+      throw new IOException("Unsupported binary report version " + version
+          + ", expected " + BinaryReport.VERSION + ".");
+    }
+  }
+
+  /**
+   * @return false at the end of the report.
+   */
+  public boolean next() throws IOException {
+    try {
+      type = in.readByte();
+    } catch (EOFException e) {
+      throw new IOException("Binary report is truncated.");
+    }
+    if (type == BinaryReport.END) {
+      return false;
+    } else if (type == BinaryReport.CLASS) {
+      name = in.readUTF();
+      lineNumber = 0;
+      cost = in.readLong();
+      cyclomaticCost = 0;
+      globalStateCost = 0;
+      complexityCost = in.readLong();
+      globalCost = in.readLong();
+      truncated = in.readBoolean();
+      callLineNumbers = NO_LINES;
+      callMethodNames = NO_NAMES;
+      callComplexityCosts = NO_COSTS;
+      callGlobalCosts = NO_COSTS;
+    } else if (type == BinaryReport.METHOD) {
+      name = in.readUTF();
+      lineNumber = in.readInt();
+      cost = in.readLong();
+      cyclomaticCost = in.readLong();
+      globalStateCost = in.readLong();
+      complexityCost = in.readLong();
+      globalCost = in.readLong();
+      truncated = false;
+      int calls = in.readInt();
+      callLineNumbers = new int[calls];
+      callMethodNames = new String[calls];
+      callComplexityCosts = new long[calls];
+      callGlobalCosts = new long[calls];
+      for (int i = 0; i < calls; i++) {
+        callLineNumbers[i] = in.readInt();
+        callMethodNames[i] = share(in.readUTF());
+        callComplexityCosts[i] = in.readLong();
+        callGlobalCosts[i] = in.readLong();
+      }
+    } else {
+      throw new IOException("Unknown binary report record " + type + ".");
+    }
+    return true;
+  }
+
+  private String share(String value) {
+    String shared = names.get(value);
+    if (shared == null) {
+      if (names.size() == MAX_SHARED_NAMES) {
+        names.clear();
+      }
+      names.put(value, value);
+      shared = value;
+    }
+    return shared;
+  }
+
+  int getSharedNameCount() {
+    return names.size();
+  }
+
+  public void close() throws IOException {
+    in.close();
+  }
+
+  public boolean isClass() {
+    return type == BinaryReport.CLASS;
+  }
+
+  public boolean isMethod() {
+    return type == BinaryReport.METHOD;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getLineNumber() {
+    return lineNumber;
+  }
+
+  public long getCost() {
+    return cost;
+  }
+
+  public long getCyclomaticCost() {
+    return cyclomaticCost;
+  }
+
+  public long getGlobalStateCost() {
+    return globalStateCost;
+  }
+
+  public long getComplexityCost() {
+    return complexityCost;
+  }
+
+  public long getGlobalCost() {
+    return globalCost;
+  }
+
+  /**
+   * @return true if the analysis of the class was cut short by a budget.
+   */
+  public boolean isTruncated() {
+    return truncated;
+  }
+
+  public int[] getCallLineNumbers() {
+    return callLineNumbers;
+  }
+
+  public String[] getCallMethodNames() {
+    return callMethodNames;
+  }
+
+  public long[] getCallComplexityCosts() {
+    return callComplexityCosts;
+  }
+
+  public long[] getCallGlobalCosts() {
+    return callGlobalCosts;
+  }
+
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+/**
+ * A chart which renders itself as an HTML fragment.
+ */
+public interface Chart {
+
+  void setSize(int width, int height);
+
+  void setItemLabel(String... labels);
+
+  void setChartLabel(String... labels);
+
+  void setColors(String... colors);
+
+  void setValues(int... values);
+
+  void setValues(int[]... values);
+
+  String getHtml();
+
+}
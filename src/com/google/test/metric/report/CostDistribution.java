@@ -0,0 +1,209 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+import static java.lang.Long.numberOfLeadingZeros;
+
+/**
+ * Bounded size, mergeable distribution of costs. Costs below
+ * {@value #LINEAR_LIMIT} are counted exactly; larger costs fall into
+ * log-linear buckets, {@value #SUB_BUCKET_COUNT} per power of two, so any
+ * recorded value is off by less than 1/{@value #SUB_BUCKET_COUNT} of itself.
+ * All distributions share the same bucket layout, which makes merging the
+ * distributions of parallel workers or shards a matter of adding counts.
+ * The bucket array only grows as far as the largest recorded cost, so small
+ * distributions stay small.
+ */
+public class CostDistribution {
+
+  private static final int SUB_BUCKET_BITS = 6;
+  public static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  public static final int LINEAR_LIMIT = 2 * SUB_BUCKET_COUNT;
+  private static final int BUCKET_COUNT =
+      LINEAR_LIMIT + SUB_BUCKET_COUNT * (Long.SIZE - SUB_BUCKET_BITS - 2);
+
+  private long[] counts = new long[LINEAR_LIMIT];
+  private long count;
+  private long min = Long.MAX_VALUE;
+  private long max = 0;
+
+  public void add(long value) {
+    add(value, 1);
+  }
+
+  public void add(long value, long times) {
+    value = Math.max(0, value);
+    int bucket = bucket(value);
+    ensureBuckets(bucket + 1);
+    counts[bucket] += times;
+    count += times;
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+  }
+
+  private void ensureBuckets(int size) {
+    if (size > counts.length) {
+      int length = Math.min(BUCKET_COUNT, Math.max(size, 2 * counts.length));
+      long[] grown = new long[length];
+      System.arraycopy(counts, 0, grown, 0, counts.length);
+      counts = grown;
+    }
+  }
+
+  public void merge(CostDistribution other) {
+    ensureBuckets(other.counts.length);
+    for (int i = 0; i < other.counts.length; i++) {
+      counts[i] += other.counts[i];
+    }
+    count += other.count;
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public long getMin() {
+    return count == 0 ? 0 : min;
+  }
+
+  public long getMax() {
+    return max;
+  }
+
+  /**
+   * @param quantile between 0 and 1, ex. 0.9 for the 90th percentile.
+   * @return the smallest recorded cost which is at least as large as the
+   *         given fraction of all costs (within the bucket precision), or 0
+   *         if nothing was recorded.
+   */
+  public long getQuantile(double quantile) {
+    long rank = Math.max(1, (long) Math.ceil(quantile * count));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.max(getMin(), Math.min(max, upperBound(i)));
+      }
+    }
+    return max;
+  }
+
+  /**
+   * @return the number of buckets to look at; all later buckets are empty.
+   */
+  public int getBucketCount() {
+    return counts.length;
+  }
+
+  public long getCount(int bucket) {
+    return bucket < counts.length ? counts[bucket] : 0;
+  }
+
+  /**
+   * @return the cost which stands for all the costs counted in the bucket:
+   *         the exact cost for small costs, the middle of the bucket
+   *         otherwise.
+   */
+  public long getValue(int bucket) {
+    long value = (lowerBound(bucket) + upperBound(bucket)) / 2;
+    return Math.max(getMin(), Math.min(max, value));
+  }
+
+  static int bucket(long value) {
+    if (value < LINEAR_LIMIT) {
+      return (int) value;
+    }
+    int exponent = 63 - numberOfLeadingZeros(value);
+    int shift = exponent - SUB_BUCKET_BITS;
+    int subBucket = (int) (value >> shift) - SUB_BUCKET_COUNT;
+    return LINEAR_LIMIT + (shift - 1) * SUB_BUCKET_COUNT + subBucket;
+  }
+
+  static long lowerBound(int bucket) {
+    if (bucket < LINEAR_LIMIT) {
+      return bucket;
+    }
+    int shift = (bucket - LINEAR_LIMIT) / SUB_BUCKET_COUNT + 1;
+    int subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKET_COUNT;
+    return ((long) (SUB_BUCKET_COUNT + subBucket)) << shift;
+  }
+
+  static long upperBound(int bucket) {
+    if (bucket < LINEAR_LIMIT) {
+      return bucket;
+    }
+    int shift = (bucket - LINEAR_LIMIT) / SUB_BUCKET_COUNT + 1;
+    return lowerBound(bucket) + (1L << shift) - 1;
+  }
+
+  /**
+   * @return the distribution as text: min, max and then a bucket:count pair
+   *         for every non empty bucket, separated by spaces.
+   */
+  public String encode() {
+    StringBuilder buf = new StringBuilder();
+    buf.append(getMin()).append(' ').append(max);
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] > 0) {
+        buf.append(' ').append(i).append(':').append(counts[i]);
+      }
+    }
+    return buf.toString();
+  }
+
+  /**
+   * Merges a distribution produced by {@link #encode()} into this one.
+   *
+   * @throws IllegalArgumentException if the text is not an encoded
+   *         distribution.
+   */
+  public void mergeEncoded(String encoded) {
+    String[] parts = encoded.trim().split(" ");
+    if (parts.length < 2) {
+      throw new IllegalArgumentException("Not a cost distribution: " + encoded);
+    }
+    CostDistribution other = new CostDistribution();
+    try {
+      for (int i = 2; i < parts.length; i++) {
+        int colon = parts[i].indexOf(':');
+        int bucket = Integer.parseInt(parts[i].substring(0, colon));
+        long bucketCount = Long.parseLong(parts[i].substring(colon + 1));
+        if (bucket >= BUCKET_COUNT) {
+          throw new IllegalArgumentException();
+        }
+        other.ensureBuckets(bucket + 1);
+        other.counts[bucket] += bucketCount;
+        other.count += bucketCount;
+      }
+      if (other.count > 0) {
+        other.min = Long.parseLong(parts[0]);
+        other.max = Long.parseLong(parts[1]);
+      }
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("Not a cost distribution: " + encoded);
+    }
+    merge(other);
+  }
+
+  @Override
+  public String toString() {
+    return "p50=" + getQuantile(0.5) + " p90=" + getQuantile(0.9) + " p99="
+        + getQuantile(0.99) + " max=" + getMax();
+  }
+
+}
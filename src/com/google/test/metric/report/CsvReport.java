@@ -0,0 +1,107 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+import com.google.test.metric.ClassCost;
+import com.google.test.metric.MethodCost;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Comma separated values with a header row. Classes and methods share the
+ * columns; the method specific columns are empty on class rows, and the
+ * class specific {@code truncated} column is empty on method rows.
+ */
+public class CsvReport extends RecordReport {
+
+  public static final String HEADER =
+      "type,class,method,line,cost,cyclomatic,globalState,complexity,global,"
+      + "truncated";
+
+  private final Writer out;
+
+  public CsvReport(OutputStream out) {
+    try {
+      this.out = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"), 1 << 16);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  protected void writeHeader() throws IOException {
+    out.write(HEADER);
+    out.write('\n');
+  }
+
+  @Override
+  protected void writeClass(ClassCost classCost) throws IOException {
+    out.write("class,");
+    field(classCost.getClassName());
+    out.write(",,,");
+    out.write(Long.toString(classCost.getOverallCost()));
+    out.write(",,,");
+    out.write(Long.toString(classCost.getTotalComplexityCost()));
+    out.write(',');
+    out.write(Long.toString(classCost.getTotalGlobalCost()));
+    out.write(',');
+    out.write(Boolean.toString(classCost.isTruncated()));
+    out.write('\n');
+  }
+
+  @Override
+  protected void writeMethod(ClassCost classCost, MethodCost methodCost)
+      throws IOException {
+    out.write("method,");
+    field(classCost.getClassName());
+    out.write(',');
+    field(methodCost.getMethodName());
+    out.write(',');
+    out.write(Integer.toString(methodCost.getMethodLineNumber()));
+    out.write(',');
+    out.write(Long.toString(methodCost.getOverallCost()));
+    out.write(',');
+    out.write(Long.toString(methodCost.getCyclomaticCost()));
+    out.write(',');
+    out.write(Long.toString(methodCost.getGlobalCost()));
+    out.write(',');
+    out.write(Long.toString(methodCost.getTotalComplexityCost()));
+    out.write(',');
+    out.write(Long.toString(methodCost.getTotalGlobalCost()));
+    out.write(",\n");
+  }
+
+  @Override
+  protected void writeFooter() throws IOException {
+    out.flush();
+  }
+
+  private void field(String value) throws IOException {
+    if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+        && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+      out.write(value);
+    } else {
+      out.write('"');
+      out.write(value.replace("\"", "\"\""));
+      out.write('"');
+    }
+  }
+
+}
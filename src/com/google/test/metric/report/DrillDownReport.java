@@ -18,9 +18,10 @@ package com.google.test.metric.report;
 import static java.lang.System.getProperty;
 
 import java.io.PrintStream;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
@@ -37,15 +38,30 @@ public class DrillDownReport implements Report {
   private final SortedSet<ClassCost> toPrint = new TreeSet<ClassCost>(new ClassCost.Comparator());
   private final int maxDepth;
   private final int minCost;
+  private final boolean streaming;
+  private final Map<MethodCost, MethodCost> alreadySeen =
+      new IdentityHashMap<MethodCost, MethodCost>();
+  private final List<String> indents = new ArrayList<String>();
   private long cumulativeTCC = 0;
   private long cumulativeTGC = 0;
 
   public DrillDownReport(PrintStream out, List<String> entryList,
       int maxDepth, int minCost) {
+    this(out, entryList, maxDepth, minCost, false);
+  }
+
+  /**
+   * @param streaming print each class as soon as it is added, in the order
+   *        the classes are added, rather than keeping all of them to print
+   *        them by decreasing cost at the end.
+   */
+  public DrillDownReport(PrintStream out, List<String> entryList,
+      int maxDepth, int minCost, boolean streaming) {
     this.out = out;
     this.entryList = entryList;
     this.maxDepth = maxDepth;
     this.minCost = minCost;
+    this.streaming = streaming;
   }
 
   public void printHeader() {
@@ -65,7 +81,11 @@ public class DrillDownReport implements Report {
   }
 
   public void addClassCost(ClassCost classCost) {
-    toPrint.add(classCost);
+    if (streaming) {
+      print(classCost);
+    } else {
+      toPrint.add(classCost);
+    }
   }
 
   public void print(ClassCost classCost) {
@@ -76,7 +96,8 @@ public class DrillDownReport implements Report {
       cumulativeTGC += tgc;
       out.println(NEW_LINE + "Testability cost for " + classCost.getClassName()
           + " [ cost = " + classCost.getOverallCost() + " ]"
-          + " [ " + tcc + " TCC, " + tgc + " TGC ]");
+          + " [ " + tcc + " TCC, " + tgc + " TGC ]"
+          + (classCost.isTruncated() ? " [ truncated ]" : ""));
       for (MethodCost cost : classCost.getMethods()) {
         print("  ", cost, maxDepth);
       }
@@ -84,29 +105,39 @@ public class DrillDownReport implements Report {
   }
 
   public void print(String prefix, MethodCost cost, int maxDepth) {
-    Set<String> alreadySeen = new HashSet<String>();
-    if (shouldPrint(cost, maxDepth, alreadySeen)) {
+    alreadySeen.clear();
+    if (shouldPrint(cost, maxDepth)) {
       out.print(prefix);
       out.println(cost);
-      for (LineNumberCost child : cost.getOperationCosts()) {
-        print("  " + prefix, child, maxDepth - 1, alreadySeen);
+      printCalls(prefix, 1, cost, maxDepth - 1);
+    }
+  }
+
+  private void printCalls(String prefix, int depth, MethodCost cost,
+      int maxDepth) {
+    for (LineNumberCost line : cost.getOperationCosts()) {
+      MethodCost method = line.getMethodCost();
+      if (shouldPrint(method, maxDepth)) {
+        out.print(indent(depth));
+        out.print(prefix);
+        out.print("line ");
+        out.print(line.getLineNumber());
+        out.print(": ");
+        out.println(method);
+        printCalls(prefix, depth + 1, method, maxDepth - 1);
       }
     }
   }
 
-  private void print(String prefix, LineNumberCost line, int maxDepth,
-      Set<String> alreadSeen) {
-    MethodCost method = line.getMethodCost();
-    if (shouldPrint(method, maxDepth, alreadSeen)) {
-      out.print(prefix);
-      out.print("line ");
-      out.print(line.getLineNumber());
-      out.print(": ");
-      out.println(method);
-      for (LineNumberCost child : method.getOperationCosts()) {
-        print("  " + prefix, child, maxDepth - 1, alreadSeen);
+  private String indent(int depth) {
+    while (indents.size() <= depth) {
+      StringBuilder indent = new StringBuilder();
+      for (int i = 0; i < indents.size(); i++) {
+        indent.append("  ");
       }
+      indents.add(indent.toString());
     }
+    return indents.get(depth);
   }
 
   private boolean shouldPrint(ClassCost classCost, int minCost) {
@@ -114,11 +145,11 @@ public class DrillDownReport implements Report {
         || classCost.getHighestMethodGlobalCost() >= minCost;
   }
 
-  private boolean shouldPrint(MethodCost method, int maxDepth, Set<String> alreadySeen) {
-    if (maxDepth <= 0 || alreadySeen.contains(method.getMethodName())) {
+  private boolean shouldPrint(MethodCost method, int maxDepth) {
+    if (maxDepth <= 0 || alreadySeen.containsKey(method)) {
       return false;
     }
-    alreadySeen.add(method.getMethodName());
+    alreadySeen.put(method, method);
     long totalComplexityCost = method.getTotalComplexityCost();
     long totalGlobalCost = method.getTotalGlobalCost();
     if (totalGlobalCost < minCost && totalComplexityCost < minCost) {
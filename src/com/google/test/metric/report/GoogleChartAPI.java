@@ -19,7 +19,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeSet;
 
-public class GoogleChartAPI {
+public class GoogleChartAPI implements Chart {
 
   public static final String BASE_URL = "http://chart.apis.google.com/chart";
   protected final Map<String, String> keys = new HashMap<String, String>();
@@ -33,7 +33,15 @@ public class Histogram {
   }
 
   public void value(int value) {
-    maxBin = max(maxBin, ++bins[bin(value)]);
+    value(value, 1);
+  }
+
+  public void value(int value, int count) {
+    // The maximum value lands one past the last bin when it is a multiple of
+    // the bin width.
+    int bin = min(bins.length - 1, bin(value));
+    bins[bin] += count;
+    maxBin = max(maxBin, bins[bin]);
   }
 
   private int bin(int value) {
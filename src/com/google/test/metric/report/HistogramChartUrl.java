@@ -15,7 +15,7 @@
  */
 package com.google.test.metric.report;
 
-public class HistogramChartUrl extends GoogleChartAPI {
+public class HistogramChartUrl extends GoogleChartAPI implements HistogramChart {
 
   public HistogramChartUrl() {
     keys.put("cht", "bvs");
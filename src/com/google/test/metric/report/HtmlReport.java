@@ -36,6 +36,8 @@ public class HtmlReport extends SummaryReport {
   private static final int HISTOGRAM_WIDTH = 700;
   private static final int HISTOGRAM_LEGEND_WIDTH = 130;
   private final PrintStream out;
+  private boolean remoteCharts = false;
+  private StringBuilder classRows;
 
   public HtmlReport(PrintStream out, int maxExcellentCount, int maxAcceptableCost,
       int worstOffenderCount) {
@@ -43,14 +45,67 @@ public class HtmlReport extends SummaryReport {
     this.out = out;
   }
 
+  /**
+   * Use Google Chart API image URLs instead of inline SVG for the charts.
+   */
+  public void setRemoteCharts(boolean remoteCharts) {
+    this.remoteCharts = remoteCharts;
+  }
+
+  /**
+   * Add a sortable, paginated table of all classes. The rows are embedded in
+   * the report as one compact JSON array, ["name",cost,tcc,tgc] per class.
+   */
+  public void setClassTable(boolean classTable) {
+    classRows = classTable ? new StringBuilder() : null;
+  }
+
+  @Override
+  public void addClassCost(ClassCost classCost) {
+    super.addClassCost(classCost);
+    if (classRows != null) {
+      classRows.append(classRows.length() == 0 ? "[" : ",\n[");
+      appendJsonString(classRows, classCost.getClassName());
+      classRows.append(',').append(classCost.getOverallCost());
+      classRows.append(',').append(classCost.getTotalComplexityCost());
+      classRows.append(',').append(classCost.getTotalGlobalCost());
+      classRows.append(']');
+    }
+  }
+
+  private void appendJsonString(StringBuilder buf, String value) {
+    buf.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char ch = value.charAt(i);
+      if (ch == '"' || ch == '\\') {
+        buf.append('\\').append(ch);
+      } else if (ch < 0x20 || ch == '<' || ch == '>' || ch == '&') {
+        // Escaped so that the data can not end the script element.
+        buf.append(String.format("\\u%04x", (int) ch));
+      } else {
+        buf.append(ch);
+      }
+    }
+    buf.append('"');
+  }
+
   public void printSummary() {
-    int total = costs.size();
+    int total = classCount;
     out.println("<h2>Class breakdown</h2>");
     out.printf("<pre>%n");
     out.printf("  Analyzed classes : %5d%n", total);
     out.printf(" Excellent classes : %5d %5.1f%%%n", excellentCount, 100f * excellentCount / total);
     out.printf("      Good classes : %5d %5.1f%%%n", goodCount, 100f * goodCount / total);
     out.printf("Needs work classes : %5d %5.1f%%%n", needsWorkCount, 100f * needsWorkCount / total);
+    if (truncatedCount > 0) {
+      out.printf(" Truncated classes : %5d %5.1f%%%n", truncatedCount, 100f * truncatedCount / total);
+    }
+    out.printf("       Class costs : p50 %d, p90 %d, p99 %d%n",
+        classCosts.getQuantile(0.5), classCosts.getQuantile(0.9),
+        classCosts.getQuantile(0.99));
+    out.printf("      Method costs : p50 %d, p90 %d, p99 %d%n",
+        methodCosts.getQuantile(0.5), methodCosts.getQuantile(0.9),
+        methodCosts.getQuantile(0.99));
     out.printf("</pre>%n");
     printPieChart();
     out.printf("%n");
@@ -59,16 +114,22 @@ public class HtmlReport extends SummaryReport {
   }
 
   private void printHistogram() {
-    int binCount = min(MAX_HISTOGRAM_BINS, 10 * (int)log(costs.size()) + 1);
+    int binCount = min(MAX_HISTOGRAM_BINS, 10 * (int)log(classCount) + 1);
     int binWidth = (int)ceil((double)worstCost / binCount);
     Histogram histogram = new Histogram(0, binWidth, binCount);
-    for (ClassCost cost : costs) {
-      histogram.value((int) cost.getOverallCost());
+    for (int bucket = 0; bucket < classCosts.getBucketCount(); bucket++) {
+      long count = classCosts.getCount(bucket);
+      if (count > 0) {
+        histogram.value((int) classCosts.getValue(bucket), (int) count);
+      }
     }
-    HistogramChartUrl chart = new HistogramChartUrl();
-    int[] excellent = histogram.getScaledBinRange(0, maxExcellentCost, 61);
-    int[] good = histogram.getScaledBinRange(maxExcellentCost, maxAcceptableCost, 61);
-    int[] needsWork = histogram.getScaledBinRange(maxAcceptableCost, MAX_VALUE, 61);
+    HistogramChart chart = remoteCharts ? new HistogramChartUrl()
+        : new SvgHistogramChart();
+    // The same scale for the chart URLs and the SVG charts.
+    int scale = SvgHistogramChart.MAX_VALUE;
+    int[] excellent = histogram.getScaledBinRange(0, maxExcellentCost, scale);
+    int[] good = histogram.getScaledBinRange(maxExcellentCost, maxAcceptableCost, scale);
+    int[] needsWork = histogram.getScaledBinRange(maxAcceptableCost, MAX_VALUE, scale);
     chart.setItemLabel(histogram.getBinLabels(20));
     chart.setValues(excellent, good, needsWork);
     chart.setYMark(0, histogram.getMaxBin());
@@ -80,7 +141,7 @@ public class HtmlReport extends SummaryReport {
   }
 
   private void printPieChart() {
-    PieChartUrl chart = new PieChartUrl();
+    Chart chart = remoteCharts ? new PieChartUrl() : new SvgPieChart();
     chart.setSize(400, 100);
     chart.setItemLabel("Excellent", "Good", "Needs Work");
     chart.setColors(GREEN, YELLOW, RED);
@@ -94,7 +155,7 @@ public class HtmlReport extends SummaryReport {
     out.println("<h2>Highest Cost</h2>");
     out.printf("<pre>%n");
     int i=0;
-    for (ClassCost cost : costs) {
+    for (ClassCost cost : getWorstOffenders()) {
       out.println(cost);
       if (++i == worstOffenderCount) {
         break;
@@ -110,14 +171,25 @@ public class HtmlReport extends SummaryReport {
   public void printFooter() {
     printSummary();
     printWorstOffenders(worstOffenderCount);
+    if (classRows != null) {
+      printClassTable();
+    }
     stream(out, getClass().getResourceAsStream("HtmlReportFooter.html"));
   }
 
+  private void printClassTable() {
+    out.print("<script type=\"application/json\" id=\"classData\">[");
+    out.print(classRows);
+    out.println("]</script>");
+    stream(out, getClass().getResourceAsStream("HtmlReportClassTable.html"));
+  }
+
   private void stream(OutputStream  out, InputStream in) {
     try {
-      int ch;
-      while ((ch = in.read()) != -1) {
-        out.write(ch);
+      byte[] buffer = new byte[4096];
+      int length;
+      while ((length = in.read(buffer)) != -1) {
+        out.write(buffer, 0, length);
       }
     } catch (IOException e) {
       throw new RuntimeException(e);
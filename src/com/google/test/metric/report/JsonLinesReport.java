@@ -0,0 +1,131 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+import com.google.test.metric.ClassCost;
+import com.google.test.metric.MethodCost;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * One JSON object per line, for a class:
+ * <pre>
+ * {"type":"class","class":"a.B","cost":12,"complexity":3,"global":1}
+ * </pre>
+ * with {@code "truncated":true} added if the cost ran out of its
+ * {@link com.google.test.metric.AnalysisBudget},
+ * and for each of its methods:
+ * <pre>
+ * {"type":"method","class":"a.B","method":"a.B.c()V","line":7,"cost":4,
+ *  "cyclomatic":1,"globalState":0,"complexity":2,"global":0}
+ * </pre>
+ * where complexity and global are the totals including called methods.
+ */
+public class JsonLinesReport extends RecordReport {
+
+  private final Writer out;
+
+  public JsonLinesReport(OutputStream out) {
+    try {
+      this.out = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"), 1 << 16);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  protected void writeHeader() {
+  }
+
+  @Override
+  protected void writeClass(ClassCost classCost) throws IOException {
+    out.write("{\"type\":\"class\",\"class\":");
+    string(classCost.getClassName());
+    out.write(",\"cost\":");
+    out.write(Long.toString(classCost.getOverallCost()));
+    out.write(",\"complexity\":");
+    out.write(Long.toString(classCost.getTotalComplexityCost()));
+    out.write(",\"global\":");
+    out.write(Long.toString(classCost.getTotalGlobalCost()));
+    if (classCost.isTruncated()) {
+      out.write(",\"truncated\":true");
+    }
+    out.write("}\n");
+  }
+
+  @Override
+  protected void writeMethod(ClassCost classCost, MethodCost methodCost)
+      throws IOException {
+    out.write("{\"type\":\"method\",\"class\":");
+    string(classCost.getClassName());
+    out.write(",\"method\":");
+    string(methodCost.getMethodName());
+    out.write(",\"line\":");
+    out.write(Integer.toString(methodCost.getMethodLineNumber()));
+    out.write(",\"cost\":");
+    out.write(Long.toString(methodCost.getOverallCost()));
+    out.write(",\"cyclomatic\":");
+    out.write(Long.toString(methodCost.getCyclomaticCost()));
+    out.write(",\"globalState\":");
+    out.write(Long.toString(methodCost.getGlobalCost()));
+    out.write(",\"complexity\":");
+    out.write(Long.toString(methodCost.getTotalComplexityCost()));
+    out.write(",\"global\":");
+    out.write(Long.toString(methodCost.getTotalGlobalCost()));
+    out.write("}\n");
+  }
+
+  @Override
+  protected void writeFooter() throws IOException {
+    out.flush();
+  }
+
+  private void string(String value) throws IOException {
+    out.write('"');
+    for (int i = 0; i < value.length(); i++) {
+      char ch = value.charAt(i);
+      switch (ch) {
+        case '"':
+          out.write("\\\"");
+          break;
+        case '\\':
+          out.write("\\\\");
+          break;
+        case '\n':
+          out.write("\\n");
+          break;
+        case '\r':
+          out.write("\\r");
+          break;
+        case '\t':
+          out.write("\\t");
+          break;
+        default:
+          if (ch < 0x20) {
+            out.write(String.format("\\u%04x", (int) ch));
+          } else {
+            out.write(ch);
+          }
+      }
+    }
+    out.write('"');
+  }
+
+}
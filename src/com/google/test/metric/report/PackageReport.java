@@ -0,0 +1,76 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+import com.google.test.metric.ClassCost;
+
+import java.io.PrintStream;
+
+/**
+ * Prints the class costs summed up by package, down to a given package depth.
+ * Only the {@link PackageRollup} is kept, not the classes.
+ */
+public class PackageReport implements Report {
+
+  private final PrintStream out;
+  private final int maxDepth;
+  private final PackageRollup rollup = new PackageRollup();
+
+  public PackageReport(PrintStream out, int maxDepth) {
+    this.out = out;
+    this.maxDepth = maxDepth;
+  }
+
+  public void printHeader() {
+  }
+
+  public void addClassCost(ClassCost classCost) {
+    rollup.add(classCost.getClassName(), classCost.getOverallCost());
+  }
+
+  public void printFooter() {
+    out.printf("%-50s %7s %9s %6s %6s %6s %6s%n", "Package", "Classes",
+        "Total", "Max", "p50", "p90", "p99");
+    print(rollup, 0);
+  }
+
+  private void print(PackageRollup node, int depth) {
+    String name = node.getName().length() == 0 ? "(all)" : node.getName();
+    CostDistribution distribution = node.getDistribution();
+    out.printf("%-50s %7d %9d %6d %6d %6d %6d%n", indent(depth) + name,
+        node.getClassCount(), node.getTotalCost(), node.getMaxCost(),
+        distribution.getQuantile(0.5), distribution.getQuantile(0.9),
+        distribution.getQuantile(0.99));
+    if (depth < maxDepth) {
+      for (PackageRollup child : node.getSubPackages()) {
+        print(child, depth + 1);
+      }
+    }
+  }
+
+  private String indent(int depth) {
+    StringBuilder indent = new StringBuilder();
+    for (int i = 0; i < depth; i++) {
+      indent.append("  ");
+    }
+    return indent.toString();
+  }
+
+  public PackageRollup getRollup() {
+    return rollup;
+  }
+
+}
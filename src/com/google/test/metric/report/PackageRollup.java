@@ -0,0 +1,136 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Class costs rolled up by package, in a prefix tree with one node per
+ * package name segment. Every node holds the count, sum and maximum of the
+ * overall costs of all classes in its package and in its sub packages, and
+ * their {@link CostDistribution}. Classes are added one at a time, so the
+ * rollup is always up to date and can be printed at any depth.
+ */
+public class PackageRollup {
+
+  private final String name;
+  private final Map<String, PackageRollup> children =
+      new TreeMap<String, PackageRollup>();
+  private final CostDistribution distribution = new CostDistribution();
+  private long classCount;
+  private long totalCost;
+  private long maxCost;
+
+  public PackageRollup() {
+    this("");
+  }
+
+  private PackageRollup(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Adds the class to this node and to every package node on the way to the
+   * package of the class.
+   */
+  public void add(String className, long cost) {
+    PackageRollup node = this;
+    node.count(cost);
+    int start = 0;
+    int dot;
+    while ((dot = className.indexOf('.', start)) >= 0) {
+      node = node.child(className.substring(start, dot), className.substring(0, dot));
+      node.count(cost);
+      start = dot + 1;
+    }
+  }
+
+  private void count(long cost) {
+    classCount++;
+    totalCost += cost;
+    maxCost = Math.max(maxCost, cost);
+    distribution.add(cost);
+  }
+
+  private PackageRollup child(String segment, String packageName) {
+    PackageRollup child = children.get(segment);
+    if (child == null) {
+      child = new PackageRollup(packageName);
+      children.put(segment, child);
+    }
+    return child;
+  }
+
+  public void merge(PackageRollup other) {
+    classCount += other.classCount;
+    totalCost += other.totalCost;
+    maxCost = Math.max(maxCost, other.maxCost);
+    distribution.merge(other.distribution);
+    for (Map.Entry<String, PackageRollup> entry : other.children.entrySet()) {
+      String packageName = entry.getValue().name;
+      child(entry.getKey(), packageName).merge(entry.getValue());
+    }
+  }
+
+  /**
+   * @return the node of the package, or null if no class of the package was
+   *         added.
+   */
+  public PackageRollup getPackage(String packageName) {
+    PackageRollup node = this;
+    if (packageName.length() == 0) {
+      return node;
+    }
+    for (String segment : packageName.split("\\.")) {
+      node = node.children.get(segment);
+      if (node == null) {
+        return null;
+      }
+    }
+    return node;
+  }
+
+  /**
+   * @return the full package name; empty for the root.
+   */
+  public String getName() {
+    return name;
+  }
+
+  public Collection<PackageRollup> getSubPackages() {
+    return Collections.unmodifiableCollection(children.values());
+  }
+
+  public long getClassCount() {
+    return classCount;
+  }
+
+  public long getTotalCost() {
+    return totalCost;
+  }
+
+  public long getMaxCost() {
+    return maxCost;
+  }
+
+  public CostDistribution getDistribution() {
+    return distribution;
+  }
+
+}
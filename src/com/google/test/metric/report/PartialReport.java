@@ -0,0 +1,42 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+import java.io.PrintStream;
+
+/**
+ * Prints the mergeable state of a {@link SummaryReport} instead of a summary,
+ * so that the analysis can be split into shards whose partial reports are
+ * combined by {@link com.google.test.metric.MergeReports}.
+ */
+public class PartialReport extends SummaryReport {
+
+  private final PrintStream out;
+
+  public PartialReport(PrintStream out, int maxExcellentCost,
+      int maxAcceptableCost, int worstOffenderCount) {
+    super(maxExcellentCost, maxAcceptableCost, worstOffenderCount);
+    this.out = out;
+  }
+
+  public void printHeader() {
+  }
+
+  public void printFooter() {
+    writePartial(out);
+  }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+import com.google.test.metric.ClassCost;
+import com.google.test.metric.MethodCost;
+
+import java.io.IOException;
+
+/**
+ * Base for machine readable reports. Every class, followed by each of its
+ * methods, is written as a record as soon as it is added; nothing is kept
+ * after {@link #addClassCost(ClassCost)} returns. Subclasses write to a
+ * buffer which is flushed by {@link #printFooter()}.
+ */
+public abstract class RecordReport implements Report {
+
+  public void printHeader() {
+    try {
+      writeHeader();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  public void addClassCost(ClassCost classCost) {
+    try {
+      writeClass(classCost);
+      for (MethodCost methodCost : classCost.getMethods()) {
+        writeMethod(classCost, methodCost);
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  public void printFooter() {
+    try {
+      writeFooter();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  protected abstract void writeHeader() throws IOException;
+
+  protected abstract void writeClass(ClassCost classCost) throws IOException;
+
+  protected abstract void writeMethod(ClassCost classCost, MethodCost methodCost)
+      throws IOException;
+
+  /**
+   * Writes whatever ends the report and flushes the buffer.
+   */
+  protected abstract void writeFooter() throws IOException;
+
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Compares two binary reports ({@code -print bin}) of the same code base and
+ * prints the classes and methods whose overall cost changed by at least a
+ * threshold. Changed methods are followed by the calls which explain the
+ * change: calls that were added or removed, or whose called method changed
+ * cost.
+ *
+ * Only the earlier report is indexed, by class and method name; the later
+ * report is streamed and every entry is removed from the index once it has
+ * been compared. Entries left in the index at the end were removed. The
+ * index holds the names, costs and calls of every method of the earlier
+ * report, so the memory used grows with the size of that report.
+ * <p>
+ * A call is identified by the called method, its line and, when a line calls
+ * the same method several times, by the order of the calls on that line.
+ * <p>
+ * Classes whose analysis was cut short by a budget are marked, so that a
+ * budget cut is not mistaken for a change of the code: {@code (truncated)}
+ * if it was cut in both runs, {@code (truncated before)} or
+ * {@code (truncated after)} if only in one.
+ * <pre>
+ * ~ a.B 10 -> 25 (+15)
+ *   ~ a.B.c()V 3 -> 18 (+15)
+ *       + line 12: d.E.f()V [15, 0]
+ * + a.New 7
+ * - a.Gone 4
+ * </pre>
+ */
+public class ReportDiff {
+
+  private static class MethodEntry {
+    private long cost;
+    private int[] callLineNumbers;
+    private String[] callMethodNames;
+    private long[] callComplexityCosts;
+    private long[] callGlobalCosts;
+  }
+
+  private static class ClassEntry {
+    private long cost;
+    private boolean truncated;
+    private final Map<String, MethodEntry> methods =
+        new HashMap<String, MethodEntry>();
+  }
+
+  private final PrintStream out;
+  private final long threshold;
+  private final StringBuilder methodLines = new StringBuilder();
+  private final Map<String, Integer> calls = new HashMap<String, Integer>();
+  private final Map<String, Integer> occurrences =
+      new HashMap<String, Integer>();
+  private Map<String, ClassEntry> index;
+  private String className;
+  private ClassEntry classBefore;
+  private long classCost;
+  private boolean classTruncated;
+  private int changedCount;
+  private int addedCount;
+  private int removedCount;
+
+  public ReportDiff(PrintStream out, long threshold) {
+    this.out = out;
+    this.threshold = threshold;
+  }
+
+  public void diff(BinaryReportReader before, BinaryReportReader after)
+      throws IOException {
+    index = index(before);
+    while (after.next()) {
+      if (after.isClass()) {
+        finishClass();
+        className = after.getName();
+        classBefore = index.remove(className);
+        classCost = after.getCost();
+        classTruncated = after.isTruncated();
+      } else if (className != null) {
+        compareMethod(after);
+      }
+    }
+    finishClass();
+    for (String removed : new TreeSet<String>(index.keySet())) {
+      ClassEntry entry = index.get(removed);
+      if (entry.cost >= threshold) {
+        out.println("- " + removed + " " + entry.cost
+            + truncation(entry.truncated, false));
+        removedCount++;
+      }
+    }
+    out.printf("%d changed, %d added, %d removed classes%n", changedCount,
+        addedCount, removedCount);
+    out.flush();
+  }
+
+  private Map<String, ClassEntry> index(BinaryReportReader before)
+      throws IOException {
+    Map<String, ClassEntry> classes = new HashMap<String, ClassEntry>();
+    ClassEntry current = null;
+    while (before.next()) {
+      if (before.isClass()) {
+        current = new ClassEntry();
+        current.cost = before.getCost();
+        current.truncated = before.isTruncated();
+        classes.put(before.getName(), current);
+      } else if (current != null) {
+        MethodEntry method = new MethodEntry();
+        method.cost = before.getCost();
+        method.callLineNumbers = before.getCallLineNumbers();
+        method.callMethodNames = before.getCallMethodNames();
+        method.callComplexityCosts = before.getCallComplexityCosts();
+        method.callGlobalCosts = before.getCallGlobalCosts();
+        current.methods.put(before.getName(), method);
+      }
+    }
+    return classes;
+  }
+
+  private void compareMethod(BinaryReportReader after) {
+    String methodName = after.getName();
+    long cost = after.getCost();
+    MethodEntry before = classBefore == null ? null
+        : classBefore.methods.remove(methodName);
+    if (before == null) {
+      if (classBefore != null && cost >= threshold) {
+        methodLines.append("  + ").append(methodName).append(' ').append(cost)
+            .append('\n');
+      }
+    } else if (Math.abs(cost - before.cost) >= threshold) {
+      methodLines.append("  ~ ").append(methodName).append(' ')
+          .append(before.cost).append(" -> ").append(cost).append(' ');
+      appendDelta(cost - before.cost);
+      methodLines.append('\n');
+      compareCalls(before, after);
+    }
+  }
+
+  private void compareCalls(MethodEntry before, BinaryReportReader after) {
+    calls.clear();
+    occurrences.clear();
+    for (int i = 0; i < before.callMethodNames.length; i++) {
+      calls.put(callKey(before.callMethodNames[i], before.callLineNumbers[i]),
+          i);
+    }
+    String[] names = after.getCallMethodNames();
+    int[] lines = after.getCallLineNumbers();
+    long[] complexity = after.getCallComplexityCosts();
+    long[] global = after.getCallGlobalCosts();
+    occurrences.clear();
+    for (int i = 0; i < names.length; i++) {
+      Integer j = calls.remove(callKey(names[i], lines[i]));
+      if (j == null) {
+        appendCall('+', lines[i], names[i]);
+        appendCosts(complexity[i], global[i]);
+      } else if (before.callComplexityCosts[j] != complexity[i]
+          || before.callGlobalCosts[j] != global[i]) {
+        appendCall('~', lines[i], names[i]);
+        appendCosts(before.callComplexityCosts[j], before.callGlobalCosts[j]);
+        methodLines.append(" ->");
+        appendCosts(complexity[i], global[i]);
+      } else {
+        continue;
+      }
+      methodLines.append('\n');
+    }
+    for (int j : new TreeSet<Integer>(calls.values())) {
+      appendCall('-', before.callLineNumbers[j], before.callMethodNames[j]);
+      appendCosts(before.callComplexityCosts[j], before.callGlobalCosts[j]);
+      methodLines.append('\n');
+    }
+  }
+
+  /**
+   * The called method and line, followed by how often the same method was
+   * called on that line before.
+   */
+  private String callKey(String methodName, int lineNumber) {
+    String call = methodName + ':' + lineNumber;
+    Integer count = occurrences.get(call);
+    int occurrence = count == null ? 0 : count;
+    occurrences.put(call, occurrence + 1);
+    return call + '#' + occurrence;
+  }
+
+  private void appendCall(char change, int lineNumber, String methodName) {
+    methodLines.append("      ").append(change).append(" line ")
+        .append(lineNumber).append(": ").append(methodName);
+  }
+
+  private void appendCosts(long complexity, long global) {
+    methodLines.append(" [").append(complexity).append(", ").append(global)
+        .append(']');
+  }
+
+  private void appendDelta(long delta) {
+    methodLines.append('(').append(delta > 0 ? "+" : "").append(delta)
+        .append(')');
+  }
+
+  private static String truncation(boolean before, boolean after) {
+    if (before && after) {
+      return " (truncated)";
+    } else if (before) {
+      return " (truncated before)";
+    } else if (after) {
+      return " (truncated after)";
+    }
+    return "";
+  }
+
+  private void finishClass() {
+    if (className == null) {
+      return;
+    }
+    if (classBefore == null) {
+      if (classCost >= threshold) {
+        out.println("+ " + className + " " + classCost
+            + truncation(false, classTruncated));
+        addedCount++;
+      }
+    } else {
+      for (String removed : new TreeSet<String>(classBefore.methods.keySet())) {
+        long cost = classBefore.methods.get(removed).cost;
+        if (cost >= threshold) {
+          methodLines.append("  - ").append(removed).append(' ').append(cost)
+              .append('\n');
+        }
+      }
+      long delta = classCost - classBefore.cost;
+      if (Math.abs(delta) >= threshold || methodLines.length() > 0) {
+        out.print("~ " + className + " " + classBefore.cost + " -> "
+            + classCost + " (" + (delta > 0 ? "+" : "") + delta + ")"
+            + truncation(classBefore.truncated, classTruncated) + "\n");
+        out.print(methodLines);
+        changedCount++;
+      }
+    }
+    methodLines.setLength(0);
+    className = null;
+    classBefore = null;
+  }
+
+}
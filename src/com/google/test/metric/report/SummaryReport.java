@@ -16,25 +16,49 @@
 package com.google.test.metric.report;
 
 import com.google.test.metric.ClassCost;
+import com.google.test.metric.MethodCost;
 
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
 
+/**
+ * Base for reports which print class counts, a cost distribution and the worst
+ * offenders. Class costs are not retained: each one is folded into the class
+ * and method {@link CostDistribution}s, and only the {@code worstOffenderCount} most
+ * expensive classes are kept in a heap, so memory does not grow with the
+ * number of analyzed classes.
+ */
 public abstract class SummaryReport implements Report {
 
-  protected final SortedSet<ClassCost> costs = new TreeSet<ClassCost>(new ClassCost.Comparator());
+  public static final String PARTIAL_HEADER =
+      "# testability-metrics partial report 2";
+
+  protected final CostDistribution classCosts = new CostDistribution();
+  protected final CostDistribution methodCosts = new CostDistribution();
+  private final PriorityQueue<ClassCost> worstOffenders;
   protected final int maxExcellentCost;
   protected final int maxAcceptableCost;
   protected final int worstOffenderCount;
+  protected int classCount = 0;
   protected int excellentCount = 0;
   protected int goodCount = 0;
   protected int needsWorkCount = 0;
+  protected int truncatedCount = 0;
   protected int worstCost = 1;
 
   public SummaryReport(int maxExcellentCost, int maxAcceptableCost, int worstOffenderCount) {
     this.maxExcellentCost = maxExcellentCost;
     this.maxAcceptableCost = maxAcceptableCost;
     this.worstOffenderCount = worstOffenderCount;
+    // The head of the heap is the cheapest of the kept offenders.
+    this.worstOffenders = new PriorityQueue<ClassCost>(11,
+        Collections.reverseOrder(new ClassCost.Comparator()));
   }
 
   public void addClassCost(ClassCost classCost) {
@@ -46,8 +70,109 @@ public abstract class SummaryReport implements Report {
     } else {
       needsWorkCount++;
     }
-    costs.add(classCost);
+    if (classCost.isTruncated()) {
+      truncatedCount++;
+    }
+    classCount++;
+    classCosts.add(cost);
+    for (MethodCost methodCost : classCost.getMethods()) {
+      methodCosts.add(methodCost.getOverallCost());
+    }
+    addWorstOffender(classCost);
     worstCost = Math.max(worstCost, cost);
   }
 
-}
\ No newline at end of file
+  private void addWorstOffender(ClassCost classCost) {
+    worstOffenders.add(classCost);
+    if (worstOffenderCount > 0 && worstOffenders.size() > worstOffenderCount) {
+      worstOffenders.poll();
+    }
+  }
+
+  /**
+   * @return the most expensive classes, most expensive first. Holds all the
+   *         classes if {@code worstOffenderCount} is not positive.
+   */
+  protected List<ClassCost> getWorstOffenders() {
+    List<ClassCost> offenders = new ArrayList<ClassCost>(worstOffenders);
+    Collections.sort(offenders, new ClassCost.Comparator());
+    return offenders;
+  }
+
+  /**
+   * Writes the state of the report so that it can be merged with the states
+   * of other shards by {@link #readPartial(Reader)}. The format is text, one
+   * tab separated entry per line.
+   */
+  public void writePartial(PrintStream out) {
+    out.println(PARTIAL_HEADER);
+    out.println("classes\t" + classCount + "\t" + excellentCount + "\t"
+        + goodCount + "\t" + needsWorkCount + "\t" + worstCost + "\t"
+        + truncatedCount);
+    out.println("classCosts\t" + classCosts.encode());
+    out.println("methodCosts\t" + methodCosts.encode());
+    for (ClassCost offender : getWorstOffenders()) {
+      out.println("offender\t" + offender.getOverallCost() + "\t"
+          + offender.isTruncated() + "\t" + offender.getClassName());
+    }
+    out.flush();
+  }
+
+  /**
+   * Merges the state written by {@link #writePartial(PrintStream)} into this
+   * report. The shards have to use the same cost thresholds as this report.
+   */
+  public void readPartial(Reader reader) throws IOException {
+    BufferedReader in = new BufferedReader(reader);
+    String line = in.readLine();
+    if (!PARTIAL_HEADER.equals(line)) {
+      throw new IOException("Not a partial report: expected '"
+          + PARTIAL_HEADER + "' but was '" + line + "'.");
+    }
+    while ((line = in.readLine()) != null) {
+      if (line.length() == 0) {
+        continue;
+      }
+      String[] columns = line.split("\t");
+      try {
+        if (columns[0].equals("classes") && columns.length == 7) {
+          classCount += Integer.parseInt(columns[1]);
+          excellentCount += Integer.parseInt(columns[2]);
+          goodCount += Integer.parseInt(columns[3]);
+          needsWorkCount += Integer.parseInt(columns[4]);
+          worstCost = Math.max(worstCost, Integer.parseInt(columns[5]));
+          truncatedCount += Integer.parseInt(columns[6]);
+        } else if (columns[0].equals("classCosts") && columns.length == 2) {
+          classCosts.mergeEncoded(columns[1]);
+        } else if (columns[0].equals("methodCosts") && columns.length == 2) {
+          methodCosts.mergeEncoded(columns[1]);
+        } else if (columns[0].equals("offender") && columns.length == 4) {
+          ClassCost offender = new ClassCost(columns[3],
+              Long.parseLong(columns[1]));
+          offender.setTruncated(parseBoolean(columns[2]));
+          addWorstOffender(offender);
+        } else {
+          throw new IOException("Malformed partial report line: " + line);
+        }
+      } catch (IllegalArgumentException e) {
+        throw new IOException("Malformed partial report line: " + line);
+      }
+    }
+  }
+
+  private static boolean parseBoolean(String value) {
+    if (value.equals("true") || value.equals("false")) {
+      return value.equals("true");
+    }
+    throw new IllegalArgumentException("Not a boolean: " + value);
+  }
+
+  public CostDistribution getClassCostDistribution() {
+    return classCosts;
+  }
+
+  public CostDistribution getMethodCostDistribution() {
+    return methodCosts;
+  }
+
+}
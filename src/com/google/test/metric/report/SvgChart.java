@@ -0,0 +1,96 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+import java.util.Locale;
+
+/**
+ * Base for charts rendered locally as inline SVG, so that reports do not
+ * need the network to be viewed. Colors are RRGGBB hex strings as for
+ * {@link GoogleChartAPI}.
+ */
+public abstract class SvgChart implements Chart {
+
+  protected int width = 400;
+  protected int height = 200;
+  protected String[] itemLabels = new String[0];
+  protected String[] chartLabels = new String[0];
+  protected String[] colors = new String[0];
+  protected int[][] values = new int[0][];
+
+  public void setSize(int width, int height) {
+    this.width = width;
+    this.height = height;
+  }
+
+  public void setItemLabel(String... labels) {
+    this.itemLabels = labels;
+  }
+
+  public void setChartLabel(String... labels) {
+    this.chartLabels = labels;
+  }
+
+  public void setColors(String... colors) {
+    this.colors = colors;
+  }
+
+  public void setValues(int... values) {
+    this.values = new int[][] {values};
+  }
+
+  public void setValues(int[]... values) {
+    this.values = values;
+  }
+
+  public String getHtml() {
+    StringBuilder svg = new StringBuilder();
+    svg.append(String.format("<svg xmlns='http://www.w3.org/2000/svg' "
+        + "width='%d' height='%d' font-family='sans-serif' font-size='11'>",
+        width, height));
+    render(svg);
+    svg.append("</svg>");
+    return svg.toString();
+  }
+
+  protected abstract void render(StringBuilder svg);
+
+  protected String color(int index) {
+    return colors.length == 0 ? "#888888" : "#" + colors[index % colors.length];
+  }
+
+  protected String label(String[] labels, int index) {
+    return index < labels.length ? escape(labels[index]) : "";
+  }
+
+  protected void legend(StringBuilder svg, int x, int y, String[] labels) {
+    for (int i = 0; i < labels.length; i++) {
+      svg.append(String.format("<rect x='%d' y='%d' width='10' height='10' "
+          + "fill='%s'/><text x='%d' y='%d'>%s</text>",
+          x, y + 16 * i, color(i), x + 14, y + 16 * i + 9, label(labels, i)));
+    }
+  }
+
+  protected static String number(double value) {
+    return String.format(Locale.US, "%.1f", value);
+  }
+
+  protected static String escape(String text) {
+    return text.replace("&", "&amp;").replace("<", "&lt;")
+        .replace(">", "&gt;").replace("'", "&#39;");
+  }
+
+}
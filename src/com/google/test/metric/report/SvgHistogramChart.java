@@ -0,0 +1,83 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+/**
+ * Histogram of stacked bars: bar i stacks value i of every data set. Values
+ * are scaled so that {@link #MAX_VALUE} reaches the top of the plot, which
+ * is the scale {@link Histogram#getScaledBinRange(int, int, int)} produces
+ * for the chart URLs.
+ */
+public class SvgHistogramChart extends SvgChart implements HistogramChart {
+
+  public static final int MAX_VALUE = 61;
+  private static final int AXIS_WIDTH = 30;
+  private static final int LABEL_HEIGHT = 16;
+  private static final int LEGEND_WIDTH = 130;
+
+  private int barWidth = 10;
+  private int spaceBar = 0;
+  private int[] yMarks = new int[0];
+
+  public void setBarWidth(int width, int spaceBar, int spaceGroup) {
+    this.barWidth = Math.max(1, width);
+    this.spaceBar = spaceBar;
+  }
+
+  public void setYMark(int... marks) {
+    this.yMarks = marks;
+  }
+
+  @Override
+  protected void render(StringBuilder svg) {
+    int plotHeight = height - LABEL_HEIGHT - 4;
+    int bottom = plotHeight + 4;
+    int bins = 0;
+    for (int[] series : values) {
+      bins = Math.max(bins, series.length);
+    }
+    int step = barWidth + spaceBar;
+    for (int bin = 0; bin < bins; bin++) {
+      double y = bottom;
+      for (int i = 0; i < values.length; i++) {
+        int value = bin < values[i].length ? values[i][bin] : 0;
+        if (value > 0) {
+          double barHeight = (double) plotHeight * value / MAX_VALUE;
+          y -= barHeight;
+          svg.append(String.format("<rect x='%d' y='%s' width='%d' height='%s' "
+              + "fill='%s'/>", AXIS_WIDTH + bin * step, number(y), barWidth,
+              number(barHeight), color(i)));
+        }
+      }
+      String label = label(itemLabels, bin);
+      if (label.length() > 0) {
+        svg.append(String.format("<text x='%d' y='%d' text-anchor='middle'>%s"
+            + "</text>", AXIS_WIDTH + bin * step + barWidth / 2,
+            height - 4, label));
+      }
+    }
+    svg.append(String.format("<line x1='%d' y1='4' x2='%d' y2='%d' "
+        + "stroke='black'/>", AXIS_WIDTH - 1, AXIS_WIDTH - 1, bottom));
+    for (int i = 0; i < yMarks.length; i++) {
+      int y = yMarks.length == 1 ? bottom
+          : bottom - plotHeight * i / (yMarks.length - 1);
+      svg.append(String.format("<text x='%d' y='%d' text-anchor='end'>%d"
+          + "</text>", AXIS_WIDTH - 4, y + 4, yMarks[i]));
+    }
+    legend(svg, width - LEGEND_WIDTH + 10, 10, chartLabels);
+  }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2007 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.test.metric.report;
+
+import static java.lang.Math.PI;
+import static java.lang.Math.cos;
+import static java.lang.Math.sin;
+
+/**
+ * Pie chart of a single data set with one slice per value, labeled with the
+ * item labels.
+ */
+public class SvgPieChart extends SvgChart {
+
+  @Override
+  protected void render(StringBuilder svg) {
+    int[] slices = values.length == 0 ? new int[0] : values[0];
+    double radius = height / 2.0 - 4;
+    double cx = height / 2.0;
+    double cy = height / 2.0;
+    long total = 0;
+    for (int value : slices) {
+      total += value;
+    }
+    double angle = -PI / 2;
+    for (int i = 0; i < slices.length; i++) {
+      if (slices[i] <= 0) {
+        continue;
+      }
+      if (slices[i] == total) {
+        svg.append(String.format("<circle cx='%s' cy='%s' r='%s' fill='%s'/>",
+            number(cx), number(cy), number(radius), color(i)));
+        break;
+      }
+      double sweep = 2 * PI * slices[i] / total;
+      double end = angle + sweep;
+      svg.append(String.format("<path d='M%s,%s L%s,%s A%s,%s 0 %d,1 %s,%s Z' "
+          + "fill='%s'/>",
+          number(cx), number(cy),
+          number(cx + radius * cos(angle)), number(cy + radius * sin(angle)),
+          number(radius), number(radius), sweep > PI ? 1 : 0,
+          number(cx + radius * cos(end)), number(cy + radius * sin(end)),
+          color(i)));
+      angle = end;
+    }
+    legend(svg, height + 10, 10, itemLabels);
+  }
+
+}
@@ -40,12 +40,27 @@ public class TextHistogram {
   }
 
   public String[] graph(float... values) {
-    String[] rows = new String[height + 1];
     if (max == -1) {
       max = (int) Math.ceil(maxFloat(values));
     }
-    int bucketWidth = (int)Math.ceil((float)(max - min) / height);
-    int[] counts = count(bucketWidth, values);
+    int bucketWidth = getBucketWidth();
+    return render(bucketWidth, count(bucketWidth, values));
+  }
+
+  public String[] graph(CostDistribution distribution) {
+    if (max == -1) {
+      max = (int) distribution.getMax();
+    }
+    int bucketWidth = getBucketWidth();
+    return render(bucketWidth, count(bucketWidth, distribution));
+  }
+
+  private int getBucketWidth() {
+    return (int)Math.ceil((float)(max - min) / height);
+  }
+
+  private String[] render(int bucketWidth, int[] counts) {
+    String[] rows = new String[height + 1];
     int maxCount = max(counts);
     StringBuilder out = new StringBuilder();
     Formatter formatter = new Formatter(out);
@@ -81,16 +96,39 @@ public class TextHistogram {
   public int[] count(int binSize, float... values) {
     int[] counts = new int[height];
     for (float value : values) {
-      int bin = min;
-      for (int row = 0; row < height; row++) {
-        bin += binSize;
-        if (bin >= value) {
-          counts[row]++;
-          break;
+      int row = row(binSize, value);
+      if (row < height) {
+        counts[row]++;
+      }
+    }
+    return counts;
+  }
+
+  public int[] count(int binSize, CostDistribution distribution) {
+    int[] counts = new int[height];
+    for (int bucket = 0; bucket < distribution.getBucketCount(); bucket++) {
+      long count = distribution.getCount(bucket);
+      if (count > 0) {
+        int row = row(binSize, distribution.getValue(bucket));
+        if (row < height) {
+          counts[row] += count;
         }
       }
     }
     return counts;
   }
 
+  /**
+   * @return the first row whose upper bound is at least the value, or
+   *         {@code height} if the value is past the last row.
+   */
+  private int row(int binSize, float value) {
+    if (value <= min + binSize) {
+      return 0;
+    } else if (binSize <= 0) {
+      return height;
+    }
+    return (int) Math.ceil((value - min) / binSize) - 1;
+  }
+
 }
@@ -29,11 +29,14 @@ public class TextReport extends SummaryReport {
   }
 
   public void printSummary() {
-    int total = costs.size();
+    int total = classCount;
     out.printf("      Analyzed classes: %5d%n", total);
     out.printf(" Excellent classes (.): %5d %5.1f%%%n", excellentCount, 100f * excellentCount / total);
     out.printf("      Good classes (=): %5d %5.1f%%%n", goodCount, 100f * goodCount / total);
     out.printf("Needs work classes (@): %5d %5.1f%%%n", needsWorkCount, 100f * needsWorkCount / total);
+    if (truncatedCount > 0) {
+      out.printf("     Truncated classes: %5d %5.1f%%%n", truncatedCount, 100f * truncatedCount / total);
+    }
     PieGraph graph = new PieGraph(50, new CharMarker('.', '=', '@'));
     String chart = graph.render(excellentCount, goodCount, needsWorkCount);
     out.printf("             Breakdown: [%s]%n", chart);
@@ -51,22 +54,26 @@ public class TextReport extends SummaryReport {
         }
       }
     });
-    float[] values = new float[costs.size()];
-    int i = 0;
-    for (ClassCost cost : costs) {
-      values[i++] = cost.getOverallCost();
-    }
-    for (String graph : histogram.graph(values)) {
+    for (String graph : histogram.graph(classCosts)) {
       out.println(graph);
     }
   }
 
+  public void printQuantiles() {
+    out.printf("   Class cost p50/p90/p99: %5d %5d %5d%n",
+        classCosts.getQuantile(0.5), classCosts.getQuantile(0.9),
+        classCosts.getQuantile(0.99));
+    out.printf("  Method cost p50/p90/p99: %5d %5d %5d%n",
+        methodCosts.getQuantile(0.5), methodCosts.getQuantile(0.9),
+        methodCosts.getQuantile(0.99));
+  }
+
   public void printWorstOffenders(int worstOffenderCount) {
     out.println();
     out.println("Highest Cost");
     out.println("============");
     int i=0;
-    for (ClassCost cost : costs) {
+    for (ClassCost cost : getWorstOffenders()) {
       out.println(cost);
       if (++i == worstOffenderCount) {
         break;
@@ -79,6 +86,7 @@ public class TextReport extends SummaryReport {
    */
   public void printFooter() {
     printSummary();
+    printQuantiles();
     printDistribution(25, 70);
     printWorstOffenders(worstOffenderCount);
   }